@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.datamodel.aml.Representation;
+import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per message cost of AML encoding and decoding as done by EZMQX publishers and subscribers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmlCodecBenchmark {
+  @Param({BenchmarkModels.SAMPLE, BenchmarkModels.SMALL, BenchmarkModels.MEDIUM,
+      BenchmarkModels.LARGE})
+  public String model;
+
+  private Representation mRepresentation;
+  private AMLObject mData;
+  private byte[] mEncoded;
+
+  @Setup
+  public void setup() throws Exception {
+    mRepresentation = new Representation(BenchmarkModels.createModelFile(model));
+    mData = BenchmarkModels.createData(model);
+    mEncoded = mRepresentation.DataToByte(mData);
+  }
+
+  /**
+   * Representation.DataToByte alone.
+   */
+  @Benchmark
+  public byte[] dataToByte() throws AMLException {
+    return mRepresentation.DataToByte(mData);
+  }
+
+  /**
+   * Representation.ByteToData alone.
+   */
+  @Benchmark
+  public AMLObject byteToData() throws AMLException {
+    return mRepresentation.ByteToData(mEncoded);
+  }
+
+  /**
+   * Representation.DataToAml alone.
+   */
+  @Benchmark
+  public String dataToAml() throws AMLException {
+    return mRepresentation.DataToAml(mData);
+  }
+
+  /**
+   * Work of EZMQXAmlPublisher.publish before the socket send.
+   */
+  @Benchmark
+  public EZMQByteData publishPath() throws AMLException {
+    return new EZMQByteData(mRepresentation.DataToByte(mData));
+  }
+
+  /**
+   * Work of EZMQXAmlSubscriber callback for received data.
+   */
+  @Benchmark
+  public AMLObject amlSubscriberPath() throws AMLException {
+    return mRepresentation.ByteToData(new EZMQByteData(mEncoded).getByteData());
+  }
+
+  /**
+   * Work of EZMQXXmlSubscriber callback for received data.
+   */
+  @Benchmark
+  public String xmlSubscriberPath() throws AMLException {
+    AMLObject amlObject = mRepresentation.ByteToData(new EZMQByteData(mEncoded).getByteData());
+    return mRepresentation.DataToAml(amlObject);
+  }
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import org.datamodel.aml.AMLData;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+
+/**
+ * AML models used by benchmarks. "sample" is the data model of ezmqx unit tests, the others are
+ * synthetic models with increasing number of data units and attributes.
+ */
+public final class BenchmarkModels {
+  public static final String SAMPLE = "sample";
+  public static final String SMALL = "small";
+  public static final String MEDIUM = "medium";
+  public static final String LARGE = "large";
+
+  private static final String SAMPLE_RESOURCE = "/sample_data_model.aml";
+  private static final String MODEL_NAME = "Bench_Model";
+  private static final String MODEL_VERSION = "0.0.1";
+  private static final String DEVICE_ID = "GTC001";
+  private static final String TIMESTAMP = "123456789";
+
+  private BenchmarkModels() {}
+
+  /**
+   * Write AML model file to a temporary file.
+   *
+   * @param model One of the model names.
+   *
+   * @return Path of AML model file.
+   */
+  public static String createModelFile(String model) throws IOException {
+    File file = File.createTempFile("ezmqx-bench-" + model, ".aml");
+    file.deleteOnExit();
+    if (SAMPLE.equals(model)) {
+      try (InputStream in = BenchmarkModels.class.getResourceAsStream(SAMPLE_RESOURCE)) {
+        Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      return file.getAbsolutePath();
+    }
+    int[] size = getSize(model);
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write(createSyntheticModel(size[0], size[1]));
+    }
+    return file.getAbsolutePath();
+  }
+
+  /**
+   * Create AMLObject matching the model.
+   *
+   * @param model One of the model names.
+   *
+   * @return AMLObject with every attribute of the model set.
+   */
+  public static AMLObject createData(String model) throws AMLException {
+    if (SAMPLE.equals(model)) {
+      return createSampleData();
+    }
+    int[] size = getSize(model);
+    AMLObject amlObject = new AMLObject(DEVICE_ID, TIMESTAMP);
+    for (int unit = 0; unit < size[0]; unit++) {
+      AMLData data = new AMLData();
+      for (int attribute = 0; attribute < size[1]; attribute++) {
+        String value = String.format("%016d", unit * 1000 + attribute);
+        data.setValue(getAttributeName(attribute), value);
+      }
+      amlObject.addData(getUnitName(unit), data);
+    }
+    return amlObject;
+  }
+
+  // units x attributes of synthetic models
+  private static int[] getSize(String model) {
+    if (SMALL.equals(model)) {
+      return new int[] {4, 4};
+    } else if (MEDIUM.equals(model)) {
+      return new int[] {16, 16};
+    } else if (LARGE.equals(model)) {
+      return new int[] {64, 32};
+    }
+    throw new IllegalArgumentException("Unknown model: " + model);
+  }
+
+  private static String getUnitName(int unit) {
+    return "Unit_" + unit;
+  }
+
+  private static String getAttributeName(int attribute) {
+    return "attr_" + attribute;
+  }
+
+  private static String createSyntheticModel(int units, int attributes) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+    builder.append("<CAEXFile FileName=\"\" SchemaVersion=\"2.15\" ")
+        .append("xsi:noNamespaceSchemaLocation=\"CAEX_Classmodel_V2.15.xsd\" ")
+        .append("xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">\n");
+    builder.append("\t<InstanceHierarchy Name=\"").append(MODEL_NAME).append("\">\n");
+    builder.append("\t</InstanceHierarchy>\n");
+    builder.append("\t<RoleClassLib Name=\"").append(MODEL_NAME).append("_Cycle\">\n");
+    builder.append("\t\t<Version>1.0.0</Version>\n");
+    for (int unit = 0; unit < units; unit++) {
+      builder.append("\t\t<RoleClass Name=\"").append(getUnitName(unit)).append("\">\n");
+      builder.append("\t\t\t<Attribute Name=\"cycle\" AttributeDataType=\"xs:string\">\n");
+      builder.append("\t\t\t\t<Value>once</Value>\n");
+      builder.append("\t\t\t</Attribute>\n");
+      builder.append("\t\t</RoleClass>\n");
+    }
+    builder.append("\t</RoleClassLib>\n");
+    builder.append("\t<SystemUnitClassLib Name=\"").append(MODEL_NAME).append("\">\n");
+    builder.append("\t\t<Version>").append(MODEL_VERSION).append("</Version>\n");
+    for (int unit = 0; unit < units; unit++) {
+      builder.append("\t\t<SystemUnitClass Name=\"").append(getUnitName(unit)).append("\">\n");
+      for (int attribute = 0; attribute < attributes; attribute++) {
+        builder.append("\t\t\t<Attribute Name=\"").append(getAttributeName(attribute))
+            .append("\" AttributeDataType=\"xs:string\"/>\n");
+      }
+      builder.append("\t\t</SystemUnitClass>\n");
+    }
+    builder.append("\t</SystemUnitClassLib>\n");
+    builder.append("</CAEXFile>\n");
+    return builder.toString();
+  }
+
+  private static AMLObject createSampleData() throws AMLException {
+    AMLObject amlObj = new AMLObject(DEVICE_ID, TIMESTAMP);
+
+    AMLData model = new AMLData();
+    model.setValue("ctname", "Model_107.113.97.248");
+    model.setValue("con", "SR-P7-970");
+
+    AMLData axis = new AMLData();
+    axis.setValue("x", "20");
+    axis.setValue("y", "110");
+    axis.setValue("z", "80");
+
+    AMLData info = new AMLData();
+    info.setValue("id", "f437da3b");
+    info.setValue("axis", axis);
+
+    ArrayList<String> appendix = new ArrayList<String>();
+    appendix.add("52303");
+    appendix.add("935");
+    appendix.add("1442");
+
+    AMLData sample = new AMLData();
+    sample.setValue("info", info);
+    sample.setValue("appendix", appendix);
+
+    amlObj.addData("Model", model);
+    amlObj.addData("Sample", sample);
+    return amlObj;
+  }
+}
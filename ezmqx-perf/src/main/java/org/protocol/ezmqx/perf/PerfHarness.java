@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXEndPoint;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXTopic;
+
+/**
+ * End-to-end publish/subscribe harness. Starts publishers and subscribers in stand-alone mode on
+ * localhost, drives the configured rate and reports latency distribution, throughput, drops and
+ * CPU time per message.
+ */
+public class PerfHarness {
+  private static final String AML_RESOURCE = "/perf_data_model.aml";
+  private static final String TOPIC_PREFIX = "/perf/";
+  private static final String LOCAL_HOST = "localhost";
+  // lets subscribers connect before the first sample, JeroMQ drops messages of slow joiners
+  private static final long CONNECT_DELAY = 1000;
+  private static final long DRAIN_DELAY = 1000;
+
+  private final PerfOptions mOptions;
+  private final List<PerfPublisher> mPublishers;
+  private final List<PerfSubscriber> mSubscribers;
+  private final List<Thread> mThreads;
+
+  public PerfHarness(PerfOptions options) {
+    mOptions = options;
+    mPublishers = new ArrayList<PerfPublisher>();
+    mSubscribers = new ArrayList<PerfSubscriber>();
+    mThreads = new ArrayList<Thread>();
+  }
+
+  private static String createModelFile() throws IOException {
+    File file = File.createTempFile("ezmqx-perf", ".aml");
+    file.deleteOnExit();
+    try (InputStream in = PerfHarness.class.getResourceAsStream(AML_RESOURCE)) {
+      Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file.getAbsolutePath();
+  }
+
+  private static long getProcessCpuTime() {
+    OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+    if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  private static void sleepUntil(long deadline) throws InterruptedException {
+    long delay;
+    while ((delay = deadline - System.nanoTime()) > 0) {
+      TimeUnit.NANOSECONDS.sleep(delay);
+    }
+  }
+
+  public void run() throws EZMQXException, IOException, InterruptedException {
+    EZMQXConfig config = EZMQXConfig.getInstance();
+    config.startStandAloneMode(LOCAL_HOST, false, "");
+    try {
+      List<String> amlFilePath = new ArrayList<String>();
+      amlFilePath.add(createModelFile());
+      String modelId = config.addAmlModel(amlFilePath).get(0);
+
+      List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+      for (int i = 0; i < mOptions.publishers; i++) {
+        String topic = TOPIC_PREFIX + i;
+        int port = mOptions.port + i;
+        mPublishers.add(
+            new PerfPublisher(topic, modelId, port, mOptions.rate, mOptions.size));
+        topics.add(new EZMQXTopic(topic, modelId, false, new EZMQXEndPoint(LOCAL_HOST, port)));
+      }
+      for (int i = 0; i < mOptions.subscribers; i++) {
+        mSubscribers.add(new PerfSubscriber(topics));
+      }
+      Thread.sleep(CONNECT_DELAY);
+
+      long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(mOptions.warmup);
+      long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(mOptions.duration);
+      for (PerfSubscriber subscriber : mSubscribers) {
+        subscriber.setMeasureWindow(measureStart, measureEnd);
+      }
+      for (int i = 0; i < mPublishers.size(); i++) {
+        PerfPublisher publisher = mPublishers.get(i);
+        publisher.setMeasureWindow(measureStart, measureEnd);
+        Thread thread = new Thread(publisher, "PerfPublisher-" + i);
+        mThreads.add(thread);
+        thread.start();
+      }
+
+      sleepUntil(measureStart);
+      long cpuStart = getProcessCpuTime();
+      sleepUntil(measureEnd);
+      long cpuEnd = getProcessCpuTime();
+      for (PerfPublisher publisher : mPublishers) {
+        publisher.stop();
+      }
+      for (Thread thread : mThreads) {
+        thread.join();
+      }
+      Thread.sleep(DRAIN_DELAY);
+      report(cpuStart < 0 ? -1 : cpuEnd - cpuStart);
+    } finally {
+      for (PerfPublisher publisher : mPublishers) {
+        publisher.terminate();
+      }
+      for (PerfSubscriber subscriber : mSubscribers) {
+        subscriber.terminate();
+      }
+      config.reset();
+    }
+  }
+
+  private void report(long cpuNanos) throws FileNotFoundException {
+    long sent = 0;
+    long measuredSent = 0;
+    long publishErrors = 0;
+    for (PerfPublisher publisher : mPublishers) {
+      sent += publisher.getSent();
+      measuredSent += publisher.getMeasuredSent();
+      publishErrors += publisher.getErrors();
+    }
+    long received = 0;
+    long measuredReceived = 0;
+    long gaps = 0;
+    long receiveErrors = 0;
+    Histogram latency = new Histogram(3);
+    for (PerfSubscriber subscriber : mSubscribers) {
+      received += subscriber.getReceived();
+      measuredReceived += subscriber.getMeasuredReceived();
+      gaps += subscriber.getGaps();
+      receiveErrors += subscriber.getErrors();
+      subscriber.addLatency(latency);
+    }
+    long expected = measuredSent * mOptions.subscribers;
+
+    System.out.println("\n------------- ezmq-plus performance -------------");
+    print("Options", mOptions.toString());
+    print("Sent [total]", sent + ", errors: " + publishErrors);
+    print("Received [total]", received + ", errors: " + receiveErrors);
+    print("Sent [measured]",
+        measuredSent + " (" + format(measuredSent / (double) mOptions.duration) + " msg/s)");
+    print("Received [measured]", measuredReceived + " ("
+        + format(measuredReceived / (double) mOptions.duration) + " msg/s)");
+    print("Dropped [measured]",
+        Math.max(0, expected - measuredReceived) + ", sequence gaps [total]: " + gaps);
+    if (cpuNanos >= 0 && measuredSent + measuredReceived > 0) {
+      print("CPU per message",
+          format(cpuNanos / 1000.0 / (measuredSent + measuredReceived))
+              + " us [process CPU / (sent + received)]");
+    }
+    print("Latency [us]", "p50 " + percentile(latency, 50) + ", p90 " + percentile(latency, 90)
+        + ", p99 " + percentile(latency, 99) + ", p99.9 " + percentile(latency, 99.9)
+        + ", p99.99 " + percentile(latency, 99.99) + ", max "
+        + format(latency.getMaxValue() / 1000.0));
+    if (null != mOptions.histogramFile) {
+      try (PrintStream out = new PrintStream(mOptions.histogramFile)) {
+        latency.outputPercentileDistribution(out, 1000.0);
+      }
+      print("Distribution file", mOptions.histogramFile);
+    }
+  }
+
+  private static void print(String label, String value) {
+    System.out.println(String.format("%-20s: %s", label, value));
+  }
+
+  private static String percentile(Histogram histogram, double percentile) {
+    return format(histogram.getValueAtPercentile(percentile) / 1000.0);
+  }
+
+  private static String format(double value) {
+    return String.format("%.2f", value);
+  }
+
+  public static void main(String[] args) {
+    PerfOptions options = PerfOptions.parse(args);
+    try {
+      new PerfHarness(options).run();
+    } catch (EZMQXException e) {
+      System.out.println(
+          "[App] Exception occured [Errorcode]: " + e.getCode() + "  [Message]: " + e.getMsg());
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
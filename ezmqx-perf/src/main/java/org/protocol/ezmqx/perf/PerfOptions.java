@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf;
+
+/**
+ * Command line options of performance harness.
+ */
+public class PerfOptions {
+  public int publishers = 1;
+  public int subscribers = 1;
+  // messages per second of each publisher, 0 publishes as fast as possible
+  public int rate = 1000;
+  // size of payload attribute in bytes
+  public int size = 64;
+  public int duration = 10;
+  public int warmup = 2;
+  public int port = 5562;
+  public String histogramFile = null;
+
+  public static PerfOptions parse(String[] args) {
+    PerfOptions options = new PerfOptions();
+    int n = 0;
+    while (n < args.length) {
+      if (n + 1 >= args.length) {
+        printUsage();
+      }
+      String value = args[n + 1];
+      if (args[n].equalsIgnoreCase("-pub")) {
+        options.publishers = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-sub")) {
+        options.subscribers = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-rate")) {
+        options.rate = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-size")) {
+        options.size = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-duration")) {
+        options.duration = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-warmup")) {
+        options.warmup = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-port")) {
+        options.port = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-hgrm")) {
+        options.histogramFile = value;
+      } else {
+        printUsage();
+      }
+      n = n + 2;
+    }
+    if (options.publishers < 1 || options.subscribers < 1 || options.rate < 0
+        || options.size < 0 || options.duration < 1 || options.warmup < 0) {
+      printUsage();
+    }
+    return options;
+  }
+
+  private static void printUsage() {
+    System.out.println("\nUsage: java -jar ezmqx-perf.jar [options]");
+    System.out.println("  -pub <count>       Number of publishers (default: 1)");
+    System.out.println("  -sub <count>       Number of subscribers, each subscribes all topics"
+        + " (default: 1)");
+    System.out.println("  -rate <msg/s>      Messages per second of each publisher, 0 for"
+        + " unlimited (default: 1000)");
+    System.out.println("  -size <bytes>      Payload size (default: 64)");
+    System.out.println("  -duration <sec>    Measurement duration (default: 10)");
+    System.out.println("  -warmup <sec>      Warmup duration, not measured (default: 2)");
+    System.out.println("  -port <port>       Port of first publisher (default: 5562)");
+    System.out.println("  -hgrm <file>       Write latency percentile distribution to file");
+    System.out.println("\nExample:");
+    System.out.println("  $ java -jar ezmqx-perf.jar -pub 4 -sub 2 -rate 10000 -size 256");
+    System.exit(-1);
+  }
+
+  @Override
+  public String toString() {
+    return "publishers: " + publishers + ", subscribers: " + subscribers + ", rate: " + rate
+        + " msg/s per publisher, size: " + size + " bytes, duration: " + duration
+        + " s, warmup: " + warmup + " s";
+  }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.datamodel.aml.AMLData;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.protocol.ezmqx.EZMQXAmlModelInfo;
+import org.protocol.ezmqx.EZMQXAmlPublisher;
+import org.protocol.ezmqx.EZMQXException;
+
+/**
+ * Publishes timestamped samples on one topic at a fixed rate.
+ */
+public class PerfPublisher implements Runnable {
+  public static final String DATA_NAME = "Perf";
+  public static final String KEY_SEQ = "seq";
+  public static final String KEY_SEND_TIME = "sendTime";
+  public static final String KEY_PAYLOAD = "payload";
+
+  private final EZMQXAmlPublisher mPublisher;
+  private final long mPeriodNanos;
+  private final String mPayload;
+  private volatile boolean mRunning;
+  private volatile long mMeasureStart;
+  private volatile long mMeasureEnd;
+  private long mSent;
+  private long mMeasuredSent;
+  private long mErrors;
+
+  public PerfPublisher(String topic, String modelId, int port, int rate, int size)
+      throws EZMQXException {
+    mPublisher =
+        EZMQXAmlPublisher.getPublisher(topic, EZMQXAmlModelInfo.AML_MODEL_ID, modelId, port);
+    mPeriodNanos = 0 == rate ? 0 : TimeUnit.SECONDS.toNanos(1) / rate;
+    char[] payload = new char[size];
+    Arrays.fill(payload, 'x');
+    mPayload = new String(payload);
+    mRunning = true;
+    mMeasureStart = Long.MAX_VALUE;
+    mMeasureEnd = Long.MAX_VALUE;
+  }
+
+  public void run() {
+    long start = System.nanoTime();
+    long seq = 0;
+    while (mRunning) {
+      long sendTime;
+      if (0 == mPeriodNanos) {
+        sendTime = System.nanoTime();
+      } else {
+        // latency is measured from intended send time, so a stalled sender is not hidden
+        // [coordinated omission]
+        sendTime = start + seq * mPeriodNanos;
+        long delay = sendTime - System.nanoTime();
+        if (delay > 0) {
+          LockSupport.parkNanos(delay);
+          continue;
+        }
+      }
+      try {
+        mPublisher.publish(createData(seq, sendTime));
+        mSent++;
+        if (sendTime >= mMeasureStart && sendTime < mMeasureEnd) {
+          mMeasuredSent++;
+        }
+      } catch (EZMQXException | AMLException e) {
+        mErrors++;
+      }
+      seq++;
+    }
+  }
+
+  private AMLObject createData(long seq, long sendTime) throws AMLException {
+    AMLObject amlObject = new AMLObject(DATA_NAME, Long.toString(sendTime));
+    AMLData data = new AMLData();
+    data.setValue(KEY_SEQ, Long.toString(seq));
+    data.setValue(KEY_SEND_TIME, Long.toString(sendTime));
+    data.setValue(KEY_PAYLOAD, mPayload);
+    amlObject.addData(DATA_NAME, data);
+    return amlObject;
+  }
+
+  public void setMeasureWindow(long start, long end) {
+    mMeasureStart = start;
+    mMeasureEnd = end;
+  }
+
+  public void stop() {
+    mRunning = false;
+  }
+
+  public void terminate() throws EZMQXException {
+    mPublisher.terminate();
+  }
+
+  // counters are read after publisher thread is joined
+  public long getSent() {
+    return mSent;
+  }
+
+  public long getMeasuredSent() {
+    return mMeasuredSent;
+  }
+
+  public long getErrors() {
+    return mErrors;
+  }
+}
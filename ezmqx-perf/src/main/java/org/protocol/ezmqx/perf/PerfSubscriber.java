@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.datamodel.aml.AMLData;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.protocol.ezmqx.EZMQXAmlSubscriber;
+import org.protocol.ezmqx.EZMQXAmlSubscriber.EZMQXAmlSubCallback;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXTopic;
+
+/**
+ * Subscribes to every publisher topic and records latency of received samples.
+ */
+public class PerfSubscriber implements EZMQXAmlSubCallback {
+  private final EZMQXAmlSubscriber mSubscriber;
+  private final Recorder mRecorder;
+  // only touched by the receive thread
+  private final Map<String, Long> mLastSeq;
+  private final AtomicLong mReceived;
+  private final AtomicLong mMeasuredReceived;
+  private final AtomicLong mGaps;
+  private final AtomicLong mErrors;
+  private volatile long mMeasureStart;
+  private volatile long mMeasureEnd;
+
+  public PerfSubscriber(List<EZMQXTopic> topics) throws EZMQXException {
+    mRecorder = new Recorder(3);
+    mLastSeq = new HashMap<String, Long>();
+    mReceived = new AtomicLong(0);
+    mMeasuredReceived = new AtomicLong(0);
+    mGaps = new AtomicLong(0);
+    mErrors = new AtomicLong(0);
+    mMeasureStart = Long.MAX_VALUE;
+    mMeasureEnd = Long.MAX_VALUE;
+    mSubscriber = EZMQXAmlSubscriber.getSubscriber(topics, this);
+  }
+
+  @Override
+  public void onMessage(String topic, AMLObject amlObject) {
+    long receiveTime = System.nanoTime();
+    try {
+      AMLData data = amlObject.getData(PerfPublisher.DATA_NAME);
+      long sendTime = Long.parseLong(data.getValueToStr(PerfPublisher.KEY_SEND_TIME));
+      long seq = Long.parseLong(data.getValueToStr(PerfPublisher.KEY_SEQ));
+      Long lastSeq = mLastSeq.put(topic, seq);
+      if (null != lastSeq && seq > lastSeq + 1) {
+        mGaps.addAndGet(seq - lastSeq - 1);
+      }
+      mReceived.incrementAndGet();
+      if (sendTime >= mMeasureStart && sendTime < mMeasureEnd) {
+        mMeasuredReceived.incrementAndGet();
+        mRecorder.recordValue(Math.max(0, receiveTime - sendTime));
+      }
+    } catch (AMLException | RuntimeException e) {
+      mErrors.incrementAndGet();
+    }
+  }
+
+  @Override
+  public void onError(String topic, EZMQXErrorCode errorCode) {
+    mErrors.incrementAndGet();
+  }
+
+  public void setMeasureWindow(long start, long end) {
+    mMeasureStart = start;
+    mMeasureEnd = end;
+  }
+
+  public void addLatency(Histogram histogram) {
+    histogram.add(mRecorder.getIntervalHistogram());
+  }
+
+  public void terminate() throws EZMQXException {
+    mSubscriber.terminate();
+  }
+
+  public long getReceived() {
+    return mReceived.get();
+  }
+
+  public long getMeasuredReceived() {
+    return mMeasuredReceived.get();
+  }
+
+  // samples missing in sequence of a topic
+  public long getGaps() {
+    return mGaps.get();
+  }
+
+  public long getErrors() {
+    return mErrors.get();
+  }
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf.tns;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.RestResponse;
+import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.test.internal.EmbeddedTns;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Load driver of the TNS REST API. Runs a registration storm, keep alive load, discovery queries
+ * and unregistration against the embedded TNS [or an external one] and reports throughput and
+ * latency of every phase.
+ */
+public class TnsLoad {
+  private static final String TOPIC_PREFIX = "/load/";
+  private static final String DATA_MODEL = "Perf_0.0.1";
+  private static final String LOCAL_HOST = "localhost";
+  private static final int FIRST_PORT = 10000;
+  // every n-th query is hierarchical on a parent topic
+  private static final int HIERARCHICAL_QUERY_RATIO = 10;
+
+  private final TnsLoadOptions mOptions;
+  private final ObjectMapper mMapper;
+  private String mTopicUrl;
+  private String mKeepAliveUrl;
+
+  private interface Operation {
+    // Returns true if TNS replied with expected status code.
+    boolean run(int index) throws Exception;
+  }
+
+  public TnsLoad(TnsLoadOptions options) {
+    mOptions = options;
+    mMapper = new ObjectMapper();
+  }
+
+  public void run() throws Exception {
+    EmbeddedTns tns = null;
+    String address = mOptions.tnsAddress;
+    if (null == address) {
+      tns = new EmbeddedTns(mOptions.port, mOptions.keepAliveInterval, mOptions.threads);
+      tns.start();
+      address = tns.getAddress();
+    }
+    mTopicUrl = address + RestUtils.PREFIX + RestUtils.TOPIC;
+    mKeepAliveUrl = address + RestUtils.PREFIX + RestUtils.TNS_KEEP_ALIVE;
+    RestFactory restFactory = RestFactory.getInstance();
+    restFactory.setConnectionPool(mOptions.threads, mOptions.threads);
+    try {
+      System.out.println("\n---------------- TNS load ----------------");
+      print("Options", mOptions.toString());
+      runPhase("Register", mOptions.topics, index -> {
+        RestResponse response = restFactory.post(mTopicUrl, getRegisterPayload(index));
+        return RestUtils.HTTP_CREATED == response.getStatusCode();
+      });
+      runPhase("Keep alive", mOptions.keepAliveRounds * mOptions.groups, index -> {
+        RestResponse response =
+            restFactory.post(mKeepAliveUrl, getKeepAlivePayload(index % mOptions.groups));
+        return RestUtils.HTTP_OK == response.getStatusCode();
+      });
+      runPhase("Query", mOptions.queries, index -> {
+        RestResponse response = restFactory.get(mTopicUrl, getQuery(index));
+        return RestUtils.HTTP_OK == response.getStatusCode();
+      });
+      runPhase("Unregister", mOptions.topics, index -> {
+        RestResponse response =
+            restFactory.delete(mTopicUrl, RestUtils.QUERY_NAME + getTopic(index));
+        return RestUtils.HTTP_OK == response.getStatusCode();
+      });
+      if (null != tns) {
+        print("Embedded TNS", "topics left: " + tns.getTopicCount() + ", expired: "
+            + tns.getExpiredCount());
+      }
+    } finally {
+      restFactory.releaseClients();
+      if (null != tns) {
+        tns.stop();
+      }
+    }
+  }
+
+  private void runPhase(String label, int count, Operation operation)
+      throws InterruptedException {
+    if (count < 1) {
+      return;
+    }
+    Recorder recorder = new Recorder(3);
+    AtomicInteger next = new AtomicInteger(0);
+    AtomicLong errors = new AtomicLong(0);
+    List<Thread> threads = new ArrayList<Thread>();
+    long start = System.nanoTime();
+    for (int i = 0; i < mOptions.threads; i++) {
+      Thread thread = new Thread(() -> {
+        int index;
+        while ((index = next.getAndIncrement()) < count) {
+          long requestStart = System.nanoTime();
+          boolean isSuccess;
+          try {
+            isSuccess = operation.run(index);
+          } catch (Exception e) {
+            isSuccess = false;
+          }
+          recorder.recordValue(System.nanoTime() - requestStart);
+          if (!isSuccess) {
+            errors.incrementAndGet();
+          }
+        }
+      }, "TnsLoad-" + label + "-" + i);
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    Histogram latency = recorder.getIntervalHistogram();
+    print(label, count + " requests, errors: " + errors.get() + ", "
+        + format(count / seconds) + " req/s");
+    print(label + " [us]", "p50 " + percentile(latency, 50) + ", p99 "
+        + percentile(latency, 99) + ", p99.9 " + percentile(latency, 99.9) + ", max "
+        + format(latency.getMaxValue() / 1000.0));
+  }
+
+  private String getTopic(int index) {
+    return TOPIC_PREFIX + (index % mOptions.groups) + RestUtils.SLASH + index;
+  }
+
+  private String getRegisterPayload(int index) {
+    ObjectNode root = mMapper.createObjectNode();
+    ObjectNode topic = root.putObject(RestUtils.PAYLOAD_TOPIC);
+    topic.put(RestUtils.PAYLOAD_NAME, getTopic(index));
+    topic.put(RestUtils.PAYLOAD_ENDPOINT, LOCAL_HOST + ":" + (FIRST_PORT + index));
+    topic.put(RestUtils.PAYLOAD_DATAMODEL, DATA_MODEL);
+    topic.put(RestUtils.PAYLOAD_SECURED, false);
+    return root.toString();
+  }
+
+  // keep alive of every topic in the group, as a single process hosting the group would send
+  private String getKeepAlivePayload(int group) {
+    ObjectNode root = mMapper.createObjectNode();
+    ArrayNode names = root.putArray(RestUtils.PAYLOAD_TOPIC_NAMES);
+    for (int i = group; i < mOptions.topics; i += mOptions.groups) {
+      names.add(getTopic(i));
+    }
+    return root.toString();
+  }
+
+  private String getQuery(int index) {
+    if (0 == index % HIERARCHICAL_QUERY_RATIO) {
+      return RestUtils.QUERY_NAME + TOPIC_PREFIX + (index % mOptions.groups)
+          + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_TRUE;
+    }
+    return RestUtils.QUERY_NAME + getTopic(index % mOptions.topics)
+        + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_FALSE;
+  }
+
+  private static void print(String label, String value) {
+    System.out.println(String.format("%-20s: %s", label, value));
+  }
+
+  private static String percentile(Histogram histogram, double percentile) {
+    return format(histogram.getValueAtPercentile(percentile) / 1000.0);
+  }
+
+  private static String format(double value) {
+    return String.format("%.2f", value);
+  }
+
+  public static void main(String[] args) {
+    TnsLoadOptions options = TnsLoadOptions.parse(args);
+    try {
+      new TnsLoad(options).run();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
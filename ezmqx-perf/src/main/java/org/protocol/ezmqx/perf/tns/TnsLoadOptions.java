@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.perf.tns;
+
+/**
+ * Command line options of TNS load driver.
+ */
+public class TnsLoadOptions {
+  // number of registered topics, i.e. simulated publishers
+  public int topics = 1000;
+  // topics are spread over this many parent topics for hierarchical queries
+  public int groups = 10;
+  public int threads = 16;
+  // keep alive rounds, every round sends keep alive of every topic group
+  public int keepAliveRounds = 10;
+  public int queries = 10000;
+  public int keepAliveInterval = 60;
+  // port of embedded TNS, 0 for any free port
+  public int port = 0;
+  // address of an external TNS, embedded TNS is started if not given
+  public String tnsAddress = null;
+
+  public static TnsLoadOptions parse(String[] args) {
+    TnsLoadOptions options = new TnsLoadOptions();
+    int n = 0;
+    while (n < args.length) {
+      if (n + 1 >= args.length) {
+        printUsage();
+      }
+      String value = args[n + 1];
+      if (args[n].equalsIgnoreCase("-topics")) {
+        options.topics = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-groups")) {
+        options.groups = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-threads")) {
+        options.threads = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-ka")) {
+        options.keepAliveRounds = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-queries")) {
+        options.queries = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-interval")) {
+        options.keepAliveInterval = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-port")) {
+        options.port = Integer.parseInt(value);
+      } else if (args[n].equalsIgnoreCase("-tns")) {
+        options.tnsAddress = value;
+      } else {
+        printUsage();
+      }
+      n = n + 2;
+    }
+    if (options.topics < 1 || options.groups < 1 || options.threads < 1
+        || options.keepAliveRounds < 0 || options.queries < 0 || options.keepAliveInterval < 1
+        || options.port < 0) {
+      printUsage();
+    }
+    return options;
+  }
+
+  private static void printUsage() {
+    System.out.println("\nUsage: java -cp ezmqx-perf.jar org.protocol.ezmqx.perf.tns.TnsLoad"
+        + " [options]");
+    System.out.println("  -topics <count>    Number of registered topics (default: 1000)");
+    System.out.println("  -groups <count>    Number of parent topics (default: 10)");
+    System.out.println("  -threads <count>   Number of client threads (default: 16)");
+    System.out.println("  -ka <rounds>       Keep alive rounds (default: 10)");
+    System.out.println("  -queries <count>   Number of discovery queries (default: 10000)");
+    System.out.println("  -interval <sec>    Keep alive interval of embedded TNS (default: 60)");
+    System.out.println("  -port <port>       Port of embedded TNS, 0 for any (default: 0)");
+    System.out.println("  -tns <address>     Load an external TNS instead of the embedded one");
+    System.out.println("\nExample:");
+    System.out.println("  $ java -cp ezmqx-perf.jar org.protocol.ezmqx.perf.tns.TnsLoad"
+        + " -topics 5000 -threads 32");
+    System.exit(-1);
+  }
+
+  @Override
+  public String toString() {
+    return "topics: " + topics + ", groups: " + groups + ", threads: " + threads
+        + ", keep alive rounds: " + keepAliveRounds + ", queries: " + queries
+        + (null == tnsAddress ? ", embedded TNS" : ", TNS: " + tnsAddress);
+  }
+}
@@ -1,4 +1,4 @@
 #!/bin/sh
-mvn clean install -U -Dmaven.test.skip=true
+mvn clean install -U -DskipTests
 echo "EZMQX build done"
 
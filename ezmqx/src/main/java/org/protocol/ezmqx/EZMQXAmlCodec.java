@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+
+/**
+ * This interface represents codec of a single AML model, specialized for the fields of that
+ * model. It replaces generic serialization of AML representation for publishers and
+ * subscribers of the model, see {@link EZMQXConfig#setAmlCodec(String, EZMQXAmlCodec)}.<br>
+ * <b>Note:</b> <br>
+ * (1) No implementation is shipped, AML representation is used unless a codec is set.<br>
+ * (2) Encoded data should be byte-identical to the data encoded by AML representation of the
+ * model. It is verified per data shape, see
+ * {@link EZMQXConfig#setAmlCodec(String, EZMQXAmlCodec)}.<br>
+ * (3) Codec is called from multiple threads.
+ */
+public interface EZMQXAmlCodec {
+  /**
+   * Encode data of the AML model.
+   *
+   * @param data Data to be encoded [AMLObject].
+   *
+   * @return Encoded data.
+   */
+  byte[] encode(AMLObject data) throws AMLException;
+
+  /**
+   * Decode data of the AML model.
+   *
+   * @param data Encoded data.
+   *
+   * @return Decoded data [AMLObject].
+   */
+  AMLObject decode(byte[] data) throws AMLException;
+}
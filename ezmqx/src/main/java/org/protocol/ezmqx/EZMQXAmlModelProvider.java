@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+/**
+ * This interface represents provider of AML model files. It is asked for the model file when a
+ * publisher or subscriber refers to an AML model id which is not added by
+ * {@link EZMQXConfig#addAmlModel(java.util.List)}.
+ */
+public interface EZMQXAmlModelProvider {
+  /**
+   * Get AML model file of given model id.<br>
+   * <b>Note:</b> Called from the thread creating a publisher or subscriber, it should not
+   * block for long.
+   *
+   * @param amlModelId AML model id.
+   *
+   * @return Path of AML file or null if model is unknown to the provider.
+   */
+  String getAmlFilePath(String amlModelId);
+}
@@ -17,15 +17,20 @@
 
 package org.protocol.ezmqx;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import org.datamodel.aml.AMLException;
 import org.datamodel.aml.AMLObject;
-import org.datamodel.aml.Representation;
 import org.edgexfoundry.ezmq.EZMQErrorCode;
 import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.AmlCodec;
+import org.protocol.ezmqx.internal.PublishQueue;
 import org.protocol.ezmqx.internal.Utils;
 
 /**
@@ -33,12 +38,17 @@ import org.protocol.ezmqx.internal.Utils;
  * creating publisher and publishing data.
  */
 public class EZMQXAmlPublisher extends EZMQXPublisher {
-  private Representation mRepresentation;
+  private AmlCodec mCodec;
+  private String mModelId;
+  private volatile PublishQueue<Object> mPublishQueue;
+  private volatile int mRawValidationInterval;
+  private AtomicLong mRawCount;
   private final static EdgeXLogger logger =
       EdgeXLoggerFactory.getEdgeXLogger(EZMQXAmlPublisher.class);
 
   private EZMQXAmlPublisher() {
     super();
+    mRawCount = new AtomicLong(0);
   }
 
   // finalize method to be called by Java Garbage collector
@@ -95,40 +105,180 @@ public class EZMQXAmlPublisher extends EZMQXPublisher {
     return publisher;
   }
 
+  /**
+   * Get EZMQX publisher instance without blocking the caller for TNS registration.<br>
+   * <b>Note:</b> <br>
+   * (1) Publisher socket is created before returning, only the registration of topic on TNS
+   * server is done asynchronously. <br>
+   * (2) Many publishers can be created concurrently this way.
+   *
+   * @param topic Topic on which publisher will publish.
+   * @param modelInfo Enum value for AML model info
+   *        {@link EZMQXAmlModelInfo}.
+   * @param modelId AML model ID or AML file path.
+   * @param optionalPort Port to be used for publishing data. It will be
+   *        used only when EZMQX configured in stand-alone mode.
+   *
+   * @return Future of AML Publisher {@link EZMQXAmlPublisher}, it completes exceptionally with
+   *         {@link EZMQXException} if topic could not be registered.
+   */
+  public static CompletableFuture<EZMQXAmlPublisher> getPublisherAsync(String topic,
+      EZMQXAmlModelInfo modelInfo, String modelId, int optionalPort) throws EZMQXException {
+    EZMQXAmlPublisher publisher = new EZMQXAmlPublisher();
+    publisher.initialize(optionalPort, Utils.EMPTY_STRING);
+    EZMQXTopic ezmqTopic = publisher.createTopic(topic, modelInfo, modelId);
+    return publisher.registerTopicAsync(ezmqTopic).thenApply(result -> publisher);
+  }
+
+  /**
+   * Get Secured EZMQX publisher instance without blocking the caller for TNS registration.<br>
+   * <b>Note:</b> <br>
+   * (1) serverPrivateKey should be 40-character string encoded in the Z85 encoding format <br>
+   * (2) Publisher socket is created before returning, only the registration of topic on TNS
+   * server is done asynchronously.
+   *
+   * @param topic Topic on which publisher will publish.
+   * @param serverPrivateKey Server private/Secret key.
+   * @param modelInfo Enum value for AML model info
+   *        {@link EZMQXAmlModelInfo}.
+   * @param modelId AML model ID or AML file path.
+   * @param optionalPort Port to be used for publishing data. It will be
+   *        used only when EZMQX configured in stand-alone mode.
+   *
+   * @return Future of secured AML Publisher {@link EZMQXAmlPublisher}, it completes
+   *         exceptionally with {@link EZMQXException} if topic could not be registered.
+   */
+  public static CompletableFuture<EZMQXAmlPublisher> getSecuredPublisherAsync(String topic,
+      String serverPrivateKey, EZMQXAmlModelInfo modelInfo, String modelId, int optionalPort)
+      throws EZMQXException {
+    EZMQXAmlPublisher publisher = new EZMQXAmlPublisher();
+    publisher.initialize(optionalPort, serverPrivateKey);
+    EZMQXTopic ezmqTopic = publisher.createTopic(topic, modelInfo, modelId);
+    return publisher.registerTopicAsync(ezmqTopic).thenApply(result -> publisher);
+  }
+
   private void registerTopic(String topic, EZMQXAmlModelInfo modelInfo, String modelId,
       int optionalPort) throws EZMQXException {
+    registerTopic(createTopic(topic, modelInfo, modelId));
+  }
+
+  private EZMQXTopic createTopic(String topic, EZMQXAmlModelInfo modelInfo, String modelId)
+      throws EZMQXException {
     boolean result = Utils.validateTopic(topic);
     if (false == result) {
       mPublisher.stop();
       throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
     }
     if (EZMQXAmlModelInfo.AML_MODEL_ID == modelInfo) {
-      mRepresentation = mContext.getAmlRep(modelId);
+      mCodec = mContext.acquireAmlModel(modelId);
+      mModelId = modelId;
     } else if (EZMQXAmlModelInfo.AML_FILE_PATH == modelInfo) {
       List<String> amlFilePath = new ArrayList<String>();
       amlFilePath.add(modelId);
       amlFilePath = mContext.addAmlRep(amlFilePath);
-      mRepresentation = mContext.getAmlRep(amlFilePath.get(0));
+      mCodec = mContext.acquireAmlModel(amlFilePath.get(0));
+      mModelId = amlFilePath.get(0);
     } else {
       mPublisher.stop();
       throw new EZMQXException("Invalid aml model info", EZMQXErrorCode.UnKnownState);
     }
     EZMQXTopic ezmqTopic = null;
     try {
-      ezmqTopic = new EZMQXTopic(topic, mRepresentation.getRepresentationId(), mSecured,
-          mContext.getHostEp(mLocalPort));
+      ezmqTopic = new EZMQXTopic(topic, mCodec.getRepresentation().getRepresentationId(),
+          mSecured, mContext.getHostEp(mLocalPort));
     } catch (AMLException e) {
       mPublisher.stop();
+      releaseModel();
       throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.UnKnownState);
     } catch (EZMQXException e) {
       mPublisher.stop();
+      releaseModel();
       throw new EZMQXException(e.getMsg(), e.getCode());
     }
-    registerTopic(ezmqTopic);
+    return ezmqTopic;
+  }
+
+  @Override
+  protected void onRegisterFailure() {
+    super.onRegisterFailure();
+    releaseModel();
+  }
+
+  // Model may be evicted once released.
+  private synchronized void releaseModel() {
+    if (null != mModelId) {
+      mContext.releaseAmlModel(mModelId);
+      mModelId = null;
+    }
   }
 
   /**
-   * Publish AMLObject on the socket for subscribers.
+   * Enable asynchronous publish mode. Once enabled, {@link #publish(AMLObject)} only enqueues
+   * the data and a dedicated sender thread of this publisher serializes and publishes it.<br>
+   * <b>Note:</b> <br>
+   * (1) Queued AMLObject should not be modified by the caller after publish. <br>
+   * (2) Serialization and send errors are not reported to the caller, see
+   * {@link #getFailedCount()}. <br>
+   * (3) Data already queued is published on {@link #terminate()}.
+   *
+   * @param capacity Capacity of publish queue, it is rounded up to power of two. Maximum
+   *        capacity is 1048576.
+   * @param waitStrategy Wait strategy of sender thread on empty queue and of callers on full
+   *        queue with {@link EZMQXOverflowPolicy#BLOCK} {@link EZMQXWaitStrategy}.
+   * @param overflowPolicy Action to take when queue is full {@link EZMQXOverflowPolicy}.
+   */
+  public synchronized void enableAsyncPublish(int capacity, EZMQXWaitStrategy waitStrategy,
+      EZMQXOverflowPolicy overflowPolicy) throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (capacity < 1 || capacity > Utils.ASYNC_PUBLISH_MAX_CAPACITY || null == waitStrategy
+        || null == overflowPolicy) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    if (null != mPublishQueue) {
+      throw new EZMQXException("Async publish already enabled", EZMQXErrorCode.InvalidParam);
+    }
+    PublishQueue<Object> queue = new PublishQueue<Object>(capacity, waitStrategy,
+        overflowPolicy, new PublishQueue.Sender<Object>() {
+          // raw payloads share the queue to keep publish order
+          public void send(Object payload) throws EZMQXException {
+            if (payload instanceof byte[]) {
+              sendRaw((byte[]) payload);
+            } else {
+              sendData((AMLObject) payload);
+            }
+          }
+        });
+    queue.start("EZMQXAmlPublisher-" + mTopic.getName());
+    mPublishQueue = queue;
+    logger.debug("Enabled async publish, capacity: " + capacity);
+  }
+
+  /**
+   * Get number of AMLObjects dropped by overflow policy of asynchronous publish mode.
+   *
+   * @return Dropped count, 0 if asynchronous publish mode is not enabled.
+   */
+  public long getDroppedCount() {
+    PublishQueue<Object> queue = mPublishQueue;
+    return null == queue ? 0 : queue.getDroppedCount();
+  }
+
+  /**
+   * Get number of AMLObjects which could not be published by asynchronous publish mode.
+   *
+   * @return Failed count, 0 if asynchronous publish mode is not enabled.
+   */
+  public long getFailedCount() {
+    PublishQueue<Object> queue = mPublishQueue;
+    return null == queue ? 0 : queue.getFailedCount();
+  }
+
+  /**
+   * Publish AMLObject on the socket for subscribers.<br>
+   * In asynchronous publish mode data is only queued, see
+   * {@link #enableAsyncPublish(int, EZMQXWaitStrategy, EZMQXOverflowPolicy)}.
    *
    * @param payload Data to be published.
    */
@@ -137,13 +287,165 @@ public class EZMQXAmlPublisher extends EZMQXPublisher {
       terminate();
       throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
     }
+    PublishQueue<Object> queue = mPublishQueue;
+    if (null != queue) {
+      if (null == payload) {
+        throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+      }
+      queue.offer(payload);
+      return;
+    }
+    sendData(payload);
+  }
+
+  /**
+   * Publish list of AMLObjects on the socket for subscribers.<br>
+   * All the data is serialized before the first one is sent, so nothing is published if any of
+   * them is invalid. In asynchronous publish mode data is only queued.
+   *
+   * @param payloads Data to be published in order.
+   */
+  public void publish(List<AMLObject> payloads) throws EZMQXException {
+    if (mContext.isTerminated()) {
+      terminate();
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null == payloads) {
+      throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+    }
+    PublishQueue<Object> queue = mPublishQueue;
+    if (null != queue) {
+      for (AMLObject payload : payloads) {
+        if (null == payload) {
+          throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+        }
+      }
+      for (AMLObject payload : payloads) {
+        queue.offer(payload);
+      }
+      return;
+    }
+    if (null == mPublisher) {
+      throw new EZMQXException("Publisher is null", EZMQXErrorCode.UnKnownState);
+    }
+
+    byte[][] byteAMLs = new byte[payloads.size()][];
+    int index = 0;
+    for (AMLObject payload : payloads) {
+      byteAMLs[index++] = serialize(payload);
+    }
+    String topic = mTopic.getName();
+    int failed = 0;
+    for (byte[] byteAML : byteAMLs) {
+      if (EZMQErrorCode.EZMQ_OK != mPublisher.publish(topic, new EZMQByteData(byteAML))) {
+        failed++;
+      }
+    }
+    logger.debug("Publish batch: " + byteAMLs.length + " failed: " + failed);
+  }
+
+  /**
+   * Publish array of AMLObjects on the socket for subscribers.
+   *
+   * @param payloads Data to be published in order.
+   *
+   * @see #publish(List)
+   */
+  public void publish(AMLObject[] payloads) throws EZMQXException {
+    if (null == payloads) {
+      throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+    }
+    publish(Arrays.asList(payloads));
+  }
 
-    byte[] byteAML;
+  /**
+   * Set how often pre-encoded data given to {@link #publishRaw(byte[])} is validated against
+   * AML model of the topic. Validation decodes the data, so relaying processes can validate
+   * only a sample of it.
+   *
+   * @param interval 0 disables validation, N validates every Nth raw publish.
+   */
+  public void setRawValidationInterval(int interval) throws EZMQXException {
+    if (interval < 0) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    mRawValidationInterval = interval;
+  }
+
+  /**
+   * Publish data which is already encoded with AML model of the topic, without AML
+   * serialization.<br>
+   * <b>Note:</b> In asynchronous publish mode the array should not be modified by the caller
+   * after publish.
+   *
+   * @param payload AML encoded data to be published.
+   *
+   * @see #setRawValidationInterval(int)
+   */
+  public void publishRaw(byte[] payload) throws EZMQXException {
+    if (mContext.isTerminated()) {
+      terminate();
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null == payload || 0 == payload.length) {
+      throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+    }
+    int interval = mRawValidationInterval;
+    if (interval > 0 && 0 == mRawCount.getAndIncrement() % interval) {
+      try {
+        mCodec.decode(payload);
+      } catch (AMLException e) {
+        throw new EZMQXException("Data does not match AML model", EZMQXErrorCode.BrokenPayload);
+      }
+    }
+    PublishQueue<Object> queue = mPublishQueue;
+    if (null != queue) {
+      queue.offer(payload);
+      return;
+    }
+    sendRaw(payload);
+  }
+
+  /**
+   * Publish data which is already encoded with AML model of the topic, without AML
+   * serialization. Position and limit of the buffer are not changed.
+   *
+   * @param buffer Buffer holding AML encoded data.
+   * @param offset Absolute index of the data in the buffer.
+   * @param length Length of the data.
+   *
+   * @see #publishRaw(byte[])
+   */
+  public void publishRaw(ByteBuffer buffer, int offset, int length) throws EZMQXException {
+    if (null == buffer || offset < 0 || length < 1 || offset > buffer.limit() - length) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    byte[] payload;
+    if (buffer.hasArray() && 0 == buffer.arrayOffset() + offset
+        && length == buffer.array().length) {
+      payload = buffer.array();
+    } else {
+      payload = new byte[length];
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset);
+      view.get(payload);
+    }
+    publishRaw(payload);
+  }
+
+  private byte[] serialize(AMLObject payload) throws EZMQXException {
     try {
-      byteAML = mRepresentation.DataToByte(payload);
+      return mCodec.encode(payload);
     } catch (AMLException e) {
       throw new EZMQXException("Invalid data", EZMQXErrorCode.UnKnownState);
     }
+  }
+
+  private void sendData(AMLObject payload) throws EZMQXException {
+    sendRaw(serialize(payload));
+  }
+
+  private void sendRaw(byte[] byteAML) throws EZMQXException {
     if (null == mPublisher) {
       throw new EZMQXException("Publisher is null", EZMQXErrorCode.UnKnownState);
     }
@@ -151,4 +453,19 @@ public class EZMQXAmlPublisher extends EZMQXPublisher {
     EZMQErrorCode result = mPublisher.publish(mTopic.getName(), data);
     logger.debug("Publish result: " + result);
   }
+
+  /**
+   * Terminate EZMQX AML publisher, data queued in asynchronous publish mode is published before
+   * publisher socket is stopped.
+   *
+   */
+  @Override
+  public synchronized void terminate() throws EZMQXException {
+    PublishQueue<Object> queue = mPublishQueue;
+    if (null != queue) {
+      queue.stop();
+    }
+    super.terminate();
+    releaseModel();
+  }
 }
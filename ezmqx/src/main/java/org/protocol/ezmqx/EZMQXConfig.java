@@ -25,10 +25,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.edgexfoundry.ezmq.EZMQAPI;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.AmlModelLoader;
 import org.protocol.ezmqx.internal.Context;
 import org.protocol.ezmqx.internal.RestClientFactory;
 import org.protocol.ezmqx.internal.RestClientFactoryInterface;
 import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.TopicCache;
+import org.protocol.ezmqx.internal.Utils;
 
 /**
  * This class represents EZMQX configure. It provides APIs for
@@ -116,6 +119,32 @@ public class EZMQXConfig {
     logger.debug("Started docker mode");
   }
 
+  /**
+   * Start/Configure EZMQX in docker mode with bootstrap snapshot.<br>
+   * <b>Note:</b><br>
+   * (1) State discovered from Pharos node and anchor [TNS address, node address, port
+   * mappings] is saved to snapshot file.<br>
+   * (2) On restart of the same container EZMQX starts from the snapshot without waiting for
+   * discovery. Snapshot is revalidated in background and replaced if state has changed.
+   * Publishers created meanwhile wait for revalidation before registering their topics.<br>
+   * (3) Snapshot file should be on a volume which is kept over container restarts.
+   *
+   * @param tnsConfPath Path to TNS configuration file.
+   * @param snapshotPath Path to bootstrap snapshot file.
+   */
+  public synchronized void startDockerMode(String tnsConfPath, String snapshotPath)
+      throws EZMQXException {
+    if (mInitialized.get()) {
+      throw new EZMQXException("Already started", EZMQXErrorCode.Initialized);
+    }
+    if (null == snapshotPath || snapshotPath.isEmpty()) {
+      throw new EZMQXException("Invalid snapshot path", EZMQXErrorCode.InvalidParam);
+    }
+    mContext.initializeDockerMode(tnsConfPath, snapshotPath);
+    mInitialized.set(true);
+    logger.debug("Started docker mode");
+  }
+
   /**
    * Start/Configure EZMQX in stand-alone mode.
    *
@@ -152,6 +181,150 @@ public class EZMQXConfig {
     return mContext.addAmlRep(amlFilePath);
   }
 
+  /**
+   * Set connection pool size of the REST client used for TNS and Pharos requests.<br>
+   * <b>Note:</b> <br>
+   * (1) Connections are kept alive and shared by all publishers/subscribers of this process.<br>
+   * (2) Default pool size is 50 connections with maximum 20 connections per host.
+   *
+   * @param poolSize Maximum number of pooled connections.
+   * @param poolSizePerHost Maximum number of pooled connections to a single host.
+   */
+  public void setRestConnectionPool(int poolSize, int poolSizePerHost) throws EZMQXException {
+    if (poolSize < 1 || poolSizePerHost < 1 || poolSizePerHost > poolSize) {
+      throw new EZMQXException("Invalid pool size", EZMQXErrorCode.InvalidParam);
+    }
+    RestFactory.getInstance().setConnectionPool(poolSize, poolSizePerHost);
+  }
+
+  /**
+   * Configure client side cache of TNS topic query results used by
+   * {@link EZMQXTopicDiscovery} and subscribers created with topic name.<br>
+   * <b>Note:</b> <br>
+   * (1) Cache entries containing a topic are dropped when a publisher of this process registers
+   * or unregisters that topic.<br>
+   * (2) Cache is disabled by default, every query is sent to TNS.<br>
+   * (3) Topics registered or unregistered by other processes are not seen until cached results
+   * expire. A negative TTL delays discovery of a topic registered after a query without
+   * matched topic, e.g. by a subscriber retrying until its publisher has registered.<br>
+   * (4) Zero capacity or TTL disables the cache.
+   *
+   * @param capacity Maximum number of cached queries, least recently used query is evicted.
+   * @param ttl Time in milliseconds for which a matched query result is reused.
+   * @param negativeTtl Time in milliseconds for which a query without matched topic is reused.
+   */
+  public void setTopicCache(int capacity, long ttl, long negativeTtl) throws EZMQXException {
+    if (capacity < 0 || ttl < 0 || negativeTtl < 0) {
+      throw new EZMQXException("Invalid cache configuration", EZMQXErrorCode.InvalidParam);
+    }
+    TopicCache.getInstance().configure(capacity, ttl, negativeTtl);
+  }
+
+  /**
+   * Set number of AML model files parsed in parallel by {@link #addAmlModel(List)}.<br>
+   * <b>Note:</b> <br>
+   * (1) Default is number of available processors, 1 parses files one by one.<br>
+   * (2) A model file is parsed once per process, adding a file with the same content again
+   * reuses the parsed model.
+   *
+   * @param parallelism Number of files parsed in parallel.
+   */
+  public void setAmlLoadParallelism(int parallelism) throws EZMQXException {
+    if (parallelism < 1) {
+      throw new EZMQXException("Invalid parallelism", EZMQXErrorCode.InvalidParam);
+    }
+    AmlModelLoader.getInstance().configure(parallelism);
+  }
+
+  /**
+   * Add directory of AML model files which are loaded on first use.<br>
+   * <b>Note:</b> <br>
+   * (1) When a publisher or subscriber uses a model id which is not added, files [*.aml] of the
+   * directory are loaded to find the model.<br>
+   * (2) Directories are kept across reset.
+   *
+   * @param directory Path to directory of AML model files.
+   */
+  public void addAmlModelDirectory(String directory) throws EZMQXException {
+    if (null == directory || directory.isEmpty()) {
+      throw new EZMQXException("Invalid directory", EZMQXErrorCode.InvalidParam);
+    }
+    mContext.getAmlModelRegistry().addDirectory(directory);
+  }
+
+  /**
+   * Set provider of AML model files which are loaded on first use.<br>
+   * <b>Note:</b> <br>
+   * (1) Provider is asked before model directories are searched.<br>
+   * (2) Provider is kept across reset, null removes it.
+   *
+   * @param provider {@link EZMQXAmlModelProvider}
+   */
+  public void setAmlModelProvider(EZMQXAmlModelProvider provider) {
+    mContext.getAmlModelRegistry().setProvider(provider);
+  }
+
+  /**
+   * Set budget of loaded AML models.<br>
+   * <b>Note:</b> <br>
+   * (1) Budget is measured as size of the loaded model files.<br>
+   * (2) When budget is exceeded least recently used models which are not used by any publisher
+   * or subscriber are unloaded. They are loaded again from the same file on next use.<br>
+   * (3) Default budget is unlimited.
+   *
+   * @param bytes Budget in bytes.
+   */
+  public void setAmlModelBudget(long bytes) throws EZMQXException {
+    if (bytes < 0) {
+      throw new EZMQXException("Invalid budget", EZMQXErrorCode.InvalidParam);
+    }
+    mContext.getAmlModelRegistry().setBudget(bytes);
+  }
+
+  /**
+   * Set codec specialized for the given AML model, used instead of generic serialization of
+   * AML representation by publishers and subscribers of the model.<br>
+   * <b>Note:</b> <br>
+   * (1) EZMQX does not ship specialized codecs. Without this call data is encoded and decoded
+   * by AML representation of the model, as before.<br>
+   * (2) Every call of the codec is verified against AML representation until 16 calls of the
+   * same data shape [data names, keys, value types and list sizes] matched. Encoded data is
+   * compared byte by byte, decoded data field by field. Later calls of a matched shape are not
+   * verified.<br>
+   * (3) On mismatch data of AML representation is used, the codec is not used anymore and an
+   * error is logged.<br>
+   * (4) Codec is kept across reset, null removes it.
+   *
+   * @param amlModelId AML model id.
+   * @param codec {@link EZMQXAmlCodec}
+   */
+  public void setAmlCodec(String amlModelId, EZMQXAmlCodec codec) throws EZMQXException {
+    if (null == amlModelId || amlModelId.isEmpty()) {
+      throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.InvalidParam);
+    }
+    mContext.getAmlModelRegistry().setCodec(amlModelId, codec);
+  }
+
+  /**
+   * Set range of local ports assigned to publishers.<br>
+   * <b>Note:</b> <br>
+   * (1) Has to be called before EZMQX is started, range is kept across reset.<br>
+   * (2) Default range is 100 ports starting from 4000.<br>
+   * (3) In docker mode only ports of the range which are mapped to a host port are assigned.
+   *
+   * @param start First port of the range.
+   * @param size Number of ports in the range.
+   */
+  public synchronized void setLocalPortRange(int start, int size) throws EZMQXException {
+    if (mInitialized.get()) {
+      throw new EZMQXException("Already started", EZMQXErrorCode.Initialized);
+    }
+    if (start < 1 || size < 1 || size > Utils.LOCAL_PORT_END - start + 1) {
+      throw new EZMQXException("Invalid port range", EZMQXErrorCode.InvalidParam);
+    }
+    mContext.setPortRange(start, size);
+  }
+
   /**
    * Reset/Terminate EZMQX stack.
    */
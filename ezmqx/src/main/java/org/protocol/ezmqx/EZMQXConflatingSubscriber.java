@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.edgexfoundry.ezmq.EZMQMessage;
+import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXAmlSubscriber.EZMQXAmlSubCallback;
+import org.protocol.ezmqx.internal.AmlCodec;
+
+/**
+ * This class represents EZMQX conflating subscriber. It keeps only the latest received data of
+ * each topic without decoding it. Latest data is decoded and delivered on consumer's pace,
+ * either by {@link #poll()} or periodically to the callback. Data received in between is
+ * skipped.
+ */
+public class EZMQXConflatingSubscriber extends EZMQXSubscriber {
+  private EZMQXAmlSubCallback mSubCallback;
+  private long mInterval;
+  private ConcurrentHashMap<String, byte[]> mLatest;
+  private AtomicLong mConflated;
+  private ScheduledExecutorService mTimer;
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(EZMQXConflatingSubscriber.class);
+
+  private EZMQXSubCallback mInternalCallback = new EZMQXSubCallback() {
+    public void onMessage(String topic, EZMQMessage ezmqMessage) {
+      if (null == topic || !mCodecs.containsKey(topic)) {
+        onError(topic, EZMQXErrorCode.UnknownTopic);
+        return;
+      }
+      EZMQByteData byteData = (EZMQByteData) ezmqMessage;
+      if (null != mLatest.put(topic, byteData.getByteData())) {
+        mConflated.incrementAndGet();
+      }
+    }
+
+    public void onError(String topic, EZMQXErrorCode errorCode) {
+      if (null != mSubCallback) {
+        mSubCallback.onError(topic, errorCode);
+      } else {
+        logger.debug("Subscriber error, topic: " + topic + " error: " + errorCode);
+      }
+    }
+  };
+
+  protected EZMQXConflatingSubscriber(long interval, EZMQXAmlSubCallback subCallback)
+      throws EZMQXException {
+    super();
+    if (interval < 0 || (interval > 0 && null == subCallback)) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    mInterval = interval;
+    mSubCallback = subCallback;
+    mLatest = new ConcurrentHashMap<String, byte[]>();
+    mConflated = new AtomicLong(0);
+    setSubCallback(mInternalCallback);
+  }
+
+  /**
+   * Get conflating subscriber instance.<br>
+   * <b>Note:</b> <br>
+   * (1) It will internally query to TNS server with given topic and Hierarchical option. <br>
+   * (2) With interval 0 data is only delivered by {@link #poll()}.
+   *
+   * @param topic Topic for which subscriber will subscribe.
+   * @param isHierarchical Query TNS with hierarchical option.
+   * @param interval Interval in milliseconds to deliver latest data to the callback.
+   * @param subCallback {@link EZMQXAmlSubCallback}, it can be null if interval is 0.
+   *
+   * @return EZMQ conflating subscriber instance.
+   */
+  public static EZMQXConflatingSubscriber getSubscriber(String topic, boolean isHierarchical,
+      long interval, EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    EZMQXConflatingSubscriber subscriber = new EZMQXConflatingSubscriber(interval, subCallback);
+    subscriber.initialize(topic, isHierarchical);
+    subscriber.mSecured = false;
+    subscriber.startTimer();
+    return subscriber;
+  }
+
+  /**
+   * Get conflating subscriber instance.
+   *
+   * @param topics List of topics for which subscriber will subscribe.[
+   *        {@link EZMQXTopic} ]
+   * @param interval Interval in milliseconds to deliver latest data to the callback.
+   * @param subCallback {@link EZMQXAmlSubCallback}, it can be null if interval is 0.
+   *
+   * @return EZMQ conflating subscriber instance.
+   */
+  public static EZMQXConflatingSubscriber getSubscriber(List<EZMQXTopic> topics, long interval,
+      EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    for (EZMQXTopic topic : topics) {
+      if (topic.isSecured()) {
+        throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXConflatingSubscriber subscriber = new EZMQXConflatingSubscriber(interval, subCallback);
+    subscriber.initialize(topics);
+    subscriber.mSecured = false;
+    subscriber.startTimer();
+    return subscriber;
+  }
+
+  /**
+   * Get secured conflating subscriber instance.<br>
+   * <b>Note:</b><br>
+   * (1) Key should be 40-character string encoded in the Z85 encoding format.
+   *
+   * @param topicKeyMap Map of Topic and server's public keys.
+   * @param clientPublicKey Public key for client(subscriber) that shared with given topic's owner.
+   * @param clientSecretKey Secret key for client(subscriber) that pair of given clientPublickey.
+   * @param interval Interval in milliseconds to deliver latest data to the callback.
+   * @param subCallback {@link EZMQXAmlSubCallback}, it can be null if interval is 0.
+   *
+   * @return EZMQ secured conflating subscriber instance.
+   */
+  public static EZMQXConflatingSubscriber getSecuredSubscriber(
+      Map<EZMQXTopic, String> topicKeyMap, String clientPublicKey, String clientSecretKey,
+      long interval, EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    for (EZMQXTopic topic : topicKeyMap.keySet()) {
+      if (!topic.isSecured()) {
+        throw new EZMQXException("topic is unsecured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXConflatingSubscriber subscriber = new EZMQXConflatingSubscriber(interval, subCallback);
+    subscriber.initialize(topicKeyMap, clientPublicKey, clientSecretKey);
+    subscriber.mSecured = true;
+    subscriber.startTimer();
+    return subscriber;
+  }
+
+  private void startTimer() {
+    if (0 == mInterval) {
+      return;
+    }
+    mTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "EZMQXConflatingSubscriber-timer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    mTimer.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        deliver();
+      }
+    }, mInterval, mInterval, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  protected void unSubscribeTopic(EZMQXTopic topic) throws EZMQXException {
+    super.unSubscribeTopic(topic);
+    // pending latest data of the topic is not delivered after unsubscribe
+    mLatest.remove(topic.getName());
+  }
+
+  private void deliver() {
+    for (String topic : mLatest.keySet()) {
+      byte[] data = mLatest.remove(topic);
+      if (null == data) {
+        continue;
+      }
+      try {
+        mSubCallback.onMessage(topic, decode(topic, data));
+      } catch (EZMQXException e) {
+        mSubCallback.onError(topic, e.getCode());
+      } catch (RuntimeException e) {
+        logger.error("Callback failed, topic: " + topic + " " + e.getMessage());
+      }
+    }
+  }
+
+  private AMLObject decode(String topic, byte[] data) throws EZMQXException {
+    AmlCodec codec = mCodecs.get(topic);
+    if (null == codec) {
+      throw new EZMQXException("Unknown topic", EZMQXErrorCode.UnKnownState);
+    }
+    try {
+      return codec.decode(data);
+    } catch (AMLException e) {
+      throw new EZMQXException("Could not decode data", EZMQXErrorCode.BrokenPayload);
+    }
+  }
+
+  /**
+   * Get latest data of every topic received since previous poll. Data which could not be
+   * decoded is skipped.
+   *
+   * @return Map of topic and latest data [AMLObject].
+   */
+  public Map<String, AMLObject> poll() throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    Map<String, AMLObject> result = new HashMap<String, AMLObject>();
+    for (String topic : new ArrayList<String>(mLatest.keySet())) {
+      byte[] data = mLatest.remove(topic);
+      if (null == data) {
+        continue;
+      }
+      try {
+        result.put(topic, decode(topic, data));
+      } catch (EZMQXException e) {
+        logger.debug("Skipped data, topic: " + topic + " " + e.getMsg());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get latest data of the topic received since previous poll.
+   *
+   * @param topic Topic name.
+   *
+   * @return Latest data [AMLObject] or null if nothing is received.
+   */
+  public AMLObject poll(String topic) throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    byte[] data = null == topic ? null : mLatest.remove(topic);
+    return null == data ? null : decode(topic, data);
+  }
+
+  /**
+   * Get number of received data skipped because newer data of the same topic arrived before it
+   * was delivered.
+   *
+   * @return Conflated count.
+   */
+  public long getConflatedCount() {
+    return mConflated.get();
+  }
+
+  /**
+   * Terminate EZMQX conflating subscriber.
+   *
+   */
+  @Override
+  public synchronized void terminate() throws EZMQXException {
+    if (null != mTimer) {
+      mTimer.shutdownNow();
+    }
+    super.terminate();
+  }
+}
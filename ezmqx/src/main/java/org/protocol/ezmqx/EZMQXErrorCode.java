@@ -40,5 +40,6 @@ public enum EZMQXErrorCode {
   TnsNotAvailable,
   UnknownAmlModel,
   InvalidAmlModel,
-  SessionUnavailable
+  SessionUnavailable,
+  QueueFull
 }
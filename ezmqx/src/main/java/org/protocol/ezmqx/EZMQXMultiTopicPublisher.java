@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.edgexfoundry.ezmq.EZMQErrorCode;
+import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.AmlCodec;
+import org.protocol.ezmqx.internal.Utils;
+
+/**
+ * This class represents EZMQX AML publisher of multiple topics. All the topics share a single
+ * publisher socket and end point, each topic is registered on TNS with its own AML model.
+ * Suitable for devices exposing many topics, as it needs a single port, docker port mapping and
+ * socket for all of them.
+ */
+public class EZMQXMultiTopicPublisher extends EZMQXPublisher {
+  private Map<String, TopicEntry> mTopics;
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(EZMQXMultiTopicPublisher.class);
+
+  private static class TopicEntry {
+    private final EZMQXTopic mTopic;
+    private final AmlCodec mCodec;
+
+    TopicEntry(EZMQXTopic topic, AmlCodec codec) {
+      mTopic = topic;
+      mCodec = codec;
+    }
+  }
+
+  private EZMQXMultiTopicPublisher() {
+    super();
+    mTopics = new ConcurrentHashMap<String, TopicEntry>();
+  }
+
+  // finalize method to be called by Java Garbage collector
+  // before destroying
+  // this object.
+  @Override
+  protected void finalize() {
+    try {
+      super.finalize();
+    } catch (Throwable e) {
+    }
+  }
+
+  /**
+   * Get EZMQX multi topic publisher instance. Publisher socket is started without any topic,
+   * topics are added by {@link #addTopic(String, EZMQXAmlModelInfo, String)}.
+   *
+   * @param optionalPort Port to be used for publishing data. It will be
+   *        used only when EZMQX configured in stand-alone mode.
+   *
+   * @return Multi topic publisher {@link EZMQXMultiTopicPublisher}
+   */
+  public static EZMQXMultiTopicPublisher getPublisher(int optionalPort) throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = new EZMQXMultiTopicPublisher();
+    publisher.initialize(optionalPort, Utils.EMPTY_STRING);
+    return publisher;
+  }
+
+  /**
+   * Get Secured EZMQX multi topic publisher instance.<br>
+   * <b>Note:</b> <br>
+   * (1) serverPrivateKey should be 40-character string encoded in the Z85 encoding format <br>
+   *
+   * @param serverPrivateKey Server private/Secret key.
+   * @param optionalPort Port to be used for publishing data. It will be
+   *        used only when EZMQX configured in stand-alone mode.
+   *
+   * @return Secured multi topic publisher {@link EZMQXMultiTopicPublisher}
+   */
+  public static EZMQXMultiTopicPublisher getSecuredPublisher(String serverPrivateKey,
+      int optionalPort) throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = new EZMQXMultiTopicPublisher();
+    publisher.initialize(optionalPort, serverPrivateKey);
+    return publisher;
+  }
+
+  // Socket is shared by the other topics, it is stopped only on terminate.
+  @Override
+  protected void onRegisterFailure() {}
+
+  /**
+   * Add topic to the publisher and register it on TNS with end point of this publisher.
+   *
+   * @param topic Topic to be published.
+   * @param modelInfo Enum value for AML model info
+   *        {@link EZMQXAmlModelInfo}.
+   * @param modelId AML model ID or AML file path.
+   *
+   * @return Registered topic {@link EZMQXTopic}
+   */
+  public synchronized EZMQXTopic addTopic(String topic, EZMQXAmlModelInfo modelInfo,
+      String modelId) throws EZMQXException {
+    validateNewTopic(topic);
+    String amlModelId = getModelId(modelInfo, modelId);
+    AmlCodec codec = mContext.acquireAmlModel(amlModelId);
+    EZMQXTopic ezmqTopic;
+    try {
+      ezmqTopic = createTopic(topic, codec);
+      registerTopic(ezmqTopic);
+    } catch (EZMQXException e) {
+      mContext.releaseAmlModel(amlModelId);
+      throw e;
+    }
+    mTopics.put(topic, new TopicEntry(ezmqTopic, codec));
+    logger.debug("Added topic: " + topic + " topic count: " + mTopics.size());
+    return ezmqTopic;
+  }
+
+  /**
+   * Add topics of the same AML model to the publisher and register them on TNS in bulk, with
+   * much fewer requests than adding topics one by one. Either all topics are added or none.
+   *
+   * @param topics Topics to be published.
+   * @param modelInfo Enum value for AML model info
+   *        {@link EZMQXAmlModelInfo}.
+   * @param modelId AML model ID or AML file path.
+   *
+   * @return List of registered topics {@link EZMQXTopic}
+   */
+  public synchronized List<EZMQXTopic> addTopics(List<String> topics,
+      EZMQXAmlModelInfo modelInfo, String modelId) throws EZMQXException {
+    if (null == topics || topics.isEmpty()) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    Set<String> names = new HashSet<String>();
+    for (String topic : topics) {
+      validateNewTopic(topic);
+      if (!names.add(topic)) {
+        throw new EZMQXException("Topic already added", EZMQXErrorCode.DuplicatedTopic);
+      }
+    }
+    String amlModelId = getModelId(modelInfo, modelId);
+    AmlCodec codec = null;
+    int acquired = 0;
+    List<EZMQXTopic> ezmqTopics = new ArrayList<EZMQXTopic>(topics.size());
+    try {
+      // every topic holds a reference to the model
+      for (int i = 0; i < topics.size(); i++) {
+        codec = mContext.acquireAmlModel(amlModelId);
+        acquired++;
+      }
+      for (String topic : topics) {
+        ezmqTopics.add(createTopic(topic, codec));
+      }
+      List<EZMQXTopic> registered = new ArrayList<EZMQXTopic>(topics.size());
+      try {
+        registerTopics(ezmqTopics, registered);
+      } catch (EZMQXException e) {
+        // only topics registered by this call, topics which failed e.g. as already registered
+        // may belong to another publisher
+        unRegisterTopics(registered);
+        throw e;
+      }
+    } catch (EZMQXException e) {
+      for (int i = 0; i < acquired; i++) {
+        mContext.releaseAmlModel(amlModelId);
+      }
+      throw e;
+    }
+    for (EZMQXTopic ezmqTopic : ezmqTopics) {
+      mTopics.put(ezmqTopic.getName(), new TopicEntry(ezmqTopic, codec));
+    }
+    logger.debug("Added topics: " + topics.size() + " topic count: " + mTopics.size());
+    return ezmqTopics;
+  }
+
+  private void validateNewTopic(String topic) throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (!Utils.validateTopic(topic)) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+    if (mTopics.containsKey(topic)) {
+      throw new EZMQXException("Topic already added", EZMQXErrorCode.DuplicatedTopic);
+    }
+  }
+
+  // AML file is added to get its model id.
+  private String getModelId(EZMQXAmlModelInfo modelInfo, String modelId) throws EZMQXException {
+    if (EZMQXAmlModelInfo.AML_MODEL_ID == modelInfo) {
+      return modelId;
+    } else if (EZMQXAmlModelInfo.AML_FILE_PATH == modelInfo) {
+      List<String> amlFilePath = new ArrayList<String>();
+      amlFilePath.add(modelId);
+      return mContext.addAmlRep(amlFilePath).get(0);
+    }
+    throw new EZMQXException("Invalid aml model info", EZMQXErrorCode.UnKnownState);
+  }
+
+  private EZMQXTopic createTopic(String topic, AmlCodec codec) throws EZMQXException {
+    try {
+      return new EZMQXTopic(topic, codec.getRepresentation().getRepresentationId(), mSecured,
+          mContext.getHostEp(mLocalPort));
+    } catch (AMLException e) {
+      throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.UnKnownState);
+    }
+  }
+
+  /**
+   * Remove topic from the publisher and unregister it on TNS.
+   *
+   * @param topic Topic added by {@link #addTopic(String, EZMQXAmlModelInfo, String)}.
+   */
+  public synchronized void removeTopic(String topic) throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    TopicEntry entry = null == topic ? null : mTopics.remove(topic);
+    if (null == entry) {
+      throw new EZMQXException("Topic not added", EZMQXErrorCode.UnknownTopic);
+    }
+    mContext.releaseAmlModel(entry.mTopic.getDatamodel());
+    unRegisterTopic(entry.mTopic);
+  }
+
+  /**
+   * Remove topics from the publisher and unregister them on TNS in bulk.
+   *
+   * @param topics Topics added by {@link #addTopic(String, EZMQXAmlModelInfo, String)} or
+   *        {@link #addTopics(List, EZMQXAmlModelInfo, String)}.
+   */
+  public synchronized void removeTopics(List<String> topics) throws EZMQXException {
+    if (isTerminated()) {
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null == topics) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    for (String topic : topics) {
+      if (null == topic || !mTopics.containsKey(topic)) {
+        throw new EZMQXException("Topic not added", EZMQXErrorCode.UnknownTopic);
+      }
+    }
+    List<EZMQXTopic> removed = new ArrayList<EZMQXTopic>(topics.size());
+    for (String topic : topics) {
+      TopicEntry entry = mTopics.remove(topic);
+      if (null != entry) {
+        removed.add(entry.mTopic);
+        mContext.releaseAmlModel(entry.mTopic.getDatamodel());
+      }
+    }
+    unRegisterTopics(removed);
+  }
+
+  /**
+   * Get topics of this publisher.
+   *
+   * @return List of {@link EZMQXTopic}
+   */
+  public List<EZMQXTopic> getTopics() throws EZMQXException {
+    if (mContext.isTerminated()) {
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>(mTopics.size());
+    for (TopicEntry entry : mTopics.values()) {
+      topics.add(entry.mTopic);
+    }
+    return topics;
+  }
+
+  /**
+   * Publish AMLObject on the given topic, data is serialized with AML model of the topic.
+   *
+   * @param topic Topic added by {@link #addTopic(String, EZMQXAmlModelInfo, String)}.
+   * @param payload Data to be published.
+   */
+  public void publish(String topic, AMLObject payload) throws EZMQXException {
+    TopicEntry entry = getEntry(topic);
+    byte[] byteAML;
+    try {
+      byteAML = entry.mCodec.encode(payload);
+    } catch (AMLException e) {
+      throw new EZMQXException("Invalid data", EZMQXErrorCode.UnKnownState);
+    }
+    send(topic, byteAML);
+  }
+
+  /**
+   * Publish data which is already encoded with AML model of the given topic, without AML
+   * serialization.
+   *
+   * @param topic Topic added by {@link #addTopic(String, EZMQXAmlModelInfo, String)}.
+   * @param payload AML encoded data to be published.
+   */
+  public void publishRaw(String topic, byte[] payload) throws EZMQXException {
+    getEntry(topic);
+    if (null == payload || 0 == payload.length) {
+      throw new EZMQXException("Invalid data", EZMQXErrorCode.InvalidParam);
+    }
+    send(topic, payload);
+  }
+
+  private TopicEntry getEntry(String topic) throws EZMQXException {
+    if (mContext.isTerminated()) {
+      terminate();
+      throw new EZMQXException("Publisher terminated", EZMQXErrorCode.Terminated);
+    }
+    TopicEntry entry = null == topic ? null : mTopics.get(topic);
+    if (null == entry) {
+      throw new EZMQXException("Topic not added", EZMQXErrorCode.UnknownTopic);
+    }
+    return entry;
+  }
+
+  private void send(String topic, byte[] byteAML) throws EZMQXException {
+    if (null == mPublisher) {
+      throw new EZMQXException("Publisher is null", EZMQXErrorCode.UnKnownState);
+    }
+    EZMQErrorCode result = mPublisher.publish(topic, new EZMQByteData(byteAML));
+    logger.debug("Publish result: " + result);
+  }
+
+  /**
+   * Terminate EZMQX multi topic publisher, every topic is unregistered on TNS in bulk.
+   *
+   */
+  @Override
+  public synchronized void terminate() throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Publisher already terminated", EZMQXErrorCode.Terminated);
+    }
+    if (!mContext.isStandAlone()) {
+      mContext.releaseDynamicPort(mLocalPort);
+      logger.debug("Released local port");
+    }
+    if (mContext.isTnsEnabled()) {
+      List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>(mTopics.size());
+      for (TopicEntry entry : mTopics.values()) {
+        topics.add(entry.mTopic);
+      }
+      unRegisterTopics(topics);
+      logger.debug("Unregistered topics on TNS");
+    }
+    for (TopicEntry entry : mTopics.values()) {
+      mContext.releaseAmlModel(entry.mTopic.getDatamodel());
+    }
+    mTopics.clear();
+    if (mPublisher != null) {
+      mPublisher.stop();
+      logger.debug("Stopped EZMQ publisher");
+    }
+    mTerminated.set(true);
+  }
+}
@@ -18,6 +18,10 @@
 package org.protocol.ezmqx;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.edgexfoundry.ezmq.EZMQCallback;
 import org.edgexfoundry.ezmq.EZMQErrorCode;
@@ -25,13 +29,15 @@ import org.edgexfoundry.ezmq.EZMQPublisher;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.protocol.ezmqx.internal.Context;
+import org.protocol.ezmqx.internal.JsonUtils;
 import org.protocol.ezmqx.internal.RestResponse;
 import org.protocol.ezmqx.internal.RestFactory;
 import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.internal.TopicCache;
 import org.protocol.ezmqx.internal.TopicHandler;
 import org.protocol.ezmqx.internal.Utils;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
@@ -113,27 +119,40 @@ public class EZMQXPublisher {
     mTerminated = new AtomicBoolean(false);
   }
 
+  // Called when topic could not be registered on TNS, frees the EZMQ publisher instance and port
+  // of single topic publishers.
+  protected void onRegisterFailure() {
+    mPublisher.stop();
+    if (!mContext.isStandAlone()) {
+      try {
+        mContext.releaseDynamicPort(mLocalPort);
+      } catch (EZMQXException e) {
+        logger.error("Could not release port: " + mLocalPort);
+      }
+    }
+  }
+
   private void parseTopicResponse(RestResponse response) throws EZMQXException {
     int statusCode = response.getStatusCode();
     logger.debug("[TNS register topic] Status code: " + statusCode);
     if (statusCode != RestUtils.HTTP_CREATED) {
-      mPublisher.stop(); // free the EZMQ publisher instance
+      onRegisterFailure();
       throw new EZMQXException("Could not register topic", EZMQXErrorCode.RestError);
     }
     String jsonString = response.getResponse();
     logger.debug("[TNS register topic] Response: " + jsonString);
-    ObjectMapper mapper = new ObjectMapper();
     JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      root = JsonUtils.getMapper().readTree(jsonString);
     } catch (IOException e) {
+      onRegisterFailure();
       throw new EZMQXException("Could not parse register response", EZMQXErrorCode.RestError);
     }
     if (root.has(RestUtils.PAYLOAD_KEEPALIVE_INTERVAL)) {
       int interval = root.path(RestUtils.PAYLOAD_KEEPALIVE_INTERVAL).asInt();
       logger.debug("[[Register topic] Keep Alive interval: " + interval);
       if (interval < 1) {
-        mPublisher.stop(); // free the EZMQ publisher instance
+        onRegisterFailure();
         throw new EZMQXException("Invalid keepAlive interval", EZMQXErrorCode.RestError);
       }
       logger.debug(
@@ -147,6 +166,55 @@ public class EZMQXPublisher {
     }
   }
 
+  private String getTopicURL() {
+    return mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+  }
+
+  private String createRegisterPayload(EZMQXTopic topic) {
+    JsonNode rootNode = JsonUtils.getMapper().createObjectNode();
+    putTopic(((ObjectNode) rootNode).putObject(RestUtils.PAYLOAD_TOPIC), topic);
+    return rootNode.toString();
+  }
+
+  // Bulk register payload: {"topics":[{topic}, ...]}
+  private String createRegisterPayload(List<EZMQXTopic> topics) {
+    ObjectNode rootNode = JsonUtils.getMapper().createObjectNode();
+    ArrayNode nodeTopics = rootNode.putArray(RestUtils.PAYLOAD_TOPICS);
+    for (EZMQXTopic topic : topics) {
+      putTopic(nodeTopics.addObject(), topic);
+    }
+    return rootNode.toString();
+  }
+
+  private void putTopic(ObjectNode nodeTopic, EZMQXTopic topic) {
+    nodeTopic.put(RestUtils.PAYLOAD_NAME, topic.getName());
+    nodeTopic.put(RestUtils.PAYLOAD_ENDPOINT, topic.getEndPoint().toString());
+    nodeTopic.put(RestUtils.PAYLOAD_DATAMODEL, topic.getDatamodel());
+    nodeTopic.put(RestUtils.PAYLOAD_SECURED, topic.isSecured());
+  }
+
+  // TNS servers without bulk register/unregister reject the request itself, proxies in front of
+  // TNS reject bulk requests which exceed their size limits.
+  private boolean isBulkUnsupported(RestResponse response) {
+    int statusCode = response.getStatusCode();
+    return RestUtils.HTTP_BAD_REQUEST == statusCode || RestUtils.HTTP_BAD_METHOD == statusCode
+        || RestUtils.HTTP_NOT_FOUND == statusCode
+        || RestUtils.HTTP_PAYLOAD_TOO_LARGE == statusCode
+        || RestUtils.HTTP_URI_TOO_LONG == statusCode
+        || RestUtils.HTTP_HEADER_TOO_LARGE == statusCode;
+  }
+
+  private String joinNames(List<EZMQXTopic> topics) {
+    StringBuilder names = new StringBuilder();
+    for (EZMQXTopic topic : topics) {
+      if (names.length() > 0) {
+        names.append(RestUtils.TOPIC_SEPARATOR);
+      }
+      names.append(topic.getName());
+    }
+    return names.toString();
+  }
+
   protected void registerTopic(EZMQXTopic topic) throws EZMQXException {
     mTopic = topic;
     if (!(mContext.isTnsEnabled())) {
@@ -154,18 +222,10 @@ public class EZMQXPublisher {
     }
 
     // Send post request to TNS server
-    String topicURL = mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+    String topicURL = getTopicURL();
     logger.debug("[TNS register topic] Rest URL: " + topicURL);
     // Form post payload
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode rootNode = mapper.createObjectNode();
-    JsonNode nodeTopic = mapper.createObjectNode();
-    ((ObjectNode) nodeTopic).put(RestUtils.PAYLOAD_NAME, topic.getName());
-    ((ObjectNode) nodeTopic).put(RestUtils.PAYLOAD_ENDPOINT, topic.getEndPoint().toString());
-    ((ObjectNode) nodeTopic).put(RestUtils.PAYLOAD_DATAMODEL, topic.getDatamodel());
-    ((ObjectNode) nodeTopic).put(RestUtils.PAYLOAD_SECURED, topic.isSecured());
-    ((ObjectNode) rootNode).set(RestUtils.PAYLOAD_TOPIC, nodeTopic);
-    String payload = rootNode.toString();
+    String payload = createRegisterPayload(topic);
     logger.debug("[TNS register topic] payload : " + payload);
 
     RestFactory restClient = RestFactory.getInstance();
@@ -173,18 +233,46 @@ public class EZMQXPublisher {
     try {
       response = restClient.post(topicURL, payload);
     } catch (Exception e) {
+      onRegisterFailure();
       throw new EZMQXException("Could not send register request to TNS", EZMQXErrorCode.RestError);
     }
     parseTopicResponse(response);
+    TopicCache.getInstance().invalidate(topic.getName());
     // send request to add topic to list
     TopicHandler.getInstance().send(RestUtils.REGISTER, topic.getName());
   }
 
+  protected CompletableFuture<Void> registerTopicAsync(final EZMQXTopic topic) {
+    mTopic = topic;
+    if (!(mContext.isTnsEnabled())) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    String topicURL = getTopicURL();
+    String payload = createRegisterPayload(topic);
+    logger.debug("[TNS register topic] Rest URL: " + topicURL + " payload : " + payload);
+    return RestFactory.getInstance().postAsync(topicURL, payload).handle((response, throwable) -> {
+      if (null != throwable) {
+        onRegisterFailure();
+        throw Utils.toCompletionException(throwable, "Could not send register request to TNS",
+            EZMQXErrorCode.RestError);
+      }
+      try {
+        parseTopicResponse(response);
+        TopicCache.getInstance().invalidate(topic.getName());
+        TopicHandler.getInstance().send(RestUtils.REGISTER, topic.getName());
+      } catch (EZMQXException e) {
+        throw new CompletionException(e);
+      }
+      return null;
+    });
+  }
+
   protected void unRegisterTopic(EZMQXTopic topic) throws EZMQXException {
     if (!(mContext.isTnsEnabled())) {
       return;
     }
-    String topicURL = mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+    String topicURL = getTopicURL();
     String query = RestUtils.QUERY_NAME + topic.getName();
     logger.debug("[TNS unregister topic] Rest URL: " + topicURL);
     logger.debug("[TNS unregister topic] Query: " + query);
@@ -198,11 +286,151 @@ public class EZMQXPublisher {
       logger.debug("Caught exeption : " + e.getMessage());
       return;
     }
+    TopicCache.getInstance().invalidate(topic.getName());
     // send request to topicHandler for removing topic from list
     TopicHandler.getInstance().send(RestUtils.UNREGISTER, topic.getName());
     logger.debug("Sent request to topic handler to remove topic from list: " + topic.getName());
   }
 
+  // Registers topics with one request per TNS_BULK_MAX_TOPICS topics. If TNS does not support
+  // bulk register, topics of the request are registered one by one with all requests in flight
+  // at once. Topics registered by this call are added to registered, also when it fails.
+  protected void registerTopics(List<EZMQXTopic> topics, List<EZMQXTopic> registered)
+      throws EZMQXException {
+    if (!(mContext.isTnsEnabled()) || topics.isEmpty()) {
+      return;
+    }
+    String topicURL = getTopicURL();
+    RestFactory restClient = RestFactory.getInstance();
+    for (int from = 0; from < topics.size(); from += RestUtils.TNS_BULK_MAX_TOPICS) {
+      List<EZMQXTopic> chunk =
+          topics.subList(from, Math.min(topics.size(), from + RestUtils.TNS_BULK_MAX_TOPICS));
+      String payload = createRegisterPayload(chunk);
+      logger.debug("[TNS register topics] Rest URL: " + topicURL + " topics: " + chunk.size());
+      RestResponse response;
+      try {
+        response = restClient.post(topicURL, payload);
+      } catch (Exception e) {
+        throw new EZMQXException("Could not send register request to TNS",
+            EZMQXErrorCode.RestError);
+      }
+      int first = registered.size();
+      try {
+        if (isBulkUnsupported(response)) {
+          logger.debug("[TNS register topics] Bulk register not supported, status code: "
+              + response.getStatusCode());
+          registerEach(topicURL, chunk, registered);
+        } else {
+          parseTopicResponse(response);
+          registered.addAll(chunk);
+        }
+      } catch (EZMQXException e) {
+        // topics registered before the failure are kept alive until the caller unregisters them
+        onTopicsRegistered(registered.subList(first, registered.size()));
+        throw e;
+      }
+      onTopicsRegistered(registered.subList(first, registered.size()));
+    }
+  }
+
+  private void onTopicsRegistered(List<EZMQXTopic> topics) throws EZMQXException {
+    if (topics.isEmpty()) {
+      return;
+    }
+    for (EZMQXTopic topic : topics) {
+      TopicCache.getInstance().invalidate(topic.getName());
+    }
+    TopicHandler.getInstance().send(RestUtils.REGISTER, joinNames(topics));
+  }
+
+  // Every response is checked, so that topics registered before a failed one are known.
+  private void registerEach(String topicURL, List<EZMQXTopic> topics,
+      List<EZMQXTopic> registered) throws EZMQXException {
+    List<CompletableFuture<RestResponse>> responses =
+        new ArrayList<CompletableFuture<RestResponse>>(topics.size());
+    for (EZMQXTopic topic : topics) {
+      responses.add(RestFactory.getInstance().postAsync(topicURL, createRegisterPayload(topic)));
+    }
+    EZMQXException failure = null;
+    for (int i = 0; i < responses.size(); i++) {
+      try {
+        parseTopicResponse(responses.get(i).join());
+        registered.add(topics.get(i));
+      } catch (CompletionException e) {
+        failure = new EZMQXException("Could not send register request to TNS",
+            EZMQXErrorCode.RestError);
+      } catch (EZMQXException e) {
+        failure = e;
+      }
+    }
+    if (null != failure) {
+      throw failure;
+    }
+  }
+
+  // Unregisters topics with one request per TNS_BULK_MAX_TOPICS topics or
+  // TNS_BULK_MAX_QUERY_LENGTH characters of encoded names, falls back to one request per topic
+  // like registerTopics. A failed request does not stop other chunks, and keep alive of every
+  // topic is stopped as the topics are removed locally anyway.
+  protected void unRegisterTopics(List<EZMQXTopic> topics) throws EZMQXException {
+    if (!(mContext.isTnsEnabled()) || topics.isEmpty()) {
+      return;
+    }
+    String topicURL = getTopicURL();
+    int from = 0;
+    while (from < topics.size()) {
+      StringBuilder query = new StringBuilder();
+      int to = from;
+      while (to < topics.size() && to - from < RestUtils.TNS_BULK_MAX_TOPICS) {
+        String name = Utils.encodeQueryValue(topics.get(to).getName());
+        if (to > from) {
+          if (query.length() + 1 + name.length() > RestUtils.TNS_BULK_MAX_QUERY_LENGTH) {
+            break;
+          }
+          query.append(RestUtils.TOPIC_SEPARATOR);
+        }
+        query.append(name);
+        to++;
+      }
+      List<EZMQXTopic> chunk = topics.subList(from, to);
+      logger.debug("[TNS unregister topics] Rest URL: " + topicURL + " topics: " + chunk.size());
+      unRegisterChunk(topicURL, chunk, query.toString());
+      for (EZMQXTopic topic : chunk) {
+        TopicCache.getInstance().invalidate(topic.getName());
+      }
+      TopicHandler.getInstance().send(RestUtils.UNREGISTER, joinNames(chunk));
+      from = to;
+    }
+  }
+
+  private void unRegisterChunk(String topicURL, List<EZMQXTopic> chunk, String names) {
+    RestFactory restClient = RestFactory.getInstance();
+    RestResponse response;
+    try {
+      response = restClient.delete(topicURL, RestUtils.QUERY_NAMES + names);
+      logger.debug("[TNS unregister topics] Response code: " + response.getStatusCode());
+    } catch (Exception e) {
+      logger.debug("Caught exeption : " + e.getMessage());
+      return;
+    }
+    if (!isBulkUnsupported(response)) {
+      return;
+    }
+    List<CompletableFuture<RestResponse>> responses =
+        new ArrayList<CompletableFuture<RestResponse>>(chunk.size());
+    for (EZMQXTopic topic : chunk) {
+      responses.add(restClient.deleteAsync(topicURL, RestUtils.QUERY_NAME + topic.getName()));
+    }
+    for (int i = 0; i < responses.size(); i++) {
+      try {
+        responses.get(i).join();
+      } catch (CompletionException e) {
+        logger.debug("Could not unregister topic: " + chunk.get(i).getName() + " "
+            + e.getMessage());
+      }
+    }
+  }
+
   /**
    * Get EZMQX topic.
    *
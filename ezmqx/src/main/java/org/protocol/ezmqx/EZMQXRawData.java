@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.datamodel.aml.Representation;
+import org.protocol.ezmqx.internal.AmlCodec;
+
+/**
+ * This class represents data received by {@link EZMQXRawSubscriber}. Data is kept as received
+ * and decoded only on request.
+ */
+public class EZMQXRawData {
+  private final AmlCodec mCodec;
+  private final byte[] mData;
+  private AMLObject mDecoded;
+
+  /**
+   * Constructor for raw data.
+   *
+   * @param representation AML representation of the topic.
+   * @param data AML encoded data.
+   */
+  public EZMQXRawData(Representation representation, byte[] data) {
+    this(new AmlCodec(representation), data);
+  }
+
+  EZMQXRawData(AmlCodec codec, byte[] data) {
+    mCodec = codec;
+    mData = data;
+  }
+
+  /**
+   * Get AML representation of the topic.
+   *
+   * @return {@link Representation}
+   */
+  public Representation getRepresentation() {
+    return mCodec.getRepresentation();
+  }
+
+  /**
+   * Get AML encoded data as received. Returned array is not copied.
+   *
+   * @return Encoded data.
+   */
+  public byte[] getData() {
+    return mData;
+  }
+
+  /**
+   * Decode data with AML representation of the topic. Data is decoded on first call and the
+   * same AMLObject is returned afterwards.
+   *
+   * @return Decoded data [AMLObject].
+   */
+  public synchronized AMLObject decode() throws EZMQXException {
+    if (null == mDecoded) {
+      try {
+        mDecoded = mCodec.decode(mData);
+      } catch (AMLException e) {
+        throw new EZMQXException("Could not decode data", EZMQXErrorCode.BrokenPayload);
+      }
+    }
+    return mDecoded;
+  }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.edgexfoundry.ezmq.EZMQMessage;
+import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.protocol.ezmqx.internal.AmlCodec;
+
+/**
+ * This class represents EZMQX raw subscriber. It provides APIs for
+ * creating subscriber to subscribe for given topic. Received data is given to the callback
+ * without AML decoding, see {@link EZMQXRawData#decode()}.
+ */
+public class EZMQXRawSubscriber extends EZMQXSubscriber {
+
+  private EZMQXRawSubCallback mSubCallback;
+
+  private EZMQXSubCallback mInternalCallback = new EZMQXSubCallback() {
+    public void onMessage(String topic, EZMQMessage ezmqMessage) {
+      AmlCodec codec = null == topic ? null : mCodecs.get(topic);
+      if (null == codec) {
+        mSubCallback.onError(topic, EZMQXErrorCode.UnknownTopic);
+        return;
+      } else {
+        EZMQByteData byteData = (EZMQByteData) ezmqMessage;
+        mSubCallback.onMessage(topic, new EZMQXRawData(codec, byteData.getByteData()));
+      }
+    }
+
+    public void onError(String topic, EZMQXErrorCode errorCode) {
+      mSubCallback.onError(topic, errorCode);
+    }
+  };
+
+  /**
+   * Interface to receive data/error callback from EZMQX raw subscriber.
+   */
+  public interface EZMQXRawSubCallback {
+
+    /**
+     * Invoked when data is received for a specific topic.
+     *
+     * @param topic Topic for the received data.
+     * @param data Received undecoded data {@link EZMQXRawData}.
+     */
+    public void onMessage(String topic, EZMQXRawData data);
+
+    /**
+     * Invoked when error occurred for a specific topic.
+     *
+     * @param topic Topic for the error occurred.
+     * @param errorCode {@link EZMQXErrorCode}
+     */
+    public void onError(String topic, EZMQXErrorCode errorCode);
+  }
+
+  protected EZMQXRawSubscriber(EZMQXRawSubCallback subCallback) throws EZMQXException {
+    super();
+    mSubCallback = subCallback;
+    setSubCallback(mInternalCallback);
+  }
+
+  /**
+   * Get raw subscriber instance.<br>
+   * <b>Note:</b> <br>
+   * (1) It will internally query to TNS server with given topic and Hierarchical option.
+   *
+   * @param topic Topic for which subscriber will subscribe.
+   * @param isHierarchical Query TNS with hierarchical option.
+   * @param subCallback {@link EZMQXRawSubCallback}
+   *
+   * @return EZMQ raw subscriber instance.
+   */
+  public static EZMQXRawSubscriber getSubscriber(String topic, boolean isHierarchical,
+      EZMQXRawSubCallback subCallback) throws EZMQXException {
+    EZMQXRawSubscriber subscriber = new EZMQXRawSubscriber(subCallback);
+    subscriber.initialize(topic, isHierarchical);
+    subscriber.mSecured = false;
+    return subscriber;
+  }
+
+  /**
+   * Get raw subscriber instance. 
+   *
+   * @param topic Topic for which subscriber will subscribe. [
+   *        {@link EZMQXTopic} ]
+   * @param subCallback {@link EZMQXRawSubCallback}
+   *
+   * @return EZMQ raw subscriber instance.
+   */
+  public static EZMQXRawSubscriber getSubscriber(EZMQXTopic topic, EZMQXRawSubCallback subCallback)
+      throws EZMQXException {
+    if (topic.isSecured()) {
+      throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+    }
+    EZMQXRawSubscriber subscriber = new EZMQXRawSubscriber(subCallback);
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    topics.add(topic);
+    subscriber.initialize(topics);
+    subscriber.mSecured = false;
+    return subscriber;
+  }
+
+  /**
+   * Get raw subscriber instance. 
+   *
+   * @param topics List of topics for which subscriber will subscribe.[
+   *        {@link EZMQXTopic} ]
+   * @param subCallback {@link EZMQXRawSubCallback}
+   *
+   * @return EZMQ raw subscriber instance.
+   */
+  public static EZMQXRawSubscriber getSubscriber(List<EZMQXTopic> topics,
+      EZMQXRawSubCallback subCallback) throws EZMQXException {
+    for (EZMQXTopic topic : topics) {
+      if (topic.isSecured()) {
+        throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXRawSubscriber subscriber = new EZMQXRawSubscriber(subCallback);
+    subscriber.initialize(topics);
+    subscriber.mSecured = false;
+    return subscriber;
+  }
+
+  /**
+   * Get Secured raw subscriber instance.<br>
+   * <b>Note:</b><br> 
+   * (1) Key should be 40-character string encoded in the Z85 encoding format. 
+   *
+   * @param topic Topic for which subscriber will subscribe. [
+   *        {@link EZMQXTopic} ]
+   * @param serverPublicKey Public key for server(publisher) that related with given topic.
+   * @param clientPublicKey Public key for client(subscriber) that shared with given topic's owner. 
+   * @param clientSecretKey Secret key for client(subscriber) that pair of given clientPublickey.        
+   * @param subCallback {@link EZMQXRawSubCallback}
+   *
+   * @return EZMQ Secured raw subscriber instance.
+   */
+  public static EZMQXRawSubscriber getSecuredSubscriber(EZMQXTopic topic, String serverPublicKey,
+      String clientPublicKey, String clientSecretKey, EZMQXRawSubCallback subCallback)
+      throws EZMQXException {
+    if (!topic.isSecured()) {
+      throw new EZMQXException("topic is unsecured", EZMQXErrorCode.InvalidParam);
+    }
+    EZMQXRawSubscriber subscriber = new EZMQXRawSubscriber(subCallback);
+    subscriber.initialize(topic, serverPublicKey, clientPublicKey, clientSecretKey);
+    subscriber.mSecured = true;
+    return subscriber;
+  }
+
+  /**
+   * Get Secured raw subscriber instance.<br> 
+   * <b>Note:</b><br> 
+   * (1) Key should be 40-character string encoded in the Z85 encoding format.
+   *
+   * @param topicKeyMap Map of Topic and server's public keys.
+   * @param clientPublicKey Public key for client(subscriber) that shared with given topic's owner. 
+   * @param clientSecretKey Secret key for client(subscriber) that pair of given clientPublickey.  
+   * @param subCallback {@link EZMQXRawSubCallback}
+   *
+   * @return EZMQ Secured raw subscriber instance.
+   */
+  public static EZMQXRawSubscriber getSecuredSubscriber(Map<EZMQXTopic, String> topicKeyMap,
+      String clientPublicKey, String clientSecretKey, EZMQXRawSubCallback subCallback)
+      throws EZMQXException {
+    for (EZMQXTopic topic : topicKeyMap.keySet()) {
+      if (!topic.isSecured()) {
+        throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXRawSubscriber subscriber = new EZMQXRawSubscriber(subCallback);
+    subscriber.initialize(topicKeyMap, clientPublicKey, clientSecretKey);
+    subscriber.mSecured = true;
+    return subscriber;
+  }
+}
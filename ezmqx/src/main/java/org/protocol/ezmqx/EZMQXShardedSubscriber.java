@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.edgexfoundry.ezmq.EZMQErrorCode;
+import org.edgexfoundry.ezmq.EZMQMessage;
+import org.edgexfoundry.ezmq.EZMQSubscriber;
+import org.edgexfoundry.ezmq.EZMQSubscriber.EZMQSubCallback;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.Utils;
+
+/**
+ * This class represents EZMQX AML subscriber which spreads publisher end points over many EZMQ
+ * subscriber sockets [shards]. Each shard has its own receive thread, so data of different end
+ * points is received and decoded in parallel. All topics of an end point are received by the
+ * same shard, so data of a topic is delivered in order.<br>
+ * End points are assigned to the shard with the fewest end points on subscribe and can be
+ * rebalanced by observed message rate, see {@link #rebalance()}.
+ */
+public class EZMQXShardedSubscriber extends EZMQXAmlSubscriber {
+  private Shard[] mShards;
+  // end point [address:port] -> state, guarded by this
+  private Map<String, EndPointState> mEndPoints;
+  // topic -> state of its end point, read by receive threads
+  private ConcurrentHashMap<String, EndPointState> mTopicEndPoints;
+  private long mLastRebalance;
+  private ScheduledExecutorService mTimer;
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(EZMQXShardedSubscriber.class);
+
+  private class Shard {
+    private final int mIndex;
+    private EZMQSubscriber mSocket;
+    // end points ever connected by the socket, EZMQ can not disconnect an end point
+    private final Set<String> mConnected;
+    private final AtomicLong mReceived;
+    private int mEndPointCount;
+
+    Shard(int index) {
+      mIndex = index;
+      mConnected = new HashSet<String>();
+      mReceived = new AtomicLong(0);
+    }
+  }
+
+  private static class EndPointState {
+    private final EZMQXEndPoint mEndPoint;
+    private final List<String> mTopics;
+    private final AtomicLong mReceived;
+    private String mServerKey;
+    private Shard mShard;
+    private long mLastReceived;
+
+    EndPointState(EZMQXEndPoint endPoint) {
+      mEndPoint = endPoint;
+      mTopics = new ArrayList<String>();
+      mReceived = new AtomicLong(0);
+    }
+  }
+
+  protected EZMQXShardedSubscriber(int shards, EZMQXAmlSubCallback subCallback)
+      throws EZMQXException {
+    super(subCallback);
+    if (shards < 1) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    mShards = new Shard[shards];
+    for (int i = 0; i < shards; i++) {
+      mShards[i] = new Shard(i);
+    }
+    mEndPoints = new HashMap<String, EndPointState>();
+    mTopicEndPoints = new ConcurrentHashMap<String, EndPointState>();
+    mLastRebalance = System.nanoTime();
+  }
+
+  /**
+   * Get sharded AML subscriber instance.<br>
+   * <b>Note:</b> <br>
+   * (1) It will internally query to TNS server with given topic and Hierarchical option.
+   *
+   * @param topic Topic for which subscriber will subscribe.
+   * @param isHierarchical Query TNS with hierarchical option.
+   * @param shards Number of EZMQ subscriber sockets.
+   * @param subCallback {@link EZMQXAmlSubCallback}
+   *
+   * @return EZMQ sharded AML subscriber instance.
+   */
+  public static EZMQXShardedSubscriber getSubscriber(String topic, boolean isHierarchical,
+      int shards, EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    EZMQXShardedSubscriber subscriber = new EZMQXShardedSubscriber(shards, subCallback);
+    subscriber.initialize(topic, isHierarchical);
+    subscriber.mSecured = false;
+    return subscriber;
+  }
+
+  /**
+   * Get sharded AML subscriber instance.
+   *
+   * @param topics List of topics for which subscriber will subscribe.[
+   *        {@link EZMQXTopic} ]
+   * @param shards Number of EZMQ subscriber sockets.
+   * @param subCallback {@link EZMQXAmlSubCallback}
+   *
+   * @return EZMQ sharded AML subscriber instance.
+   */
+  public static EZMQXShardedSubscriber getSubscriber(List<EZMQXTopic> topics, int shards,
+      EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    for (EZMQXTopic topic : topics) {
+      if (topic.isSecured()) {
+        throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXShardedSubscriber subscriber = new EZMQXShardedSubscriber(shards, subCallback);
+    subscriber.initialize(topics);
+    subscriber.mSecured = false;
+    return subscriber;
+  }
+
+  /**
+   * Get secured sharded AML subscriber instance.<br>
+   * <b>Note:</b><br>
+   * (1) Key should be 40-character string encoded in the Z85 encoding format.
+   *
+   * @param topicKeyMap Map of Topic and server's public keys.
+   * @param clientPublicKey Public key for client(subscriber) that shared with given topic's owner.
+   * @param clientSecretKey Secret key for client(subscriber) that pair of given clientPublickey.
+   * @param shards Number of EZMQ subscriber sockets.
+   * @param subCallback {@link EZMQXAmlSubCallback}
+   *
+   * @return EZMQ secured sharded AML subscriber instance.
+   */
+  public static EZMQXShardedSubscriber getSecuredSubscriber(Map<EZMQXTopic, String> topicKeyMap,
+      String clientPublicKey, String clientSecretKey, int shards,
+      EZMQXAmlSubCallback subCallback) throws EZMQXException {
+    for (EZMQXTopic topic : topicKeyMap.keySet()) {
+      if (!topic.isSecured()) {
+        throw new EZMQXException("topic is unsecured", EZMQXErrorCode.InvalidParam);
+      }
+    }
+    EZMQXShardedSubscriber subscriber = new EZMQXShardedSubscriber(shards, subCallback);
+    subscriber.initialize(topicKeyMap, clientPublicKey, clientSecretKey);
+    subscriber.mSecured = true;
+    return subscriber;
+  }
+
+  @Override
+  protected void onReceived(String topic, EZMQMessage ezmqMessage) {
+    EndPointState state = mTopicEndPoints.get(topic);
+    if (null != state) {
+      state.mReceived.incrementAndGet();
+    }
+    super.onReceived(topic, ezmqMessage);
+  }
+
+  @Override
+  protected synchronized void subscribeTopic(EZMQXTopic topic) throws EZMQXException {
+    assignTopic(topic, null);
+  }
+
+  @Override
+  protected synchronized void subscribeTopic(EZMQXTopic topic, String serverPublicKey,
+      String clientPublicKey, String clientSecretKey) throws EZMQXException {
+    if (clientSecretKey.length() != Utils.KEY_LENGTH || clientPublicKey.length() != Utils.KEY_LENGTH
+        || serverPublicKey.length() != Utils.KEY_LENGTH) {
+      throw new EZMQXException("Invalid key", EZMQXErrorCode.InvalidParam);
+    }
+    mClientPublicKey = clientPublicKey;
+    mClientSecretKey = clientSecretKey;
+    assignTopic(topic, serverPublicKey);
+  }
+
+  @Override
+  protected synchronized void unSubscribeTopic(EZMQXTopic topic) throws EZMQXException {
+    EndPointState state = mTopicEndPoints.remove(topic.getName());
+    if (null == state) {
+      return;
+    }
+    state.mTopics.remove(topic.getName());
+    EZMQErrorCode errorCode = state.mShard.mSocket.unSubscribe(topic.getName());
+    // end point without topics no longer counts for its shard, socket stays connected
+    if (state.mTopics.isEmpty()) {
+      state.mShard.mEndPointCount--;
+      mEndPoints.remove(state.mEndPoint.toString());
+    }
+    if (EZMQErrorCode.EZMQ_OK != errorCode) {
+      throw new EZMQXException("Could not unsubscribe topic: " + topic.getName(),
+          EZMQXErrorCode.SessionUnavailable);
+    }
+    logger.debug("Unsubscribed topic: " + topic.getName() + " shard: " + state.mShard.mIndex);
+  }
+
+  private void assignTopic(EZMQXTopic topic, String serverKey) throws EZMQXException {
+    String key = topic.getEndPoint().toString();
+    EndPointState state = mEndPoints.get(key);
+    if (null == state) {
+      state = new EndPointState(topic.getEndPoint());
+      state.mServerKey = serverKey;
+      state.mShard = getLeastUsedShard();
+      state.mShard.mEndPointCount++;
+      mEndPoints.put(key, state);
+    }
+    subscribe(state.mShard, state, topic.getName());
+    state.mTopics.add(topic.getName());
+    mTopicEndPoints.put(topic.getName(), state);
+    logger.debug("Subscribed for topic: " + topic.getName() + " shard: " + state.mShard.mIndex);
+  }
+
+  private Shard getLeastUsedShard() {
+    Shard least = mShards[0];
+    for (Shard shard : mShards) {
+      if (shard.mEndPointCount < least.mEndPointCount) {
+        least = shard;
+      }
+    }
+    return least;
+  }
+
+  private void subscribe(Shard shard, EndPointState state, String topic) throws EZMQXException {
+    EZMQXEndPoint endPoint = state.mEndPoint;
+    String key = endPoint.toString();
+    EZMQErrorCode errorCode;
+    try {
+      if (null == shard.mSocket) {
+        shard.mSocket = createSocket(shard, endPoint);
+        if (null != state.mServerKey) {
+          if (EZMQErrorCode.EZMQ_OK != shard.mSocket.setServerPublicKey(state.mServerKey)
+              || EZMQErrorCode.EZMQ_OK != shard.mSocket.setClientKeys(mClientSecretKey,
+                  mClientPublicKey)) {
+            throw new EZMQXException("Invalid key", EZMQXErrorCode.UnKnownState);
+          }
+        }
+        if (EZMQErrorCode.EZMQ_OK != shard.mSocket.start()) {
+          throw new EZMQXException("Could not connect endpoint: " + key,
+              EZMQXErrorCode.SessionUnavailable);
+        }
+        shard.mConnected.add(key);
+        errorCode = shard.mSocket.subscribe(topic);
+      } else if (shard.mConnected.contains(key)) {
+        errorCode = shard.mSocket.subscribe(topic);
+      } else {
+        if (null != state.mServerKey) {
+          if (EZMQErrorCode.EZMQ_OK != shard.mSocket.setServerPublicKey(state.mServerKey)) {
+            throw new EZMQXException("Invalid key", EZMQXErrorCode.UnKnownState);
+          }
+        }
+        errorCode = shard.mSocket.subscribe(endPoint.getAddr(), endPoint.getPort(), topic);
+        shard.mConnected.add(key);
+      }
+    } catch (EZMQXException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new EZMQXException(e.getMessage(), EZMQXErrorCode.UnKnownState);
+    }
+    if (EZMQErrorCode.EZMQ_OK != errorCode) {
+      throw new EZMQXException("Could not Subscribe to endpoint: " + key,
+          EZMQXErrorCode.SessionUnavailable);
+    }
+  }
+
+  private EZMQSubscriber createSocket(final Shard shard, EZMQXEndPoint endPoint) {
+    return new EZMQSubscriber(endPoint.getAddr(), endPoint.getPort(), new EZMQSubCallback() {
+      public void onMessageCB(String topic, EZMQMessage ezmqMessage) {
+        shard.mReceived.incrementAndGet();
+        onReceived(topic, ezmqMessage);
+      }
+
+      public void onMessageCB(EZMQMessage ezmqMessage) {}
+    });
+  }
+
+  /**
+   * Reassign end points to shards by message rate observed since previous rebalance, so that
+   * every shard receives about the same rate. End points keep their shard unless moving them
+   * evens out the rates.<br>
+   * <b>Note:</b> <br>
+   * (1) Data published while an end point is moved may be lost, as with any new subscription.
+   *
+   * @return Number of moved end points.
+   */
+  public synchronized int rebalance() throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    long now = System.nanoTime();
+    double seconds = Math.max(1, now - mLastRebalance) / 1e9;
+    mLastRebalance = now;
+    final Map<EndPointState, Double> rates = new HashMap<EndPointState, Double>();
+    for (EndPointState state : mEndPoints.values()) {
+      long received = state.mReceived.get();
+      rates.put(state, (received - state.mLastReceived) / seconds);
+      state.mLastReceived = received;
+    }
+
+    // longest processing time first: heaviest end point goes to the least loaded shard
+    List<EndPointState> states = new ArrayList<EndPointState>(mEndPoints.values());
+    Collections.sort(states, new Comparator<EndPointState>() {
+      public int compare(EndPointState first, EndPointState second) {
+        return Double.compare(rates.get(second), rates.get(first));
+      }
+    });
+    double[] loads = new double[mShards.length];
+    int moved = 0;
+    for (EndPointState state : states) {
+      int target = state.mShard.mIndex;
+      for (int i = 0; i < mShards.length; i++) {
+        if (loads[i] < loads[target]) {
+          target = i;
+        }
+      }
+      loads[target] += rates.get(state);
+      if (target != state.mShard.mIndex) {
+        move(state, mShards[target]);
+        moved++;
+      }
+    }
+    logger.debug("Rebalanced shards, moved end points: " + moved);
+    return moved;
+  }
+
+  private void move(EndPointState state, Shard target) throws EZMQXException {
+    Shard source = state.mShard;
+    // drop the topics first so that data of a topic is never received by two shards
+    for (String topic : state.mTopics) {
+      source.mSocket.unSubscribe(topic);
+    }
+    source.mEndPointCount--;
+    target.mEndPointCount++;
+    state.mShard = target;
+    for (String topic : state.mTopics) {
+      subscribe(target, state, topic);
+    }
+  }
+
+  /**
+   * Rebalance shards periodically, see {@link #rebalance()}.
+   *
+   * @param interval Interval in milliseconds, 0 stops periodic rebalance.
+   */
+  public synchronized void setRebalanceInterval(long interval) throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    if (interval < 0) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    if (null != mTimer) {
+      mTimer.shutdownNow();
+      mTimer = null;
+    }
+    if (0 == interval) {
+      return;
+    }
+    mTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "EZMQXShardedSubscriber-rebalance");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    mTimer.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        try {
+          rebalance();
+        } catch (EZMQXException e) {
+          logger.debug("Rebalance failed: " + e.getMsg());
+        }
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Get number of shards [EZMQ subscriber sockets].
+   *
+   * @return Shard count.
+   */
+  public int getShardCount() {
+    return mShards.length;
+  }
+
+  /**
+   * Get number of data received by the given shard.
+   *
+   * @param shard Index of shard, from 0 to shard count - 1.
+   *
+   * @return Received count.
+   */
+  public long getShardReceivedCount(int shard) throws EZMQXException {
+    if (shard < 0 || shard >= mShards.length) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    return mShards[shard].mReceived.get();
+  }
+
+  /**
+   * Get number of end points assigned to the given shard.
+   *
+   * @param shard Index of shard, from 0 to shard count - 1.
+   *
+   * @return End point count.
+   */
+  public synchronized int getShardEndPointCount(int shard) throws EZMQXException {
+    if (shard < 0 || shard >= mShards.length) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    return mShards[shard].mEndPointCount;
+  }
+
+  /**
+   * Terminate EZMQX sharded subscriber, every shard socket is stopped.
+   *
+   */
+  @Override
+  public synchronized void terminate() throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber already terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null != mTimer) {
+      mTimer.shutdownNow();
+      mTimer = null;
+    }
+    for (Shard shard : mShards) {
+      if (null != shard.mSocket) {
+        shard.mSocket.stop();
+      }
+    }
+    super.terminate();
+  }
+}
@@ -19,9 +19,10 @@ package org.protocol.ezmqx;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.datamodel.aml.Representation;
 import org.edgexfoundry.ezmq.EZMQContentType;
@@ -31,13 +32,15 @@ import org.edgexfoundry.ezmq.EZMQSubscriber;
 import org.edgexfoundry.ezmq.EZMQSubscriber.EZMQSubCallback;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.AmlCodec;
 import org.protocol.ezmqx.internal.Context;
+import org.protocol.ezmqx.internal.Dispatcher;
+import org.protocol.ezmqx.internal.JsonUtils;
 import org.protocol.ezmqx.internal.RestResponse;
 import org.protocol.ezmqx.internal.RestFactory;
 import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.internal.TopicCache;
 import org.protocol.ezmqx.internal.Utils;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * This class is base class of EZMQX subscribers.
@@ -46,10 +49,16 @@ public class EZMQXSubscriber {
   protected Context mContext;
   protected EZMQSubscriber mSubscriber;
   protected AtomicBoolean mTerminated;
+  // topics may be added and removed while receive threads read them
   protected List<EZMQXTopic> mStoredTopics;
   protected Map<String, Representation> mAMLRepDic;
+  // codecs of the same topics, data is encoded and decoded by them
+  protected Map<String, AmlCodec> mCodecs;
   private EZMQXSubCallback mCallback;
+  private volatile Dispatcher mDispatcher;
   protected boolean mSecured;
+  protected String mClientPublicKey;
+  protected String mClientSecretKey;
 
   private final static EdgeXLogger logger =
       EdgeXLoggerFactory.getEdgeXLogger(EZMQXSubscriber.class);
@@ -57,8 +66,9 @@ public class EZMQXSubscriber {
   protected EZMQXSubscriber() {
     mTerminated = new AtomicBoolean(false);
     mContext = Context.getInstance();
-    mStoredTopics = new ArrayList<EZMQXTopic>();
-    mAMLRepDic = new HashMap<String, Representation>();
+    mStoredTopics = new CopyOnWriteArrayList<EZMQXTopic>();
+    mAMLRepDic = new ConcurrentHashMap<String, Representation>();
+    mCodecs = new ConcurrentHashMap<String, AmlCodec>();
   }
 
   // finalize method to be called by Java Garbage collector
@@ -71,6 +81,8 @@ public class EZMQXSubscriber {
 
   protected interface EZMQXSubCallback {
     public void onMessage(String topic, EZMQMessage data);
+
+    public void onError(String topic, EZMQXErrorCode errorCode);
   }
 
   protected void setSubCallback(EZMQXSubCallback callback) {
@@ -103,10 +115,13 @@ public class EZMQXSubscriber {
       throw new EZMQXException("Could not create Subscriber context not initialized",
           EZMQXErrorCode.NotInitialized);
     }
-    for (EZMQXTopic topic : topics) {
-      mAMLRepDic.put(topic.getName(), mContext.getAmlRep(topic.getDatamodel()));
-      subscribe(topic);
-      mStoredTopics.add(topic);
+    try {
+      for (EZMQXTopic topic : topics) {
+        addTopic(topic, null);
+      }
+    } catch (EZMQXException e) {
+      releaseModels();
+      throw e;
     }
   }
 
@@ -116,10 +131,9 @@ public class EZMQXSubscriber {
       throw new EZMQXException("Could not create Subscriber context not initialized",
           EZMQXErrorCode.NotInitialized);
     }
-    mAMLRepDic.put(topic.getName(), mContext.getAmlRep(topic.getDatamodel()));
-    subscribe(topic, serverKey, clientPublicKey, clientSecretKey);
-    mStoredTopics.add(topic);
-
+    mClientPublicKey = clientPublicKey;
+    mClientSecretKey = clientSecretKey;
+    addTopic(topic, serverKey);
   }
 
   protected void initialize(Map<EZMQXTopic, String> topicKeyMap, String clientPublicKey,
@@ -128,30 +142,46 @@ public class EZMQXSubscriber {
       throw new EZMQXException("Could not create Subscriber context not initialized",
           EZMQXErrorCode.NotInitialized);
     }
-    for (Map.Entry<EZMQXTopic, String> entry : topicKeyMap.entrySet()) {
-      EZMQXTopic topic = entry.getKey();
-      String serverKey = entry.getValue();
-      mAMLRepDic.put(topic.getName(), mContext.getAmlRep(topic.getDatamodel()));
-      subscribe(topic, serverKey, clientPublicKey, clientSecretKey);
-      mStoredTopics.add(topic);
+    mClientPublicKey = clientPublicKey;
+    mClientSecretKey = clientSecretKey;
+    try {
+      for (Map.Entry<EZMQXTopic, String> entry : topicKeyMap.entrySet()) {
+        addTopic(entry.getKey(), entry.getValue());
+      }
+    } catch (EZMQXException e) {
+      releaseModels();
+      throw e;
     }
+  }
 
+  // Entry point of data received by any EZMQ subscriber socket of this subscriber.
+  protected void onReceived(String topic, EZMQMessage ezmqMessage) {
+    if (EZMQContentType.EZMQ_CONTENT_TYPE_BYTEDATA == ezmqMessage.getContentType()) {
+      Dispatcher dispatcher = mDispatcher;
+      if (null == dispatcher) {
+        mCallback.onMessage(topic, ezmqMessage);
+        return;
+      }
+      try {
+        dispatcher.dispatch(topic, ezmqMessage);
+      } catch (EZMQXException e) {
+        mCallback.onError(topic, e.getCode());
+      }
+    } else {
+    }
   }
 
   private void createSubscriber(EZMQXEndPoint endPoint) throws EZMQXException {
     mSubscriber = new EZMQSubscriber(endPoint.getAddr(), endPoint.getPort(), new EZMQSubCallback() {
       public void onMessageCB(String topic, EZMQMessage ezmqMessage) {
-        if (EZMQContentType.EZMQ_CONTENT_TYPE_BYTEDATA == ezmqMessage.getContentType()) {
-          mCallback.onMessage(topic, ezmqMessage);
-        } else {
-        }
+        onReceived(topic, ezmqMessage);
       }
 
       public void onMessageCB(EZMQMessage ezmqMessage) {}
     });
   }
 
-  protected void subscribe(EZMQXTopic topic) throws EZMQXException {
+  protected void subscribeTopic(EZMQXTopic topic) throws EZMQXException {
     EZMQXEndPoint endPoint = topic.getEndPoint();
     if (null == mSubscriber) {
       createSubscriber(endPoint);
@@ -178,8 +208,8 @@ public class EZMQXSubscriber {
     logger.debug("Subscribed for topic: " + topic.getName());
   }
 
-  protected void subscribe(EZMQXTopic topic, String serverPublicKey, String clientPublicKey,
-      String clientSecretKey) throws EZMQXException {
+  protected void subscribeTopic(EZMQXTopic topic, String serverPublicKey,
+      String clientPublicKey, String clientSecretKey) throws EZMQXException {
     if (clientSecretKey.length() != Utils.KEY_LENGTH || clientPublicKey.length() != Utils.KEY_LENGTH
         || serverPublicKey.length() != Utils.KEY_LENGTH) {
       throw new EZMQXException("Invalid key", EZMQXErrorCode.InvalidParam);
@@ -235,47 +265,211 @@ public class EZMQXSubscriber {
     logger.debug("Subscribed for topic: " + topic.getName());
   }
 
+  protected void unSubscribeTopic(EZMQXTopic topic) throws EZMQXException {
+    // EZMQ can not disconnect an end point, only its topic filter is removed
+    EZMQErrorCode errorCode = mSubscriber.unSubscribe(topic.getName());
+    if (EZMQErrorCode.EZMQ_OK != errorCode) {
+      throw new EZMQXException("Could not unsubscribe topic: " + topic.getName(),
+          EZMQXErrorCode.SessionUnavailable);
+    }
+    logger.debug("Unsubscribed topic: " + topic.getName());
+  }
+
+  /**
+   * Subscribe topic on the running subscriber, data of already subscribed topics keeps
+   * flowing.
+   *
+   * @param topic Topic to be subscribed {@link EZMQXTopic}.
+   */
+  public synchronized void subscribe(EZMQXTopic topic) throws EZMQXException {
+    validateSubscribe(topic);
+    if (topic.isSecured()) {
+      throw new EZMQXException("topic is secured", EZMQXErrorCode.InvalidParam);
+    }
+    addTopic(topic, null);
+  }
+
+  /**
+   * Subscribe secured topic on the running secured subscriber. Client keys given on creation
+   * of the subscriber are used.<br>
+   * <b>Note:</b><br>
+   * (1) Key should be 40-character string encoded in the Z85 encoding format.
+   *
+   * @param topic Topic to be subscribed {@link EZMQXTopic}.
+   * @param serverPublicKey Public key of the topic's owner.
+   */
+  public synchronized void subscribe(EZMQXTopic topic, String serverPublicKey)
+      throws EZMQXException {
+    validateSubscribe(topic);
+    if (!topic.isSecured() || !mSecured) {
+      throw new EZMQXException("topic or subscriber is unsecured", EZMQXErrorCode.InvalidParam);
+    }
+    if (null == serverPublicKey) {
+      throw new EZMQXException("Invalid key", EZMQXErrorCode.InvalidParam);
+    }
+    addTopic(topic, serverPublicKey);
+  }
+
+  /**
+   * Subscribe topics matched on TNS on the running subscriber. Matched topics which are already
+   * subscribed are skipped.<br>
+   * <b>Note:</b> <br>
+   * (1) It will internally query to TNS server with given topic and Hierarchical option. <br>
+   * (2) Not supported for secured subscriber, as server keys of matched topics are unknown.
+   *
+   * @param topic Topic to be queried on TNS.
+   * @param isHierarchical Query TNS with hierarchical option.
+   *
+   * @return List of newly subscribed {@link EZMQXTopic}
+   */
+  public synchronized List<EZMQXTopic> subscribe(String topic, boolean isHierarchical)
+      throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    if (mSecured) {
+      throw new EZMQXException("Subscriber is secured", EZMQXErrorCode.InvalidParam);
+    }
+    if (!Utils.validateTopic(topic)) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+    if (!mContext.isTnsEnabled()) {
+      throw new EZMQXException("TNS not available", EZMQXErrorCode.TnsNotAvailable);
+    }
+    List<EZMQXTopic> verified = verifyTopics(topic, isHierarchical);
+    if (verified.isEmpty()) {
+      throw new EZMQXException("Could not find matched topic", EZMQXErrorCode.NoTopicMatched);
+    }
+    List<EZMQXTopic> subscribed = new ArrayList<EZMQXTopic>();
+    for (EZMQXTopic ezmqxTopic : verified) {
+      if (!mAMLRepDic.containsKey(ezmqxTopic.getName())) {
+        addTopic(ezmqxTopic, null);
+        subscribed.add(ezmqxTopic);
+      }
+    }
+    return subscribed;
+  }
+
+  /**
+   * Unsubscribe topic on the running subscriber, data of other topics keeps flowing.
+   *
+   * @param topic Subscribed topic {@link EZMQXTopic}.
+   */
+  public void unsubscribe(EZMQXTopic topic) throws EZMQXException {
+    if (null == topic) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+    unsubscribe(topic.getName());
+  }
+
+  /**
+   * Unsubscribe topic on the running subscriber, data of other topics keeps flowing.<br>
+   * <b>Note:</b> <br>
+   * (1) Data of the topic already received may still be delivered to onError callback with
+   * {@link EZMQXErrorCode#UnknownTopic}.
+   *
+   * @param topic Name of subscribed topic.
+   */
+  public synchronized void unsubscribe(String topic) throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    EZMQXTopic stored = null;
+    for (EZMQXTopic ezmqxTopic : mStoredTopics) {
+      if (ezmqxTopic.getName().equals(topic)) {
+        stored = ezmqxTopic;
+        break;
+      }
+    }
+    if (null == stored) {
+      throw new EZMQXException("Topic not subscribed", EZMQXErrorCode.UnknownTopic);
+    }
+    unSubscribeTopic(stored);
+    mStoredTopics.remove(stored);
+    mAMLRepDic.remove(topic);
+    mCodecs.remove(topic);
+    mContext.releaseAmlModel(stored.getDatamodel());
+  }
+
+  private void validateSubscribe(EZMQXTopic topic) throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null == topic || !Utils.validateTopic(topic.getName())) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+    if (mAMLRepDic.containsKey(topic.getName())) {
+      throw new EZMQXException("Topic already subscribed", EZMQXErrorCode.DuplicatedTopic);
+    }
+  }
+
+  // Representation is stored before the socket subscribes, so the first data of the topic can
+  // be decoded, and topic is listed only once it is subscribed.
+  private void addTopic(EZMQXTopic topic, String serverPublicKey) throws EZMQXException {
+    AmlCodec codec = mContext.acquireAmlModel(topic.getDatamodel());
+    mCodecs.put(topic.getName(), codec);
+    mAMLRepDic.put(topic.getName(), codec.getRepresentation());
+    try {
+      if (null == serverPublicKey) {
+        subscribeTopic(topic);
+      } else {
+        subscribeTopic(topic, serverPublicKey, mClientPublicKey, mClientSecretKey);
+      }
+    } catch (EZMQXException e) {
+      mAMLRepDic.remove(topic.getName());
+      mCodecs.remove(topic.getName());
+      mContext.releaseAmlModel(topic.getDatamodel());
+      throw e;
+    }
+    mStoredTopics.add(topic);
+  }
+
+  // Models of subscribed topics may be evicted once released.
+  private void releaseModels() {
+    for (EZMQXTopic topic : mStoredTopics) {
+      mContext.releaseAmlModel(topic.getDatamodel());
+    }
+  }
+
   private List<EZMQXTopic> parseTNSResponse(RestResponse response) throws EZMQXException {
     if (null == response) {
       throw new EZMQXException("Could not get topic", EZMQXErrorCode.RestError);
     }
     logger.debug("[TNS get topic] Status code: " + response.getStatusCode());
+    if (response.getStatusCode() == RestUtils.HTTP_NOT_FOUND) {
+      return new ArrayList<EZMQXTopic>();
+    }
     if (response.getStatusCode() != RestUtils.HTTP_OK) {
       throw new EZMQXException("Could not discover topic", EZMQXErrorCode.RestError);
     }
 
     String jsonString = response.getResponse();
     logger.debug("[TNS get topic] Response: " + jsonString);
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      return JsonUtils.parseTopics(jsonString);
     } catch (IOException e) {
       throw new EZMQXException("Could not parse response", EZMQXErrorCode.RestError);
     }
+  }
 
-    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
-    JsonNode propertiesNode = root.path(RestUtils.PAYLOAD_TOPICS);
-    for (JsonNode node : propertiesNode) {
-      if (node.has(RestUtils.PAYLOAD_NAME) && node.has(RestUtils.PAYLOAD_DATAMODEL)
-          && node.has(RestUtils.PAYLOAD_ENDPOINT) && node.has(RestUtils.PAYLOAD_SECURED)) {
-        String name = node.path(RestUtils.PAYLOAD_NAME).asText();
-        String dataModel = node.path(RestUtils.PAYLOAD_DATAMODEL).asText();
-        String ep = node.path(RestUtils.PAYLOAD_ENDPOINT).asText();
-        boolean isSecured = node.path(RestUtils.PAYLOAD_SECURED).asBoolean();
-        if (!mSecured && isSecured || mSecured && !isSecured) { //TODO discuss for cases
-          throw new EZMQXException("Topic is secured and subscriber to be created is unsecured",
-              EZMQXErrorCode.UnKnownState);
-        }
-        EZMQXEndPoint endPoint = new EZMQXEndPoint(ep);
-        EZMQXTopic topic = new EZMQXTopic(name, dataModel, isSecured, endPoint);
-        topics.add(topic);
+  protected List<EZMQXTopic> verifyTopics(String topic, boolean isHierarchical)
+      throws EZMQXException {
+    List<EZMQXTopic> topics = TopicCache.getInstance().get(topic, isHierarchical);
+    if (null == topics) {
+      topics = queryTopics(topic, isHierarchical);
+      TopicCache.getInstance().put(topic, isHierarchical, topics);
+    }
+    for (EZMQXTopic ezmqxTopic : topics) {
+      boolean isSecured = ezmqxTopic.isSecured();
+      if (!mSecured && isSecured || mSecured && !isSecured) { //TODO discuss for cases
+        throw new EZMQXException("Topic is secured and subscriber to be created is unsecured",
+            EZMQXErrorCode.UnKnownState);
       }
     }
     return topics;
   }
 
-  protected List<EZMQXTopic> verifyTopics(String topic, boolean isHierarchical)
+  private List<EZMQXTopic> queryTopics(String topic, boolean isHierarchical)
       throws EZMQXException {
     // Send post request to TNS server
     String topicURL = mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
@@ -305,9 +499,82 @@ public class EZMQXSubscriber {
     if (null != mSubscriber) {
       mSubscriber.stop();
     }
+    if (null != mDispatcher) {
+      mDispatcher.stop();
+    }
+    releaseModels();
     mTerminated.set(true);
   }
 
+  /**
+   * Enable multi-threaded dispatch of received data. Decoding and callbacks of received data
+   * run on worker lanes instead of the receive thread. Each topic is always handled by the same
+   * lane, so data of a topic is delivered in order while different topics are delivered in
+   * parallel.<br>
+   * <b>Note:</b> <br>
+   * (1) Callbacks are invoked from many threads. <br>
+   * (2) With {@link EZMQXOverflowPolicy#FAIL} data of a full lane is dropped and reported to
+   * onError callback with {@link EZMQXErrorCode#QueueFull}.
+   *
+   * @param lanes Number of worker lanes.
+   * @param capacity Queue capacity of each lane, it is rounded up to power of two.
+   * @param waitStrategy Wait strategy of idle lanes and of the receive thread on full lane with
+   *        {@link EZMQXOverflowPolicy#BLOCK} {@link EZMQXWaitStrategy}.
+   * @param overflowPolicy Action to take when lane is full {@link EZMQXOverflowPolicy}.
+   */
+  public synchronized void enableDispatcher(int lanes, int capacity,
+      EZMQXWaitStrategy waitStrategy, EZMQXOverflowPolicy overflowPolicy)
+      throws EZMQXException {
+    if (mTerminated.get()) {
+      throw new EZMQXException("Subscriber terminated", EZMQXErrorCode.Terminated);
+    }
+    if (lanes < 1 || capacity < 1 || capacity > Utils.ASYNC_PUBLISH_MAX_CAPACITY
+        || null == waitStrategy || null == overflowPolicy) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    if (null != mDispatcher) {
+      throw new EZMQXException("Dispatcher already enabled", EZMQXErrorCode.InvalidParam);
+    }
+    Dispatcher dispatcher = new Dispatcher(lanes, capacity, waitStrategy, overflowPolicy,
+        new Dispatcher.Handler() {
+          public void onMessage(String topic, EZMQMessage message) {
+            mCallback.onMessage(topic, message);
+          }
+        });
+    dispatcher.start("EZMQXSubscriber-dispatcher");
+    mDispatcher = dispatcher;
+  }
+
+  /**
+   * Get number of received data delivered to the callback by dispatcher.
+   *
+   * @return Dispatched count, 0 if dispatcher is not enabled.
+   */
+  public long getDispatchedCount() {
+    Dispatcher dispatcher = mDispatcher;
+    return null == dispatcher ? 0 : dispatcher.getDispatchedCount();
+  }
+
+  /**
+   * Get number of received data dropped by overflow policy of dispatcher.
+   *
+   * @return Dropped count, 0 if dispatcher is not enabled.
+   */
+  public long getDroppedCount() {
+    Dispatcher dispatcher = mDispatcher;
+    return null == dispatcher ? 0 : dispatcher.getDroppedCount();
+  }
+
+  /**
+   * Get number of received data waiting in dispatcher lanes.
+   *
+   * @return Queued count, 0 if dispatcher is not enabled.
+   */
+  public long getQueuedCount() {
+    Dispatcher dispatcher = mDispatcher;
+    return null == dispatcher ? 0 : dispatcher.getQueuedCount();
+  }
+
   /**
    * Check whether EZMQX subscriber is terminated or not.
    *
@@ -320,11 +587,11 @@ public class EZMQXSubscriber {
   /**
    * Get EZMQX topic list.
    *
-   * @return list of {@link EZMQXTopic}
+   * @return list of {@link EZMQXTopic}, snapshot of currently subscribed topics.
    *
    */
   public List<EZMQXTopic> getTopics() {
-    return mStoredTopics;
+    return new ArrayList<EZMQXTopic>(mStoredTopics);
   }
 
   /**
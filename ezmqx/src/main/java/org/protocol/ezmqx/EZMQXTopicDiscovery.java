@@ -20,15 +20,18 @@ package org.protocol.ezmqx;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.edgexfoundry.support.logging.client.EdgeXLogger;
 import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.protocol.ezmqx.internal.Context;
+import org.protocol.ezmqx.internal.JsonUtils;
 import org.protocol.ezmqx.internal.RestResponse;
 import org.protocol.ezmqx.internal.RestFactory;
 import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.internal.TopicCache;
+import org.protocol.ezmqx.internal.TopicTrie;
 import org.protocol.ezmqx.internal.Utils;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * This class represents EZMQX topic discovery. It provides APIs for
@@ -57,7 +60,11 @@ public class EZMQXTopicDiscovery {
    * @return {@link EZMQXTopic}
    */
   public EZMQXTopic query(String topic) throws EZMQXException {
-    return queryInternal(topic, false).get(0);
+    List<EZMQXTopic> topics = queryInternal(topic, false);
+    if (topics.isEmpty()) {
+      throw new EZMQXException("Could not find matched topic", EZMQXErrorCode.NoTopicMatched);
+    }
+    return topics.get(0);
   }
 
   /**
@@ -74,8 +81,92 @@ public class EZMQXTopicDiscovery {
     return queryInternal(topic, true);
   }
 
-  private List<EZMQXTopic> queryInternal(String topic, boolean isHierarchical)
+  /**
+   * Query the given topic to TNS [Topic name server] server without blocking the caller.
+   *
+   * @param topic Topic to be search on TNS server.
+   * @return Future of {@link EZMQXTopic}, it completes exceptionally with
+   *         {@link EZMQXException} if query failed.
+   */
+  public CompletableFuture<EZMQXTopic> queryAsync(String topic) throws EZMQXException {
+    return queryInternalAsync(topic, false).thenApply(topics -> {
+      if (topics.isEmpty()) {
+        throw new CompletionException(
+            new EZMQXException("Could not find matched topic", EZMQXErrorCode.NoTopicMatched));
+      }
+      return topics.get(0);
+    });
+  }
+
+  /**
+   * Query the given topic to TNS [Topic name server] server with hierarchical option without
+   * blocking the caller. See {@link #hierarchicalQuery(String)}.
+   *
+   * @param topic Topic to be search on TNS server.
+   * @return Future of list of {@link EZMQXTopic}, it completes exceptionally with
+   *         {@link EZMQXException} if query failed.
+   */
+  public CompletableFuture<List<EZMQXTopic>> hierarchicalQueryAsync(String topic)
       throws EZMQXException {
+    return queryInternalAsync(topic, true);
+  }
+
+  /**
+   * Query topics matching the given pattern to TNS [Topic name server] server. Wild card
+   * segment [*] of the pattern matches exactly one segment of topic name.<br>
+   * <b>Note:</b> <br>
+   * (1) Topics below the part of the pattern before the first wild card are queried with
+   * hierarchical option and matched locally, so pattern has to start with a topic segment.<br>
+   * (2) Pattern without wild card segment is queried as {@link #query(String)}.<br>
+   *
+   * <b>For example:</b><br> Pattern /Topic/&#42;/Temp matches /Topic/A/Temp and /Topic/B/Temp
+   * but not /Topic/Temp or /Topic/A/B/Temp.
+   *
+   * @param pattern Topic pattern to be search on TNS server.
+   * @return List of {@link EZMQXTopic}, empty if no topic matched.
+   */
+  public List<EZMQXTopic> wildCardQuery(String pattern) throws EZMQXException {
+    validateWildCardQuery(pattern);
+    String prefix = Utils.getWildCardPrefix(pattern);
+    if (null == prefix) {
+      return queryInternal(pattern, false);
+    }
+    return match(pattern, queryInternal(prefix, true));
+  }
+
+  /**
+   * Query topics matching the given pattern to TNS [Topic name server] server without blocking
+   * the caller. See {@link #wildCardQuery(String)}.
+   *
+   * @param pattern Topic pattern to be search on TNS server.
+   * @return Future of list of {@link EZMQXTopic}, it completes exceptionally with
+   *         {@link EZMQXException} if query failed.
+   */
+  public CompletableFuture<List<EZMQXTopic>> wildCardQueryAsync(String pattern)
+      throws EZMQXException {
+    validateWildCardQuery(pattern);
+    String prefix = Utils.getWildCardPrefix(pattern);
+    if (null == prefix) {
+      return queryInternalAsync(pattern, false);
+    }
+    return queryInternalAsync(prefix, true).thenApply(topics -> match(pattern, topics));
+  }
+
+  private void validateWildCardQuery(String pattern) throws EZMQXException {
+    if (!Utils.validateWildCardTopic(pattern)) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+  }
+
+  private List<EZMQXTopic> match(String pattern, List<EZMQXTopic> topics) {
+    TopicTrie<EZMQXTopic> index = new TopicTrie<EZMQXTopic>();
+    for (EZMQXTopic topic : topics) {
+      index.put(topic.getName(), topic);
+    }
+    return index.match(pattern);
+  }
+
+  private void validateQuery(String topic) throws EZMQXException {
     if (null == mContext) {
       throw new EZMQXException("Context not created", EZMQXErrorCode.UnKnownState);
     }
@@ -90,14 +181,58 @@ public class EZMQXTopicDiscovery {
     if (false == result) {
       throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
     }
-    return verifyTopic(topic, isHierarchical);
+  }
+
+  private List<EZMQXTopic> queryInternal(String topic, boolean isHierarchical)
+      throws EZMQXException {
+    validateQuery(topic);
+    List<EZMQXTopic> topics = TopicCache.getInstance().get(topic, isHierarchical);
+    if (null == topics) {
+      topics = verifyTopic(topic, isHierarchical);
+      TopicCache.getInstance().put(topic, isHierarchical, topics);
+    }
+    return topics;
+  }
+
+  private CompletableFuture<List<EZMQXTopic>> queryInternalAsync(String topic,
+      boolean isHierarchical) throws EZMQXException {
+    validateQuery(topic);
+    List<EZMQXTopic> cached = TopicCache.getInstance().get(topic, isHierarchical);
+    if (null != cached) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    String tnsURL = getTopicURL();
+    String query = getTopicQuery(topic, isHierarchical);
+    logger.debug("[Topic discovery] Rest URL: " + tnsURL + " Query: " + query);
+    return RestFactory.getInstance().getAsync(tnsURL, query).handle((response, throwable) -> {
+      if (null != throwable) {
+        logger.debug("Caught exeption : " + throwable.getMessage());
+        throw Utils.toCompletionException(throwable, "Could not send request to TNS",
+            EZMQXErrorCode.RestError);
+      }
+      try {
+        List<EZMQXTopic> topics = parseTNSResponse(response);
+        TopicCache.getInstance().put(topic, isHierarchical, topics);
+        return topics;
+      } catch (EZMQXException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  private String getTopicURL() {
+    return mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+  }
+
+  private String getTopicQuery(String topic, boolean isHierarchical) {
+    return RestUtils.QUERY_NAME + topic + RestUtils.QUERY_HIERARCHICAL
+        + (isHierarchical == true ? RestUtils.QUERY_TRUE : RestUtils.QUERY_FALSE);
   }
 
   private List<EZMQXTopic> verifyTopic(String topic, boolean isHierarchical) throws EZMQXException {
-    String tnsURL = mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+    String tnsURL = getTopicURL();
     logger.debug("[Topic discovery] Rest URL: " + tnsURL);
-    String query = RestUtils.QUERY_NAME + topic + RestUtils.QUERY_HIERARCHICAL
-        + (isHierarchical == true ? RestUtils.QUERY_TRUE : RestUtils.QUERY_FALSE);
+    String query = getTopicQuery(topic, isHierarchical);
     logger.debug("[Topic discovery] Query: " + query);
     RestResponse response = null;
     RestFactory restClient = RestFactory.getInstance();
@@ -110,39 +245,25 @@ public class EZMQXTopicDiscovery {
     return parseTNSResponse(response);
   }
 
-  private List<EZMQXTopic> parseTNSResponse(RestResponse response) throws EZMQXException {
+  // Shared with topic watcher.
+  static List<EZMQXTopic> parseTNSResponse(RestResponse response) throws EZMQXException {
     if (null == response) {
       throw new EZMQXException("Could not discover topic", EZMQXErrorCode.RestError);
     }
     logger.debug("[TNS discover topic] Status code: " + response.getStatusCode());
+    if (response.getStatusCode() == RestUtils.HTTP_NOT_FOUND) {
+      return new ArrayList<EZMQXTopic>();
+    }
     if (response.getStatusCode() != RestUtils.HTTP_OK) {
       throw new EZMQXException("Could not discover topic", EZMQXErrorCode.RestError);
     }
 
     String jsonString = response.getResponse();
     logger.debug("[TNS discover topic] Response: " + jsonString);
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      return JsonUtils.parseTopics(jsonString);
     } catch (IOException e) {
       throw new EZMQXException("Could not parse response", EZMQXErrorCode.RestError);
     }
-
-    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
-    JsonNode topicNode = root.path(RestUtils.PAYLOAD_TOPICS);
-    for (JsonNode node : topicNode) {
-      if (node.has(RestUtils.PAYLOAD_NAME) && node.has(RestUtils.PAYLOAD_DATAMODEL)
-          && node.has(RestUtils.PAYLOAD_ENDPOINT) && node.has(RestUtils.PAYLOAD_SECURED)) {
-        String name = node.path(RestUtils.PAYLOAD_NAME).asText();
-        String dataModel = node.path(RestUtils.PAYLOAD_DATAMODEL).asText();
-        String ep = node.path(RestUtils.PAYLOAD_ENDPOINT).asText();
-        boolean isSecured = node.path(RestUtils.PAYLOAD_SECURED).asBoolean();
-        EZMQXEndPoint endPoint = new EZMQXEndPoint(ep);
-        EZMQXTopic topic = new EZMQXTopic(name, dataModel, isSecured, endPoint);
-        topics.add(topic);
-      }
-    }
-    return topics;
   }
 }
@@ -0,0 +1,455 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.internal.Context;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.RestResponse;
+import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.internal.TopicCache;
+import org.protocol.ezmqx.internal.TopicTrie;
+import org.protocol.ezmqx.internal.Utils;
+
+/**
+ * This class represents EZMQX topic watcher. It watches topic prefixes on TNS [Topic name
+ * server] and notifies when topics below a prefix appear, change [end point, data model or
+ * security] or disappear [unregistered or expired on TNS]. Topics of a watched subscriber can be
+ * kept in sync with TNS as well.<br>
+ * All prefixes are checked periodically on a single thread. A prefix below another watched
+ * prefix is served by the query of its ancestor, and TNS is asked with entity tag of the
+ * previous response so that unchanged topics are not sent again.
+ */
+public class EZMQXTopicWatcher {
+  private Context mContext;
+  private final long mInterval;
+  // prefix -> watch, guarded by this
+  private final TopicTrie<Watch> mWatches;
+  // prefix -> entity tag of the last response, used by timer thread only
+  private final Map<String, String> mETags;
+  private final ScheduledExecutorService mTimer;
+  private final AtomicBoolean mPollPending;
+  private final AtomicLong mQueryCount;
+  private final AtomicLong mNotModifiedCount;
+  private boolean mTerminated;
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(EZMQXTopicWatcher.class);
+
+  /**
+   * Callbacks to get changes of watched topics.
+   */
+  public interface EZMQXTopicWatchCallback {
+    /**
+     * Invoked when topic below watched prefix appears on TNS.
+     *
+     * @param prefix Watched prefix.
+     * @param topic Added topic {@link EZMQXTopic}.
+     */
+    public void onTopicAdded(String prefix, EZMQXTopic topic);
+
+    /**
+     * Invoked when end point, data model or security of known topic changes on TNS.
+     *
+     * @param prefix Watched prefix.
+     * @param topic Changed topic {@link EZMQXTopic}.
+     */
+    public void onTopicChanged(String prefix, EZMQXTopic topic);
+
+    /**
+     * Invoked when topic is unregistered or expired on TNS.
+     *
+     * @param prefix Watched prefix.
+     * @param topic Last known topic {@link EZMQXTopic}.
+     */
+    public void onTopicRemoved(String prefix, EZMQXTopic topic);
+
+    /**
+     * Invoked when TNS could not be queried or watched subscriber could not follow a change.
+     *
+     * @param prefix Watched prefix.
+     * @param errorCode {@link EZMQXErrorCode}
+     */
+    public void onError(String prefix, EZMQXErrorCode errorCode);
+  }
+
+  private static class Watch {
+    private final String mPrefix;
+    private final EZMQXTopicWatchCallback mCallback;
+    private final EZMQXSubscriber mSubscriber;
+    // topic name -> topic as last seen on TNS, null until first response
+    private Map<String, EZMQXTopic> mKnown;
+
+    Watch(String prefix, EZMQXTopicWatchCallback callback, EZMQXSubscriber subscriber) {
+      mPrefix = prefix;
+      mCallback = callback;
+      mSubscriber = subscriber;
+    }
+  }
+
+  /**
+   * Constructor for EZMQX topic watcher with default interval.
+   */
+  public EZMQXTopicWatcher() throws EZMQXException {
+    this(Utils.TOPIC_WATCH_INTERVAL);
+  }
+
+  /**
+   * Constructor for EZMQX topic watcher.
+   *
+   * @param interval Interval of checking TNS in milliseconds.
+   */
+  public EZMQXTopicWatcher(long interval) throws EZMQXException {
+    if (interval < 1) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    mContext = Context.getInstance();
+    if (!(mContext.isInitialized())) {
+      mContext = null;
+      throw new EZMQXException("Context not initialized", EZMQXErrorCode.NotInitialized);
+    }
+    if (!mContext.isTnsEnabled()) {
+      throw new EZMQXException("Could not use watcher without tns server",
+          EZMQXErrorCode.TnsNotAvailable);
+    }
+    mInterval = interval;
+    mWatches = new TopicTrie<Watch>();
+    mETags = new HashMap<String, String>();
+    mPollPending = new AtomicBoolean(false);
+    mQueryCount = new AtomicLong(0);
+    mNotModifiedCount = new AtomicLong(0);
+    mTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "EZMQXTopicWatcher-timer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    mTimer.scheduleWithFixedDelay(new Runnable() {
+      public void run() {
+        poll();
+      }
+    }, mInterval, mInterval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Watch topics below the given prefix, including the prefix itself. Topics already registered
+   * on TNS are notified as added on first check.
+   *
+   * @param prefix Topic prefix to be watched.
+   * @param callback {@link EZMQXTopicWatchCallback}
+   */
+  public void watch(String prefix, EZMQXTopicWatchCallback callback) throws EZMQXException {
+    if (null == callback) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    addWatch(new Watch(prefix, callback, null));
+  }
+
+  /**
+   * Watch topics below the given prefix and keep topics of the subscriber in sync with TNS.
+   * Added topics are subscribed, changed topics are subscribed again and removed topics are
+   * unsubscribed.<br>
+   * <b>Note:</b> <br>
+   * (1) Secured topics can not be subscribed this way and are reported to onError callback with
+   * {@link EZMQXErrorCode#InvalidParam}.
+   *
+   * @param prefix Topic prefix to be watched.
+   * @param subscriber Subscriber to be kept in sync {@link EZMQXSubscriber}.
+   * @param callback {@link EZMQXTopicWatchCallback}, it may be null.
+   */
+  public void watch(String prefix, EZMQXSubscriber subscriber, EZMQXTopicWatchCallback callback)
+      throws EZMQXException {
+    if (null == subscriber || subscriber.isTerminated()) {
+      throw new EZMQXException("Invalid param", EZMQXErrorCode.InvalidParam);
+    }
+    addWatch(new Watch(prefix, callback, subscriber));
+  }
+
+  /**
+   * Stop watching the given prefix.
+   *
+   * @param prefix Watched prefix.
+   */
+  public synchronized void unwatch(String prefix) throws EZMQXException {
+    if (mTerminated) {
+      throw new EZMQXException("Watcher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (null == prefix || null == mWatches.remove(prefix)) {
+      throw new EZMQXException("Prefix not watched", EZMQXErrorCode.UnknownTopic);
+    }
+    logger.debug("Unwatched prefix: " + prefix);
+  }
+
+  private synchronized void addWatch(Watch watch) throws EZMQXException {
+    if (mTerminated) {
+      throw new EZMQXException("Watcher terminated", EZMQXErrorCode.Terminated);
+    }
+    if (!Utils.validateTopic(watch.mPrefix)) {
+      throw new EZMQXException("Invalid topic", EZMQXErrorCode.InvalidTopic);
+    }
+    if (mWatches.contains(watch.mPrefix)) {
+      throw new EZMQXException("Prefix already watched", EZMQXErrorCode.DuplicatedTopic);
+    }
+    mWatches.put(watch.mPrefix, watch);
+    logger.debug("Watching prefix: " + watch.mPrefix);
+    // first check is not delayed by interval, a burst of watches shares it
+    if (mPollPending.compareAndSet(false, true)) {
+      mTimer.execute(new Runnable() {
+        public void run() {
+          mPollPending.set(false);
+          poll();
+        }
+      });
+    }
+  }
+
+  private void poll() {
+    // nested prefixes are served by the query of their top most watched ancestor
+    Map<String, List<Watch>> groups = new HashMap<String, List<Watch>>();
+    synchronized (this) {
+      if (mTerminated) {
+        return;
+      }
+      for (Watch watch : mWatches.values()) {
+        String top = mWatches.getPath(watch.mPrefix).get(0).mPrefix;
+        List<Watch> group = groups.get(top);
+        if (null == group) {
+          group = new ArrayList<Watch>();
+          groups.put(top, group);
+        }
+        group.add(watch);
+      }
+    }
+    if (mContext.isTerminated()) {
+      return;
+    }
+    mETags.keySet().retainAll(groups.keySet());
+
+    String topicURL = mContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TOPIC;
+    Map<String, CompletableFuture<RestResponse>> responses =
+        new HashMap<String, CompletableFuture<RestResponse>>();
+    for (Map.Entry<String, List<Watch>> entry : groups.entrySet()) {
+      String prefix = entry.getKey();
+      String query = RestUtils.QUERY_NAME + prefix + RestUtils.QUERY_HIERARCHICAL
+          + RestUtils.QUERY_TRUE;
+      // new watch of the group needs full topic list
+      String eTag = mETags.get(prefix);
+      for (Watch watch : entry.getValue()) {
+        if (null == watch.mKnown) {
+          eTag = null;
+        }
+      }
+      mQueryCount.incrementAndGet();
+      responses.put(prefix, RestFactory.getInstance().getAsync(topicURL, query, eTag));
+    }
+
+    for (Map.Entry<String, CompletableFuture<RestResponse>> entry : responses.entrySet()) {
+      String prefix = entry.getKey();
+      List<Watch> group = groups.get(prefix);
+      List<EZMQXTopic> topics;
+      try {
+        RestResponse response =
+            entry.getValue().get(RestUtils.CONNECTION_TIMEOUT, TimeUnit.SECONDS);
+        if (null != response && RestUtils.HTTP_NOT_MODIFIED == response.getStatusCode()) {
+          mNotModifiedCount.incrementAndGet();
+          continue;
+        }
+        topics = EZMQXTopicDiscovery.parseTNSResponse(response);
+        if (null == response.getETag()) {
+          mETags.remove(prefix);
+        } else {
+          mETags.put(prefix, response.getETag());
+        }
+      } catch (EZMQXException e) {
+        notifyError(group, e.getCode());
+        continue;
+      } catch (Exception e) {
+        logger.debug("Could not query TNS: " + e.getMessage());
+        notifyError(group, EZMQXErrorCode.RestError);
+        continue;
+      }
+      for (Watch watch : group) {
+        diff(watch, topics);
+      }
+    }
+  }
+
+  private void diff(Watch watch, List<EZMQXTopic> topics) {
+    Map<String, EZMQXTopic> current = new HashMap<String, EZMQXTopic>();
+    for (EZMQXTopic topic : topics) {
+      String name = topic.getName();
+      if (name.equals(watch.mPrefix) || name.startsWith(watch.mPrefix + RestUtils.SLASH)) {
+        current.put(name, topic);
+      }
+    }
+    Map<String, EZMQXTopic> known =
+        null == watch.mKnown ? new HashMap<String, EZMQXTopic>() : watch.mKnown;
+    watch.mKnown = current;
+    for (EZMQXTopic topic : current.values()) {
+      EZMQXTopic previous = known.get(topic.getName());
+      if (null == previous) {
+        onAdded(watch, topic);
+      } else if (!isSame(previous, topic)) {
+        onChanged(watch, topic);
+      }
+    }
+    for (EZMQXTopic topic : known.values()) {
+      if (!current.containsKey(topic.getName())) {
+        onRemoved(watch, topic);
+      }
+    }
+  }
+
+  private boolean isSame(EZMQXTopic first, EZMQXTopic second) {
+    return first.isSecured() == second.isSecured()
+        && first.getDatamodel().equals(second.getDatamodel())
+        && first.getEndPoint().toString().equals(second.getEndPoint().toString());
+  }
+
+  private void onAdded(Watch watch, EZMQXTopic topic) {
+    TopicCache.getInstance().invalidate(topic.getName());
+    if (null != watch.mSubscriber) {
+      try {
+        watch.mSubscriber.subscribe(topic);
+      } catch (EZMQXException e) {
+        // topic given on creation of the subscriber
+        if (EZMQXErrorCode.DuplicatedTopic != e.getCode()) {
+          notifyError(watch, e.getCode());
+        }
+      }
+    }
+    if (null != watch.mCallback) {
+      try {
+        watch.mCallback.onTopicAdded(watch.mPrefix, topic);
+      } catch (RuntimeException e) {
+        logger.error("Callback failed, topic: " + topic.getName() + " " + e.getMessage());
+      }
+    }
+  }
+
+  private void onChanged(Watch watch, EZMQXTopic topic) {
+    TopicCache.getInstance().invalidate(topic.getName());
+    if (null != watch.mSubscriber) {
+      try {
+        unsubscribe(watch.mSubscriber, topic);
+        watch.mSubscriber.subscribe(topic);
+      } catch (EZMQXException e) {
+        notifyError(watch, e.getCode());
+      }
+    }
+    if (null != watch.mCallback) {
+      try {
+        watch.mCallback.onTopicChanged(watch.mPrefix, topic);
+      } catch (RuntimeException e) {
+        logger.error("Callback failed, topic: " + topic.getName() + " " + e.getMessage());
+      }
+    }
+  }
+
+  private void onRemoved(Watch watch, EZMQXTopic topic) {
+    TopicCache.getInstance().invalidate(topic.getName());
+    if (null != watch.mSubscriber) {
+      try {
+        unsubscribe(watch.mSubscriber, topic);
+      } catch (EZMQXException e) {
+        notifyError(watch, e.getCode());
+      }
+    }
+    if (null != watch.mCallback) {
+      try {
+        watch.mCallback.onTopicRemoved(watch.mPrefix, topic);
+      } catch (RuntimeException e) {
+        logger.error("Callback failed, topic: " + topic.getName() + " " + e.getMessage());
+      }
+    }
+  }
+
+  // Topic may have been unsubscribed by the user already.
+  private void unsubscribe(EZMQXSubscriber subscriber, EZMQXTopic topic) throws EZMQXException {
+    try {
+      subscriber.unsubscribe(topic);
+    } catch (EZMQXException e) {
+      if (EZMQXErrorCode.UnknownTopic != e.getCode()) {
+        throw e;
+      }
+    }
+  }
+
+  private void notifyError(List<Watch> group, EZMQXErrorCode errorCode) {
+    for (Watch watch : group) {
+      notifyError(watch, errorCode);
+    }
+  }
+
+  private void notifyError(Watch watch, EZMQXErrorCode errorCode) {
+    if (null == watch.mCallback) {
+      logger.debug("Watch error, prefix: " + watch.mPrefix + " " + errorCode);
+      return;
+    }
+    try {
+      watch.mCallback.onError(watch.mPrefix, errorCode);
+    } catch (RuntimeException e) {
+      logger.error("Callback failed, prefix: " + watch.mPrefix + " " + e.getMessage());
+    }
+  }
+
+  /**
+   * Get number of queries sent to TNS.
+   *
+   * @return Query count.
+   */
+  public long getQueryCount() {
+    return mQueryCount.get();
+  }
+
+  /**
+   * Get number of queries answered by TNS without topics, as nothing changed since previous
+   * query.
+   *
+   * @return Not modified count.
+   */
+  public long getNotModifiedCount() {
+    return mNotModifiedCount.get();
+  }
+
+  /**
+   * Terminate EZMQX topic watcher, watched subscribers are not terminated.
+   *
+   */
+  public synchronized void terminate() throws EZMQXException {
+    if (mTerminated) {
+      throw new EZMQXException("Watcher already terminated", EZMQXErrorCode.Terminated);
+    }
+    mTimer.shutdownNow();
+    mWatches.clear();
+    mTerminated = true;
+  }
+}
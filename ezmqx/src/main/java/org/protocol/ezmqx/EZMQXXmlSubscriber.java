@@ -22,9 +22,9 @@ import java.util.List;
 import java.util.Map;
 import org.datamodel.aml.AMLException;
 import org.datamodel.aml.AMLObject;
-import org.datamodel.aml.Representation;
 import org.edgexfoundry.ezmq.EZMQMessage;
 import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.protocol.ezmqx.internal.AmlCodec;
 
 /**
  * This class represents EZMQX XML subscriber. It provides APIs for
@@ -36,26 +36,26 @@ public class EZMQXXmlSubscriber extends EZMQXSubscriber {
 
   private EZMQXSubCallback mInternalCallback = new EZMQXSubCallback() {
     public void onMessage(String topic, EZMQMessage ezmqMessage) {
-      if (null == topic || topic.isEmpty() || (!(mAMLRepDic.containsKey(topic)))) {
+      AmlCodec codec = null == topic ? null : mCodecs.get(topic);
+      if (null == codec) {
         mSubCallback.onError(topic, EZMQXErrorCode.UnknownTopic);
         return;
       } else {
         AMLObject amlObject = null;
-        Representation representation = mAMLRepDic.get(topic);
-        if (null == representation) {
-          mSubCallback.onError(topic, EZMQXErrorCode.UnKnownState);
-          return;
-        }
         EZMQByteData byteData = (EZMQByteData) ezmqMessage;
         try {
-          amlObject = representation.ByteToData(byteData.getByteData());
-          String amlString = representation.DataToAml(amlObject);
+          amlObject = codec.decode(byteData.getByteData());
+          String amlString = codec.getRepresentation().DataToAml(amlObject);
           mSubCallback.onMessage(topic, amlString);
         } catch (AMLException e) {
           mSubCallback.onError(topic, EZMQXErrorCode.BrokenPayload);
         }
       }
     }
+
+    public void onError(String topic, EZMQXErrorCode errorCode) {
+      mSubCallback.onError(topic, errorCode);
+    }
   };
 
   /**
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.datamodel.aml.AMLData;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.datamodel.aml.Representation;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXAmlCodec;
+
+// Encoder/decoder of an AML model, created once per model when it is loaded and shared by
+// every publisher and subscriber of the model. Data is encoded by AML representation unless a
+// codec specialized for the model is set. Every call of the specialized codec is verified
+// against AML representation until AML_CODEC_VERIFY_CALLS calls of the same data shape [data
+// names, keys, value types and list sizes] matched, later calls of that shape use the codec
+// only. Codec is dropped on first mismatch. Calls of shapes above AML_CODEC_MAX_SHAPES are
+// always verified.
+public class AmlCodec {
+  private final Representation mRepresentation;
+  private volatile Verified mVerified;
+
+  private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(AmlCodec.class);
+
+  // codec with matched calls per data shape, replaced with the codec
+  private static class Verified {
+    private final EZMQXAmlCodec mCodec;
+    private final Map<String, AtomicInteger> mEncodeShapes;
+    private final Map<String, AtomicInteger> mDecodeShapes;
+
+    Verified(EZMQXAmlCodec codec) {
+      mCodec = codec;
+      mEncodeShapes = new ConcurrentHashMap<String, AtomicInteger>();
+      mDecodeShapes = new ConcurrentHashMap<String, AtomicInteger>();
+    }
+  }
+
+  public AmlCodec(Representation representation) {
+    mRepresentation = representation;
+  }
+
+  public Representation getRepresentation() {
+    return mRepresentation;
+  }
+
+  public synchronized void setCodec(EZMQXAmlCodec codec) {
+    mVerified = null == codec ? null : new Verified(codec);
+  }
+
+  public boolean isSpecialized() {
+    return null != mVerified;
+  }
+
+  public byte[] encode(AMLObject data) throws AMLException {
+    Verified verified = mVerified;
+    if (null == verified) {
+      return mRepresentation.DataToByte(data);
+    }
+    String shape = getShape(data);
+    if (isProven(verified.mEncodeShapes, shape)) {
+      return verified.mCodec.encode(data);
+    }
+    byte[] expected = mRepresentation.DataToByte(data);
+    byte[] encoded = null;
+    try {
+      encoded = verified.mCodec.encode(data);
+    } catch (AMLException | RuntimeException e) {
+      logger.debug("Codec could not encode: " + e.getMessage());
+    }
+    if (Arrays.equals(expected, encoded)) {
+      matched(verified.mEncodeShapes, shape);
+    } else {
+      disable(verified, "encode");
+    }
+    return expected;
+  }
+
+  // Decoded data is compared with data decoded by AML representation field by field. Data which
+  // AML representation can not decode either does not drop the codec.
+  public AMLObject decode(byte[] data) throws AMLException {
+    Verified verified = mVerified;
+    if (null == verified) {
+      return mRepresentation.ByteToData(data);
+    }
+    AMLObject decoded = null;
+    try {
+      decoded = verified.mCodec.decode(data);
+    } catch (AMLException | RuntimeException e) {
+      logger.debug("Codec could not decode: " + e.getMessage());
+    }
+    String shape = null == decoded ? null : getShape(decoded);
+    if (isProven(verified.mDecodeShapes, shape)) {
+      return decoded;
+    }
+    AMLObject expected = mRepresentation.ByteToData(data);
+    if (null != decoded && isEqual(expected, decoded)) {
+      matched(verified.mDecodeShapes, shape);
+      return decoded;
+    }
+    disable(verified, "decode");
+    return expected;
+  }
+
+  private static boolean isProven(Map<String, AtomicInteger> shapes, String shape) {
+    if (null == shape) {
+      return false;
+    }
+    AtomicInteger count = shapes.get(shape);
+    return null != count && count.get() >= Utils.AML_CODEC_VERIFY_CALLS;
+  }
+
+  private static void matched(Map<String, AtomicInteger> shapes, String shape) {
+    if (null == shape) {
+      return;
+    }
+    AtomicInteger count = shapes.get(shape);
+    if (null == count) {
+      if (shapes.size() >= Utils.AML_CODEC_MAX_SHAPES) {
+        return;
+      }
+      count = shapes.computeIfAbsent(shape, key -> new AtomicInteger(0));
+    }
+    count.incrementAndGet();
+  }
+
+  // Structure of the data without values, null if it could not be read. Names are prefixed
+  // with their length so that different structures do not give the same shape.
+  private static String getShape(AMLObject data) {
+    StringBuilder shape = new StringBuilder();
+    try {
+      List<String> names = data.getDataNames();
+      if (null != names) {
+        for (String name : names) {
+          appendName(shape, name);
+          appendShape(shape, data.getData(name));
+        }
+      }
+    } catch (AMLException | RuntimeException e) {
+      return null;
+    }
+    return shape.toString();
+  }
+
+  private static void appendShape(StringBuilder shape, AMLData data) throws AMLException {
+    shape.append('{');
+    if (null != data && null != data.getKeys()) {
+      for (String key : data.getKeys()) {
+        appendName(shape, key);
+        AMLData.ValueType type = data.getValueType(key);
+        shape.append(type);
+        if (AMLData.ValueType.STRING_LIST == type) {
+          List<String> values = data.getValueToStrList(key);
+          shape.append(null == values ? 0 : values.size());
+        } else if (AMLData.ValueType.AMLDATA == type) {
+          appendShape(shape, data.getValueToAMLData(key));
+        }
+      }
+    }
+    shape.append('}');
+  }
+
+  private static void appendName(StringBuilder shape, String name) {
+    shape.append(name.length()).append(':').append(name);
+  }
+
+  private static boolean isEqual(AMLObject expected, AMLObject actual) {
+    try {
+      if (!Objects.equals(expected.getDeviceId(), actual.getDeviceId())
+          || !Objects.equals(expected.getTimeStamp(), actual.getTimeStamp())
+          || !Objects.equals(expected.getId(), actual.getId())) {
+        return false;
+      }
+      List<String> names = expected.getDataNames();
+      if (!Objects.equals(names, actual.getDataNames())) {
+        return false;
+      }
+      if (null != names) {
+        for (String name : names) {
+          if (!isEqual(expected.getData(name), actual.getData(name))) {
+            return false;
+          }
+        }
+      }
+      return true;
+    } catch (AMLException | RuntimeException e) {
+      return false;
+    }
+  }
+
+  private static boolean isEqual(AMLData expected, AMLData actual) throws AMLException {
+    if (null == expected || null == actual) {
+      return expected == actual;
+    }
+    List<String> keys = expected.getKeys();
+    if (!Objects.equals(keys, actual.getKeys())) {
+      return false;
+    }
+    if (null == keys) {
+      return true;
+    }
+    for (String key : keys) {
+      AMLData.ValueType type = expected.getValueType(key);
+      if (type != actual.getValueType(key)) {
+        return false;
+      }
+      if (AMLData.ValueType.STRING == type) {
+        if (!Objects.equals(expected.getValueToStr(key), actual.getValueToStr(key))) {
+          return false;
+        }
+      } else if (AMLData.ValueType.STRING_LIST == type) {
+        if (!Objects.equals(expected.getValueToStrList(key), actual.getValueToStrList(key))) {
+          return false;
+        }
+      } else if (!isEqual(expected.getValueToAMLData(key), actual.getValueToAMLData(key))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private synchronized void disable(Verified verified, String operation) {
+    if (verified != mVerified) {
+      return;
+    }
+    mVerified = null;
+    String amlModelId = null;
+    try {
+      amlModelId = mRepresentation.getRepresentationId();
+    } catch (AMLException e) {
+      // id is only logged
+    }
+    logger.error("Codec does not match AML model on " + operation + ", not used for model: "
+        + amlModelId);
+  }
+}
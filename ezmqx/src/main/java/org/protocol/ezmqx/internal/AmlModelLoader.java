@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.Representation;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+
+// Parses AML model files in parallel. Parsed representations are kept by SHA-256 of the file
+// content, so the same model is parsed once per process even if it is added again from another
+// path or after reset.
+public class AmlModelLoader {
+  private static AmlModelLoader mInstance;
+  private ConcurrentHashMap<String, Representation> mRepresentations;
+  private ForkJoinPool mPool;
+  private int mParallelism;
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(AmlModelLoader.class);
+
+  private AmlModelLoader() {
+    mRepresentations = new ConcurrentHashMap<String, Representation>();
+    mParallelism = Utils.AML_LOAD_PARALLELISM;
+  }
+
+  public static synchronized AmlModelLoader getInstance() {
+    if (null == mInstance) {
+      mInstance = new AmlModelLoader();
+    }
+    return mInstance;
+  }
+
+  // Parallelism 1 parses files one by one on the calling thread.
+  public synchronized void configure(int parallelism) {
+    mParallelism = parallelism;
+    if (null != mPool) {
+      mPool.shutdown();
+      mPool = null;
+    }
+  }
+
+  // Representations in order of given files, fails if any of the files could not be parsed.
+  public List<Representation> load(List<String> amlFilePath) throws EZMQXException {
+    List<Representation> representations = new ArrayList<Representation>();
+    ForkJoinPool pool = getPool(amlFilePath.size());
+    if (null == pool) {
+      for (String filePath : amlFilePath) {
+        representations.add(load(filePath));
+      }
+      return representations;
+    }
+    List<Callable<Representation>> tasks = new ArrayList<Callable<Representation>>();
+    for (String filePath : amlFilePath) {
+      tasks.add(new Callable<Representation>() {
+        public Representation call() throws EZMQXException {
+          return load(filePath);
+        }
+      });
+    }
+    for (Future<Representation> future : pool.invokeAll(tasks)) {
+      try {
+        representations.add(future.get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof EZMQXException) {
+          throw (EZMQXException) e.getCause();
+        }
+        throw new EZMQXException("Could not parse aml model file",
+            EZMQXErrorCode.InvalidAmlModel);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new EZMQXException("Interrupted", EZMQXErrorCode.UnKnownState);
+      }
+    }
+    return representations;
+  }
+
+  // Evicted model is parsed again when added next time.
+  public void evict(Representation representation) {
+    mRepresentations.values().remove(representation);
+  }
+
+  private synchronized ForkJoinPool getPool(int files) {
+    if (files < 2 || mParallelism < 2) {
+      return null;
+    }
+    if (null == mPool) {
+      mPool = new ForkJoinPool(mParallelism);
+    }
+    return mPool;
+  }
+
+  private Representation load(String filePath) throws EZMQXException {
+    logger.debug("AMLFile Path: " + filePath);
+    String hash;
+    try {
+      hash = hash(Files.readAllBytes(Paths.get(filePath)));
+    } catch (IOException | RuntimeException e) {
+      throw new EZMQXException("Could not parse aml model file", EZMQXErrorCode.InvalidAmlModel);
+    }
+    Representation representation = mRepresentations.get(hash);
+    if (null != representation) {
+      logger.debug("AML model already parsed: " + filePath);
+      return representation;
+    }
+    try {
+      representation = new Representation(filePath);
+    } catch (AMLException exception) {
+      throw new EZMQXException("Could not parse aml model file", EZMQXErrorCode.InvalidAmlModel);
+    }
+    // same content parsed concurrently, first one wins
+    Representation previous = mRepresentations.putIfAbsent(hash, representation);
+    return null == previous ? representation : previous;
+  }
+
+  private static String hash(byte[] content) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform implements SHA-256
+      throw new IllegalStateException(e);
+    }
+    StringBuilder hash = new StringBuilder();
+    for (byte value : digest.digest(content)) {
+      hash.append(Character.forDigit((value >> 4) & 0xF, 16));
+      hash.append(Character.forDigit(value & 0xF, 16));
+    }
+    return hash.toString();
+  }
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.Representation;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXAmlCodec;
+import org.protocol.ezmqx.EZMQXAmlModelProvider;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+
+// AML models by model id. Models are referenced by publishers and subscribers using them,
+// unreferenced models are evicted least recently used first once size of loaded model files
+// exceeds the budget. Unknown or evicted model ids are resolved lazily from the file the model
+// was loaded from, the model provider or model directories.
+public class AmlModelRegistry {
+  private static final String AML_SUFFIX = ".aml";
+  // access ordered, guarded by this
+  private LinkedHashMap<String, Model> mModels;
+  // model id -> file of every model loaded since clear, evicted models are reloaded from it
+  private Map<String, String> mPaths;
+  // files of model directories already loaded
+  private Set<String> mScanned;
+  private List<String> mDirectories;
+  private EZMQXAmlModelProvider mProvider;
+  // model id -> codec specialized for the model
+  private Map<String, EZMQXAmlCodec> mCodecs;
+  private long mBudget;
+  private long mSize;
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(AmlModelRegistry.class);
+
+  private static class Model {
+    private final AmlCodec mCodec;
+    private final long mSize;
+    private int mReferences;
+
+    Model(AmlCodec codec, long size) {
+      mCodec = codec;
+      mSize = size;
+    }
+  }
+
+  public AmlModelRegistry() {
+    mModels = new LinkedHashMap<String, Model>(16, 0.75f, true);
+    mPaths = new HashMap<String, String>();
+    mScanned = new HashSet<String>();
+    mDirectories = new ArrayList<String>();
+    mCodecs = new HashMap<String, EZMQXAmlCodec>();
+    mBudget = Utils.AML_MODEL_BUDGET;
+  }
+
+  public synchronized void addDirectory(String directory) {
+    if (!mDirectories.contains(directory)) {
+      mDirectories.add(directory);
+    }
+  }
+
+  public synchronized void setProvider(EZMQXAmlModelProvider provider) {
+    mProvider = provider;
+  }
+
+  // Codec is used for the model once loaded, null removes it.
+  public synchronized void setCodec(String amlModelId, EZMQXAmlCodec codec) {
+    if (null == codec) {
+      mCodecs.remove(amlModelId);
+    } else {
+      mCodecs.put(amlModelId, codec);
+    }
+    Model model = mModels.get(amlModelId);
+    if (null != model) {
+      model.mCodec.setCodec(codec);
+    }
+  }
+
+  // Budget in bytes of loaded model files, native memory of a parsed model is not measurable.
+  public synchronized void setBudget(long budget) {
+    mBudget = budget;
+    evict();
+  }
+
+  // Model ids in order of given files, first model of an id is kept.
+  public synchronized List<String> add(List<String> amlFilePath) throws EZMQXException {
+    List<String> modelIds = new ArrayList<String>();
+    if (null == amlFilePath || amlFilePath.isEmpty()) {
+      return modelIds;
+    }
+    List<Representation> representations = AmlModelLoader.getInstance().load(amlFilePath);
+    for (int i = 0; i < representations.size(); i++) {
+      modelIds.add(put(amlFilePath.get(i), representations.get(i)));
+    }
+    evict();
+    return modelIds;
+  }
+
+  public synchronized Representation get(String amlModelId) throws EZMQXException {
+    return resolve(amlModelId).mCodec.getRepresentation();
+  }
+
+  public synchronized AmlCodec acquire(String amlModelId) throws EZMQXException {
+    Model model = resolve(amlModelId);
+    model.mReferences++;
+    evict();
+    return model.mCodec;
+  }
+
+  public synchronized void release(String amlModelId) {
+    Model model = null == amlModelId ? null : mModels.get(amlModelId);
+    if (null == model || 0 == model.mReferences) {
+      return;
+    }
+    model.mReferences--;
+    evict();
+  }
+
+  public synchronized boolean isLoaded(String amlModelId) {
+    return mModels.containsKey(amlModelId);
+  }
+
+  public synchronized int getReferenceCount(String amlModelId) {
+    Model model = mModels.get(amlModelId);
+    return null == model ? 0 : model.mReferences;
+  }
+
+  // Configuration [directories, provider, codecs and budget] is kept.
+  public synchronized void clear() {
+    mModels.clear();
+    mPaths.clear();
+    mScanned.clear();
+    mSize = 0;
+  }
+
+  private Model resolve(String amlModelId) throws EZMQXException {
+    if (null == amlModelId) {
+      throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.InvalidAmlModel);
+    }
+    Model model = mModels.get(amlModelId);
+    if (null != model) {
+      return model;
+    }
+    String path = mPaths.get(amlModelId);
+    if (null == path && null != mProvider) {
+      path = mProvider.getAmlFilePath(amlModelId);
+    }
+    if (null != path) {
+      logger.debug("Loading aml model: " + amlModelId + " from: " + path);
+      load(Collections.singletonList(path));
+    } else {
+      scanDirectories();
+    }
+    model = mModels.get(amlModelId);
+    if (null == model) {
+      throw new EZMQXException("AML rep dict does not contain: " + amlModelId,
+          EZMQXErrorCode.InvalidAmlModel);
+    }
+    return model;
+  }
+
+  private void scanDirectories() {
+    for (String directory : mDirectories) {
+      File[] files = new File(directory).listFiles(new FilenameFilter() {
+        public boolean accept(File dir, String name) {
+          return name.endsWith(AML_SUFFIX);
+        }
+      });
+      if (null == files) {
+        logger.debug("Could not list aml model directory: " + directory);
+        continue;
+      }
+      List<String> paths = new ArrayList<String>();
+      for (File file : files) {
+        if (mScanned.add(file.getPath())) {
+          paths.add(file.getPath());
+        }
+      }
+      load(paths);
+    }
+  }
+
+  // Invalid files are skipped, a single one would otherwise fail every other file of the batch.
+  private void load(List<String> paths) {
+    if (paths.isEmpty()) {
+      return;
+    }
+    try {
+      List<Representation> representations = AmlModelLoader.getInstance().load(paths);
+      for (int i = 0; i < representations.size(); i++) {
+        put(paths.get(i), representations.get(i));
+      }
+      return;
+    } catch (EZMQXException e) {
+      logger.debug("Could not load aml models in batch: " + e.getMsg());
+    }
+    for (String path : paths) {
+      try {
+        put(path, AmlModelLoader.getInstance().load(Collections.singletonList(path)).get(0));
+      } catch (EZMQXException e) {
+        logger.error("Could not load aml model: " + path + " " + e.getMsg());
+      }
+    }
+  }
+
+  private String put(String path, Representation representation) throws EZMQXException {
+    String amlModelId;
+    try {
+      amlModelId = representation.getRepresentationId();
+    } catch (AMLException exception) {
+      throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.InvalidParam);
+    }
+    if (!mPaths.containsKey(amlModelId)) {
+      mPaths.put(amlModelId, path);
+    }
+    if (!mModels.containsKey(amlModelId)) {
+      long size = new File(path).length();
+      AmlCodec codec = new AmlCodec(representation);
+      codec.setCodec(mCodecs.get(amlModelId));
+      mModels.put(amlModelId, new Model(codec, size));
+      mSize += size;
+    }
+    return amlModelId;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Model>> iterator = mModels.entrySet().iterator();
+    while (mSize > mBudget && iterator.hasNext()) {
+      Map.Entry<String, Model> entry = iterator.next();
+      Model model = entry.getValue();
+      if (model.mReferences > 0) {
+        continue;
+      }
+      iterator.remove();
+      mSize -= model.mSize;
+      AmlModelLoader.getInstance().evict(model.mCodec.getRepresentation());
+      logger.debug("Evicted aml model: " + entry.getKey());
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+// State resolved by docker mode bootstrap from Pharos node and anchor. Persisted to a local file
+// so that a restarted container can start without waiting for discovery.
+public class BootstrapSnapshot {
+  // to be increased on any change of the persisted format
+  public static final int VERSION = 1;
+  private static final String VERSION_KEY = "version";
+  private static final String HOSTNAME_KEY = "hostname";
+  private static final String HOST_ADDR_KEY = "hostaddress";
+  private static final String ANCHOR_ADDR_KEY = "anchoraddress";
+  private static final String TNS_ADDR_KEY = "tnsaddress";
+  private static final String REVERSE_PROXY_KEY = "reverseproxy";
+  private static final String PORTS_KEY = "ports";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  String mHostname;
+  String mHostAddr;
+  String mAnchorAddr;
+  String mTnsAddr;
+  boolean mReverseProxyEnabled;
+  // container port -> host port, filled concurrently by app info responses
+  Map<Integer, Integer> mPorts = new ConcurrentHashMap<Integer, Integer>();
+
+  private final static EdgeXLogger logger =
+      EdgeXLoggerFactory.getEdgeXLogger(BootstrapSnapshot.class);
+
+  // Null if the file does not exist, could not be read or is of another version.
+  public static BootstrapSnapshot load(String path) {
+    File file = new File(path);
+    if (!file.isFile()) {
+      return null;
+    }
+    JsonNode root;
+    try {
+      root = JsonUtils.getMapper().readTree(file);
+    } catch (IOException e) {
+      logger.debug("Could not read bootstrap snapshot: " + e.getMessage());
+      return null;
+    }
+    if (VERSION != root.path(VERSION_KEY).asInt()) {
+      logger.debug("Bootstrap snapshot version mismatch: " + root.path(VERSION_KEY));
+      return null;
+    }
+    BootstrapSnapshot snapshot = new BootstrapSnapshot();
+    snapshot.mHostname = root.path(HOSTNAME_KEY).asText();
+    snapshot.mHostAddr = root.path(HOST_ADDR_KEY).asText();
+    snapshot.mAnchorAddr = root.path(ANCHOR_ADDR_KEY).asText();
+    snapshot.mTnsAddr = root.path(TNS_ADDR_KEY).asText();
+    snapshot.mReverseProxyEnabled = root.path(REVERSE_PROXY_KEY).asBoolean();
+    Iterator<Map.Entry<String, JsonNode>> ports = root.path(PORTS_KEY).fields();
+    try {
+      while (ports.hasNext()) {
+        Map.Entry<String, JsonNode> port = ports.next();
+        snapshot.mPorts.put(Integer.parseInt(port.getKey()), port.getValue().asInt());
+      }
+    } catch (NumberFormatException e) {
+      logger.debug("Invalid port in bootstrap snapshot: " + e.getMessage());
+      return null;
+    }
+    return snapshot;
+  }
+
+  // Written to a temporary file and moved in place, a crash while saving never leaves a torn
+  // snapshot behind.
+  public void save(String path) throws IOException {
+    ObjectNode root = JsonUtils.getMapper().createObjectNode();
+    root.put(VERSION_KEY, VERSION);
+    root.put(HOSTNAME_KEY, mHostname);
+    root.put(HOST_ADDR_KEY, mHostAddr);
+    root.put(ANCHOR_ADDR_KEY, mAnchorAddr);
+    root.put(TNS_ADDR_KEY, mTnsAddr);
+    root.put(REVERSE_PROXY_KEY, mReverseProxyEnabled);
+    ObjectNode ports = root.putObject(PORTS_KEY);
+    for (Map.Entry<Integer, Integer> port : mPorts.entrySet()) {
+      ports.put(String.valueOf(port.getKey()), port.getValue());
+    }
+    File file = new File(path);
+    File temp = new File(path + TEMP_SUFFIX);
+    JsonUtils.getMapper().writeValue(temp, root);
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp.toPath());
+      throw e;
+    }
+  }
+
+  public String getHostname() {
+    return mHostname;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof BootstrapSnapshot)) {
+      return false;
+    }
+    BootstrapSnapshot other = (BootstrapSnapshot) object;
+    return equals(mHostname, other.mHostname) && equals(mHostAddr, other.mHostAddr)
+        && equals(mAnchorAddr, other.mAnchorAddr) && equals(mTnsAddr, other.mTnsAddr)
+        && mReverseProxyEnabled == other.mReverseProxyEnabled && mPorts.equals(other.mPorts);
+  }
+
+  @Override
+  public int hashCode() {
+    return null == mTnsAddr ? mPorts.hashCode() : mTnsAddr.hashCode() ^ mPorts.hashCode();
+  }
+
+  private static boolean equals(String first, String second) {
+    return null == first ? null == second : first.equals(second);
+  }
+}
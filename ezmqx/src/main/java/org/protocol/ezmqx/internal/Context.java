@@ -22,12 +22,17 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
-import org.datamodel.aml.AMLException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.datamodel.aml.Representation;
 import org.edgexfoundry.ezmq.EZMQAPI;
 import org.edgexfoundry.ezmq.EZMQErrorCode;
@@ -39,37 +44,39 @@ import org.protocol.ezmqx.EZMQXException;
 import org.protocol.ezmqx.internal.RestUtils;
 import org.protocol.ezmqx.internal.TopicHandler;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class Context {
   private static Context mInstance;
-  private String mHostname;
-  private String mHostAddr;
+  private volatile String mHostname;
+  private volatile String mHostAddr;
   private boolean mStandAlone;
   private boolean mTnsEnabled;
   private AtomicBoolean mInitialized;
   private AtomicBoolean mTerminated;
   private AtomicBoolean mReverseProxyEnabled;
-  private String mAnchorAddr;
-  private String mTnsAddr;
+  private volatile String mAnchorAddr;
+  private volatile String mTnsAddr;
   private String mTnsImageName;
-  private Map<String, Representation> mAMLRepDic;
-  private int mNumOfPort;
-  private int mUsedIdx;
-  private Map<Integer, Boolean> mUsedPorts;
+  private AmlModelRegistry mAmlModels;
+  private volatile PortAllocator mPortAllocator;
   private Map<Integer, Integer> mPorts;
+  // incremented on every initialize and terminate, revalidation of an earlier initialize does
+  // not apply its state
+  private AtomicInteger mGeneration;
+  // set while a warm start snapshot is revalidated, host end points are not given out until
+  // the discovered state is applied, guarded by this
+  private boolean mRevalidating;
 
   private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(Context.class);
 
   private Context() {
-    mAMLRepDic = new ConcurrentHashMap<String, Representation>();
-    mUsedPorts = new HashMap<Integer, Boolean>();
-    mPorts = new HashMap<Integer, Integer>();
+    mAmlModels = new AmlModelRegistry();
+    mPortAllocator = new PortAllocator(Utils.LOCAL_PORT_START, Utils.LOCAL_PORT_MAX);
+    mPorts = new ConcurrentHashMap<Integer, Integer>();
     mInitialized = new AtomicBoolean(false);
     mTerminated = new AtomicBoolean(false);
+    mGeneration = new AtomicInteger(0);
     mReverseProxyEnabled = new AtomicBoolean(false);
-    mUsedIdx = 0;
-    mNumOfPort = 0;
     mStandAlone = false;
     mTnsEnabled = false;
   }
@@ -116,44 +123,49 @@ public class Context {
     return mTnsAddr;
   }
 
+  // Range of local ports assigned to publishers, to be set before initialization as previously
+  // assigned ports are forgotten.
+  public void setPortRange(int start, int size) {
+    mPortAllocator = new PortAllocator(start, size);
+  }
+
   public int assignDynamicPort() throws EZMQXException {
-    int port = 0;
-    while (true) {
-      if (mNumOfPort >= Utils.LOCAL_PORT_MAX) {
-        throw new EZMQXException("Could not assign port", EZMQXErrorCode.MaximumPortExceed);
-      }
-      int key = Utils.LOCAL_PORT_START + mUsedIdx;
-      if (mUsedPorts.containsKey(key)
-          && true == mUsedPorts.get(Utils.LOCAL_PORT_START + mUsedIdx)) {
-        mUsedIdx++;
-        if (mUsedIdx > Utils.LOCAL_PORT_MAX) {
-          mUsedIdx = 0;
-        }
-      } else {
-        mUsedPorts.put(key, true);
-        port = key;
-        mNumOfPort++;
-        break;
-      }
+    int port = mPortAllocator.allocate();
+    if (port < 0) {
+      throw new EZMQXException("Could not assign port", EZMQXErrorCode.MaximumPortExceed);
     }
     logger.debug("assigned dynamic Port: " + port);
     return port;
   }
 
   public void releaseDynamicPort(int port) throws EZMQXException {
-    if (mUsedPorts.containsKey(port) && mUsedPorts.get(port)) {
-      mUsedPorts.put(port, false);
-      mNumOfPort--;
-    } else {
+    if (!mPortAllocator.release(port)) {
       throw new EZMQXException("Could not release port", EZMQXErrorCode.ReleaseWrongPort);
     }
   }
 
-  public EZMQXEndPoint getHostEp(int port) throws EZMQXException {
+  // Container ports without host mapping are not reachable from other nodes, exclude them from
+  // allocation so that every assigned port has a host end point.
+  private void reserveUnmappedPorts() {
+    List<Integer> mapped = new ArrayList<Integer>(mPorts.keySet());
+    Collections.sort(mapped);
+    int from = mPortAllocator.getStart();
+    for (int port : mapped) {
+      mPortAllocator.reserveRange(from, port - 1);
+      from = port + 1;
+    }
+    mPortAllocator.reserveRange(from, Utils.LOCAL_PORT_END);
+  }
+
+  // In docker mode host end point is advertised to TNS, on warm start it waits for revalidation
+  // of the snapshot [bounded by docker bootstrap timeout] so that topics are not registered
+  // with outdated host address or port mapping.
+  public synchronized EZMQXEndPoint getHostEp(int port) throws EZMQXException {
     int hostPort = 0;
     if (mStandAlone) {
       hostPort = port;
     } else {
+      awaitRevalidation();
       if (mPorts.containsKey(port)) {
         hostPort = mPorts.get(port);
       }
@@ -165,52 +177,48 @@ public class Context {
     return endPoint;
   }
 
-  public List<String> addAmlRep(List<String> amlFilePath) throws EZMQXException {
-    List<String> modelId = new ArrayList<String>();
-    String amlModelId;
-
-    if (null == amlFilePath || amlFilePath.isEmpty()) {
-      return modelId;
-    }
-    for (String filePath : amlFilePath) {
-      Representation representation = null;
-      try {
-        logger.debug("AMLFile Path: " + filePath);
-        representation = new Representation(filePath);
-      } catch (AMLException exception) {
-        throw new EZMQXException("Could not parse aml model file", EZMQXErrorCode.InvalidAmlModel);
-      }
+  private synchronized void awaitRevalidation() throws EZMQXException {
+    while (mRevalidating) {
       try {
-        amlModelId = representation.getRepresentationId();
-      } catch (AMLException exception) {
-        throw new EZMQXException("Invalid aml model id", EZMQXErrorCode.InvalidParam);
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new EZMQXException("Interrupted on snapshot revalidation",
+            EZMQXErrorCode.UnKnownState);
       }
-
-      if (!(mAMLRepDic.containsKey(amlModelId))) {
-        mAMLRepDic.put(amlModelId, representation);
-      }
-      modelId.add(amlModelId);
     }
-    return modelId;
+  }
+
+  private synchronized void endRevalidation() {
+    mRevalidating = false;
+    notifyAll();
+  }
+
+  public List<String> addAmlRep(List<String> amlFilePath) throws EZMQXException {
+    return mAmlModels.add(amlFilePath);
   }
 
   public Representation getAmlRep(String amlModelId) throws EZMQXException {
-    if (!(mAMLRepDic.containsKey(amlModelId))) {
-      throw new EZMQXException("AML rep dict does not contain: " + amlModelId,
-          EZMQXErrorCode.InvalidAmlModel);
-    }
-    Representation rep = mAMLRepDic.get(amlModelId);
-    if (null == rep) {
-      throw new EZMQXException("Could not find matching Aml Rep", EZMQXErrorCode.UnknownAmlModel);
-    }
-    return rep;
+    return mAmlModels.get(amlModelId);
+  }
+
+  // Model is kept loaded until every acquire is released.
+  public AmlCodec acquireAmlModel(String amlModelId) throws EZMQXException {
+    return mAmlModels.acquire(amlModelId);
+  }
+
+  public void releaseAmlModel(String amlModelId) {
+    mAmlModels.release(amlModelId);
+  }
+
+  public AmlModelRegistry getAmlModelRegistry() {
+    return mAmlModels;
   }
 
   private void readImageName(String tnsConfPath) throws EZMQXException {
-    ObjectMapper objectMapper = new ObjectMapper();
     JsonNode configNode;
     try {
-      configNode = objectMapper.readTree(new File(tnsConfPath));
+      configNode = JsonUtils.getMapper().readTree(new File(tnsConfPath));
     } catch (Exception e) {
       throw new EZMQXException("Could not read image name from file", EZMQXErrorCode.RestError);
     }
@@ -245,27 +253,27 @@ public class Context {
     mTnsAddr = tnsAddr;
   }
 
-  private void parseConfigResponse(RestResponse response) throws EZMQXException {
+  private void parseConfigResponse(RestResponse response, BootstrapSnapshot snapshot)
+      throws EZMQXException {
     logger.debug("[Config] Status code: " + response.getStatusCode());
     String jsonString = response.getResponse();
     logger.debug("[Config] Response: " + jsonString);
 
-    ObjectMapper mapper = new ObjectMapper();
     JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      root = JsonUtils.getMapper().readTree(jsonString);
     } catch (IOException e) {
       throw new EZMQXException("Could not parse config response", EZMQXErrorCode.RestError);
     }
     JsonNode propertiesNode = root.path(RestUtils.CONF_PROPS);
     for (JsonNode node : propertiesNode) {
       if (node.has(RestUtils.CONF_ANCHOR_ADDR)) {
-        mAnchorAddr = node.path(RestUtils.CONF_ANCHOR_ADDR).asText();
-        logger.debug("[Config] anchoraddress: " + mAnchorAddr);
+        snapshot.mAnchorAddr = node.path(RestUtils.CONF_ANCHOR_ADDR).asText();
+        logger.debug("[Config] anchoraddress: " + snapshot.mAnchorAddr);
       }
       if (node.has(RestUtils.CONF_NODE_ADDR)) {
-        mHostAddr = node.path(RestUtils.CONF_NODE_ADDR).asText();
-        logger.debug("[Config] nodeaddress: " + mHostAddr);
+        snapshot.mHostAddr = node.path(RestUtils.CONF_NODE_ADDR).asText();
+        logger.debug("[Config] nodeaddress: " + snapshot.mHostAddr);
       }
     }
   }
@@ -283,15 +291,15 @@ public class Context {
     return isProxyEnabled;
   }
 
-  private void parseTnsInfoResponse(RestResponse response) throws EZMQXException {
+  private void parseTnsInfoResponse(RestResponse response, BootstrapSnapshot snapshot)
+      throws EZMQXException {
     logger.debug("[TNS info] Status code: " + response.getStatusCode());
     String jsonString = response.getResponse();
     logger.debug("[TNS info] Response: " + jsonString);
 
-    ObjectMapper objectMapper = new ObjectMapper();
     JsonNode rootNode;
     try {
-      rootNode = objectMapper.readTree(jsonString);
+      rootNode = JsonUtils.getMapper().readTree(jsonString);
     } catch (Exception e) {
       throw new EZMQXException("Could not parse TNS info response", EZMQXErrorCode.RestError);
     }
@@ -321,24 +329,25 @@ public class Context {
       }
 
       if (isProxyEnabled) {
-        mTnsAddr = RestUtils.HTTP_PREFIX + ipAddr + RestUtils.COLON
+        snapshot.mTnsAddr = RestUtils.HTTP_PREFIX + ipAddr + RestUtils.COLON
             + RestUtils.REVERSE_PROXY_KNOWN_PORT + RestUtils.REVERSE_PROXY_PREFIX;
       } else {
-        mTnsAddr = RestUtils.HTTP_PREFIX + ipAddr + RestUtils.COLON + RestUtils.TNS_KNOWN_PORT;
+        snapshot.mTnsAddr =
+            RestUtils.HTTP_PREFIX + ipAddr + RestUtils.COLON + RestUtils.TNS_KNOWN_PORT;
       }
-      logger.debug(" TNS address is: " + mTnsAddr);
-      mReverseProxyEnabled.set(isProxyEnabled);
+      logger.debug(" TNS address is: " + snapshot.mTnsAddr);
+      snapshot.mReverseProxyEnabled = isProxyEnabled;
     }
   }
 
-  private void readHostName(String filePath) throws EZMQXException {
+  private String readHostName(String filePath) throws EZMQXException {
     logger.debug("File Path: " + filePath);
     BufferedReader bufferedReader = null;
     FileReader fileReader = null;
     try {
       fileReader = new FileReader(filePath);
       bufferedReader = new BufferedReader(fileReader);
-      mHostname = bufferedReader.readLine();
+      return bufferedReader.readLine();
     } catch (IOException e) {
       throw new EZMQXException("Could not read host name from file", EZMQXErrorCode.RestError);
     } finally {
@@ -359,10 +368,9 @@ public class Context {
     logger.debug("[Running apps] Response: " + jsonString);
 
     List<String> runningApps = new ArrayList<String>();
-    ObjectMapper mapper = new ObjectMapper();
     JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      root = JsonUtils.getMapper().readTree(jsonString);
     } catch (IOException e) {
       throw new EZMQXException("Could not parse running apps response", EZMQXErrorCode.RestError);
     }
@@ -385,7 +393,7 @@ public class Context {
     return runningApps;
   }
 
-  private void parsePortInfo(JsonNode node) {
+  private void parsePortInfo(JsonNode node, BootstrapSnapshot snapshot) {
     JsonNode ports;
     if (node.has(RestUtils.SERVICES_CON_PORTS)) {
       ports = node.path(RestUtils.SERVICES_CON_PORTS);
@@ -395,22 +403,22 @@ public class Context {
           int publicPort = port.path(RestUtils.PORTS_PUBLIC).asInt();
           if (privatePort > -1 && publicPort > -1) {
             logger.debug("Putting private port: " + privatePort + " Public Port: " + publicPort);
-            mPorts.put(privatePort, publicPort);
+            snapshot.mPorts.put(privatePort, publicPort);
           }
         }
       }
     }
   }
 
-  private void parseAppInfoResponse(RestResponse response) throws EZMQXException {
+  private void parseAppInfoResponse(RestResponse response, BootstrapSnapshot snapshot)
+      throws EZMQXException {
     logger.debug("[App info] Status code: " + response.getStatusCode());
     String jsonString = response.getResponse();
     logger.debug("[app info] Response: " + jsonString);
 
-    ObjectMapper mapper = new ObjectMapper();
     JsonNode root = null;
     try {
-      root = mapper.readTree(jsonString);
+      root = JsonUtils.getMapper().readTree(jsonString);
     } catch (IOException e) {
       throw new EZMQXException("Could not parse app info response", EZMQXErrorCode.RestError);
     }
@@ -419,64 +427,299 @@ public class Context {
     for (JsonNode node : services) {
       if (node.has(RestUtils.SERVICES_CON_ID)) {
         cid = node.path(RestUtils.SERVICES_CON_ID).asText();
-        cid = cid.substring(0, mHostname.length());
-        logger.debug("[app info] cid: " + cid + " host Name: " + mHostname);
-        if (cid.equals(mHostname)) {
-          parsePortInfo(node);
+        cid = cid.substring(0, snapshot.mHostname.length());
+        logger.debug("[app info] cid: " + cid + " host Name: " + snapshot.mHostname);
+        if (cid.equals(snapshot.mHostname)) {
+          parsePortInfo(node, snapshot);
         }
       }
     }
   }
 
   public void initializeDockerMode(String tnsConfPath) throws EZMQXException {
+    initializeDockerMode(tnsConfPath, null);
+  }
+
+  // With a snapshot saved by previous start of the same container, context starts from the
+  // snapshot and revalidates it in background. Otherwise state is discovered and saved to the
+  // snapshot path, if any, for the next start.
+  public void initializeDockerMode(String tnsConfPath, String snapshotPath)
+      throws EZMQXException {
     if (EZMQErrorCode.EZMQ_OK != EZMQAPI.getInstance().initialize()) {
       throw new EZMQXException("Could not start ezmq context", EZMQXErrorCode.UnKnownState);
     }
+    BootstrapSnapshot snapshot = loadSnapshot(snapshotPath);
+    boolean isWarmStart = null != snapshot;
+    if (isWarmStart) {
+      logger.debug("[Bootstrap] Start from snapshot: " + snapshotPath);
+    } else {
+      snapshot = discover(tnsConfPath);
+      saveSnapshot(snapshot, snapshotPath);
+    }
+    int generation;
+    synchronized (this) {
+      apply(snapshot);
+      mRevalidating = isWarmStart;
+      generation = mGeneration.incrementAndGet();
+    }
+    mTnsEnabled = true;
+    mInitialized.set(true);
+    mTerminated.set(false);
+    logger.debug("EZMQX Context created");
+    if (isWarmStart) {
+      startRevalidation(tnsConfPath, snapshotPath, snapshot, generation);
+    }
+  }
+
+  // Snapshot of another container [e.g. re-created with new host name] is not used.
+  private BootstrapSnapshot loadSnapshot(String snapshotPath) {
+    if (null == snapshotPath) {
+      return null;
+    }
+    BootstrapSnapshot snapshot = BootstrapSnapshot.load(snapshotPath);
+    if (null == snapshot) {
+      return null;
+    }
+    try {
+      String hostname = readHostName(RestUtils.HOSTNAME);
+      if (null != hostname && hostname.equals(snapshot.getHostname())) {
+        return snapshot;
+      }
+      logger.debug("[Bootstrap] Snapshot of other host: " + snapshot.getHostname());
+    } catch (EZMQXException e) {
+      logger.debug("[Bootstrap] Could not validate snapshot: " + e.getMsg());
+    }
+    return null;
+  }
+
+  private void saveSnapshot(BootstrapSnapshot snapshot, String snapshotPath) {
+    if (null == snapshotPath) {
+      return;
+    }
+    try {
+      snapshot.save(snapshotPath);
+    } catch (IOException e) {
+      logger.error("[Bootstrap] Could not save snapshot: " + e.getMessage());
+    }
+  }
+
+  // Ports reserved for a previous mapping stay reserved, a mapping of a running container does
+  // not change in practice.
+  private void apply(BootstrapSnapshot snapshot) {
+    mHostname = snapshot.mHostname;
+    mHostAddr = snapshot.mHostAddr;
+    mAnchorAddr = snapshot.mAnchorAddr;
+    mTnsAddr = snapshot.mTnsAddr;
+    mReverseProxyEnabled.set(snapshot.mReverseProxyEnabled);
+    mPorts.putAll(snapshot.mPorts);
+    mPorts.keySet().retainAll(snapshot.mPorts.keySet());
+    reserveUnmappedPorts();
+  }
+
+  private void startRevalidation(String tnsConfPath, String snapshotPath,
+      BootstrapSnapshot snapshot, int generation) {
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        revalidate(tnsConfPath, snapshotPath, snapshot, generation);
+      }
+    }, "EZMQXContext-revalidation");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  // On discovery failure [e.g. anchor not reachable yet] the snapshot is kept, discovered state
+  // replaces it if anything changed. No publisher has its host end point before this is done, so
+  // every topic is registered with the state in use.
+  private void revalidate(String tnsConfPath, String snapshotPath, BootstrapSnapshot snapshot,
+      int generation) {
+    BootstrapSnapshot discovered;
+    try {
+      discovered = discover(tnsConfPath);
+    } catch (EZMQXException e) {
+      logger.error("[Bootstrap] Could not revalidate snapshot: " + e.getMsg());
+      endRevalidation(generation);
+      return;
+    }
+    if (discovered.equals(snapshot)) {
+      logger.debug("[Bootstrap] Snapshot is valid");
+      endRevalidation(generation);
+      return;
+    }
+    synchronized (this) {
+      if (generation != mGeneration.get()) {
+        return;
+      }
+      logger.debug("[Bootstrap] Snapshot is outdated, TNS address: " + discovered.mTnsAddr);
+      apply(discovered);
+      TopicCache.getInstance().clear();
+      endRevalidation();
+    }
+    saveSnapshot(discovered, snapshotPath);
+  }
+
+  private synchronized void endRevalidation(int generation) {
+    if (generation == mGeneration.get()) {
+      endRevalidation();
+    }
+  }
+
+  private BootstrapSnapshot discover(String tnsConfPath) throws EZMQXException {
+    BootstrapSnapshot snapshot = new BootstrapSnapshot();
+    PendingRequests pending = new PendingRequests();
+    long start = System.nanoTime();
     try {
       //Read image name from TNS config file
       readImageName(tnsConfPath);
 
-      RestFactory restClient = RestFactory.getInstance();
-
-      // Configuration resource
-      String configURL = RestUtils.NODE + RestUtils.PREFIX + RestUtils.API_CONFIG;
-      logger.debug("[Config] Rest URL: " + configURL);
-      RestResponse configResponse = restClient.get(configURL);
-      parseConfigResponse(configResponse);
-
-      // Get TNS information
-      String anchorTNSURL = mAnchorAddr + RestUtils.API_SEARCH_NODE;
-      String query = RestUtils.ANCHOR_IMAGE_NAME + mTnsImageName;
-      logger.debug("[Anchor TNS info] Rest URL: " + anchorTNSURL);
-      RestResponse tnsResponse = restClient.get(anchorTNSURL, query);
-      parseTnsInfoResponse(tnsResponse);
-
-      // Get Host Name
-      readHostName(RestUtils.HOSTNAME);
-
-      // Applications resource
-      String appsURL = RestUtils.NODE + RestUtils.PREFIX + RestUtils.API_APPS;
-      logger.debug("[Running Apps] Rest URL: " + appsURL);
-      RestResponse appResponse = restClient.get(appsURL);
-      List<String> runningApps = parseAppsResponse(appResponse);
-
-      // Application Info details
-      String appInfoURL = RestUtils.NODE + RestUtils.PREFIX + RestUtils.API_APPS + RestUtils.SLASH;
-      RestResponse appInfoResponse = null;
+      // Requests independent of each other are sent at once, configuration and TNS search are
+      // chained as search needs the anchor address.
+      CompletableFuture<Void> tnsInfo = getConfigAsync(pending).thenCompose(configResponse -> {
+        try {
+          parseConfigResponse(configResponse, snapshot);
+        } catch (EZMQXException e) {
+          throw new CompletionException(e);
+        }
+        return getTnsInfoAsync(snapshot, pending);
+      }).thenAccept(tnsResponse -> {
+        try {
+          parseTnsInfoResponse(tnsResponse, snapshot);
+        } catch (EZMQXException e) {
+          throw new CompletionException(e);
+        }
+      });
+      CompletableFuture<List<RestResponse>> appInfos = getAppInfosAsync(pending);
+
+      // Get Host Name, while requests are in flight
+      long hostNameStart = System.nanoTime();
+      snapshot.mHostname = readHostName(RestUtils.HOSTNAME);
+      logStep("Host name", hostNameStart);
+
+      long remaining = Utils.DOCKER_BOOTSTRAP_TIMEOUT
+          - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      CompletableFuture.allOf(tnsInfo, appInfos).get(remaining, TimeUnit.MILLISECONDS);
+
+      // Port mappings are parsed once host name is known
+      for (RestResponse appInfoResponse : appInfos.join()) {
+        parseAppInfoResponse(appInfoResponse, snapshot);
+      }
+    } catch (TimeoutException e) {
+      pending.cancel();
+      logger.error("Docker mode bootstrap timed out");
+      throw new EZMQXException("Docker mode bootstrap timed out", EZMQXErrorCode.UnKnownState);
+    } catch (InterruptedException e) {
+      pending.cancel();
+      Thread.currentThread().interrupt();
+      throw new EZMQXException("Docker mode bootstrap interrupted", EZMQXErrorCode.UnKnownState);
+    } catch (ExecutionException e) {
+      pending.cancel();
+      Throwable cause = e.getCause();
+      while (cause instanceof CompletionException && null != cause.getCause()) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof EZMQXException) {
+        // failure of a parse step keeps its error code
+        logger.error("Docker mode bootstrap failed: " + ((EZMQXException) cause).getMsg());
+        throw (EZMQXException) cause;
+      }
+      logger.error("Docker mode bootstrap failed: " + cause);
+      throw new EZMQXException("Rest client error: " + cause.getMessage(),
+          EZMQXErrorCode.UnKnownState);
+    } catch (EZMQXException e) {
+      pending.cancel();
+      logger.error("Docker mode bootstrap failed: " + e.getMsg());
+      throw e;
+    } catch (Exception e) {
+      pending.cancel();
+      logger.error("Docker mode bootstrap failed: " + e);
+      throw new EZMQXException("Rest client error: " + e.getMessage(), EZMQXErrorCode.UnKnownState);
+    }
+    logStep("Total", start);
+    return snapshot;
+  }
+
+  private CompletableFuture<RestResponse> getConfigAsync(PendingRequests pending) {
+    // Configuration resource
+    String configURL = RestUtils.NODE + RestUtils.PREFIX + RestUtils.API_CONFIG;
+    logger.debug("[Config] Rest URL: " + configURL);
+    return timed("Config", pending.add(RestFactory.getInstance().getAsync(configURL)));
+  }
+
+  private CompletableFuture<RestResponse> getTnsInfoAsync(BootstrapSnapshot snapshot,
+      PendingRequests pending) {
+    // Get TNS information
+    String anchorTNSURL = snapshot.mAnchorAddr + RestUtils.API_SEARCH_NODE;
+    String query = RestUtils.ANCHOR_IMAGE_NAME + mTnsImageName;
+    logger.debug("[Anchor TNS info] Rest URL: " + anchorTNSURL);
+    return timed("Anchor TNS info",
+        pending.add(RestFactory.getInstance().getAsync(anchorTNSURL, query)));
+  }
+
+  // Running applications and then info of every application, info requests are sent in
+  // parallel.
+  private CompletableFuture<List<RestResponse>> getAppInfosAsync(PendingRequests pending) {
+    RestFactory restClient = RestFactory.getInstance();
+    String appsURL = RestUtils.NODE + RestUtils.PREFIX + RestUtils.API_APPS;
+    logger.debug("[Running Apps] Rest URL: " + appsURL);
+    CompletableFuture<RestResponse> apps =
+        timed("Running apps", pending.add(restClient.getAsync(appsURL)));
+    return apps.thenCompose(appResponse -> {
+      List<String> runningApps;
+      try {
+        runningApps = parseAppsResponse(appResponse);
+      } catch (EZMQXException e) {
+        throw new CompletionException(e);
+      }
+      String appInfoURL = appsURL + RestUtils.SLASH;
+      List<CompletableFuture<RestResponse>> responses =
+          new ArrayList<CompletableFuture<RestResponse>>();
       for (String appId : runningApps) {
         String appURL = appInfoURL + appId;
         logger.debug("[App Info] Rest URL: " + appURL);
-        appInfoResponse = restClient.get(appURL);
-        parseAppInfoResponse(appInfoResponse);
+        responses.add(timed("App info " + appId, pending.add(restClient.getAsync(appURL))));
       }
-    } catch (Exception e) {
-      e.printStackTrace();
-      throw new EZMQXException("Rest client error: " + e.getMessage(), EZMQXErrorCode.UnKnownState);
+      return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+          .thenApply(result -> {
+            List<RestResponse> appInfos = new ArrayList<RestResponse>();
+            for (CompletableFuture<RestResponse> response : responses) {
+              appInfos.add(response.join());
+            }
+            return appInfos;
+          });
+    });
+  }
+
+  // Requests of one discovery, cancelled together once bootstrap has failed. Requests chained to
+  // a request which completed while cancelling are cancelled as they are sent.
+  private static class PendingRequests {
+    private final List<CompletableFuture<?>> mRequests = new ArrayList<CompletableFuture<?>>();
+    private boolean mCancelled = false;
+
+    private synchronized <T> CompletableFuture<T> add(CompletableFuture<T> request) {
+      if (mCancelled) {
+        request.cancel(true);
+      } else {
+        mRequests.add(request);
+      }
+      return request;
     }
-    mTnsEnabled = true;
-    mInitialized.set(true);
-    mTerminated.set(false);
-    logger.debug("EZMQX Context created");
+
+    private synchronized void cancel() {
+      mCancelled = true;
+      for (CompletableFuture<?> request : mRequests) {
+        request.cancel(true);
+      }
+      mRequests.clear();
+    }
+  }
+
+  private <T> CompletableFuture<T> timed(String step, CompletableFuture<T> future) {
+    long start = System.nanoTime();
+    return future.whenComplete((result, throwable) -> logStep(step, start));
+  }
+
+  private void logStep(String step, long start) {
+    logger.debug("[Bootstrap] " + step + ": "
+        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
   }
 
   public void terminate() {
@@ -486,6 +729,11 @@ public class Context {
     }
 
     logger.debug("EZMQX terminating the context");
+    // waits for revalidation applying its state, publishers waiting for it are released
+    synchronized (this) {
+      mGeneration.incrementAndGet();
+      endRevalidation();
+    }
     // terminate topic handler [Topic handler]
     try {
       TopicHandler.getInstance().terminateHandler();
@@ -493,15 +741,17 @@ public class Context {
       logger.debug("Caught exception: " + e.getMessage());
     }
 
+    // close pooled rest connections, next initialize will create fresh clients on demand
+    RestFactory.getInstance().releaseClients();
+    TopicCache.getInstance().clear();
+
     mPorts.clear();
-    mUsedPorts.clear();
-    mAMLRepDic.clear();
+    mPortAllocator = new PortAllocator(mPortAllocator.getStart(), mPortAllocator.getSize());
+    mAmlModels.clear();
     mHostname = "";
     mHostAddr = "";
     mAnchorAddr = "";
     mTnsAddr = "";
-    mUsedIdx = 0;
-    mNumOfPort = 0;
     mStandAlone = false;
     mTnsEnabled = false;
     logger.debug("EZMQAPI try to terminate");
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import org.edgexfoundry.ezmq.EZMQMessage;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
+
+// Dispatches received messages from the EZMQ receive thread to worker lanes. A topic is always
+// hashed to the same lane, so messages of a topic are handled in order while different topics
+// are handled in parallel.
+public class Dispatcher {
+  private final PublishQueue<Message>[] mLanes;
+
+  private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(Dispatcher.class);
+
+  public interface Handler {
+    public void onMessage(String topic, EZMQMessage message);
+  }
+
+  private static class Message {
+    private final String mTopic;
+    private final EZMQMessage mMessage;
+
+    Message(String topic, EZMQMessage message) {
+      mTopic = topic;
+      mMessage = message;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public Dispatcher(int lanes, int capacity, EZMQXWaitStrategy waitStrategy,
+      EZMQXOverflowPolicy overflowPolicy, final Handler handler) {
+    mLanes = new PublishQueue[lanes];
+    for (int i = 0; i < lanes; i++) {
+      mLanes[i] = new PublishQueue<Message>(capacity, waitStrategy, overflowPolicy,
+          new PublishQueue.Sender<Message>() {
+            public void send(Message message) {
+              handler.onMessage(message.mTopic, message.mMessage);
+            }
+          }, "Subscriber callback");
+    }
+  }
+
+  public void start(String name) {
+    for (int i = 0; i < mLanes.length; i++) {
+      mLanes[i].start(name + "-" + i);
+    }
+    logger.debug("Started dispatcher, lanes: " + mLanes.length);
+  }
+
+  // Messages already queued are handled before lanes exit.
+  public void stop() {
+    for (PublishQueue<Message> lane : mLanes) {
+      lane.stop();
+    }
+    logger.debug("Stopped dispatcher, dispatched: " + getDispatchedCount() + " dropped: "
+        + getDroppedCount());
+  }
+
+  public void dispatch(String topic, EZMQMessage message) throws EZMQXException {
+    mLanes[getLane(topic)].offer(new Message(topic, message));
+  }
+
+  public int getLaneCount() {
+    return mLanes.length;
+  }
+
+  // Messages handed to the handler.
+  public long getDispatchedCount() {
+    long count = 0;
+    for (PublishQueue<Message> lane : mLanes) {
+      count += lane.getSentCount() + lane.getFailedCount();
+    }
+    return count;
+  }
+
+  public long getDroppedCount() {
+    long count = 0;
+    for (PublishQueue<Message> lane : mLanes) {
+      count += lane.getDroppedCount();
+    }
+    return count;
+  }
+
+  // Messages waiting in the lanes.
+  public long getQueuedCount() {
+    long count = 0;
+    for (PublishQueue<Message> lane : mLanes) {
+      count += lane.size();
+    }
+    return count;
+  }
+
+  private int getLane(String topic) {
+    int hash = null == topic ? 0 : topic.hashCode();
+    // spread high bits, topic names often differ only in the last characters
+    hash ^= (hash >>> 16);
+    return (hash & Integer.MAX_VALUE) % mLanes.length;
+  }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.protocol.ezmqx.EZMQXEndPoint;
+import org.protocol.ezmqx.EZMQXTopic;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonUtils {
+  // ObjectMapper is thread safe once configured, creating one per response is costly.
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  public static ObjectMapper getMapper() {
+    return MAPPER;
+  }
+
+  // Decodes TNS topic response {"topics":[{topic}, ...]} token by token without building a tree.
+  // Topics missing any of name, datamodel, endpoint or secured are skipped.
+  public static List<EZMQXTopic> parseTopics(String json) throws IOException {
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    JsonParser parser = MAPPER.getFactory().createParser(json);
+    try {
+      if (JsonToken.START_OBJECT != parser.nextToken()) {
+        return topics;
+      }
+      while (JsonToken.FIELD_NAME == parser.nextToken()) {
+        String field = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (!RestUtils.PAYLOAD_TOPICS.equals(field) || JsonToken.START_ARRAY != token) {
+          parser.skipChildren();
+          continue;
+        }
+        while (null != (token = parser.nextToken()) && JsonToken.END_ARRAY != token) {
+          if (JsonToken.START_OBJECT != token) {
+            parser.skipChildren();
+            continue;
+          }
+          EZMQXTopic topic = parseTopic(parser);
+          if (null != topic) {
+            topics.add(topic);
+          }
+        }
+      }
+    } finally {
+      parser.close();
+    }
+    return topics;
+  }
+
+  // Parser is positioned on START_OBJECT of a topic and left on its END_OBJECT.
+  private static EZMQXTopic parseTopic(JsonParser parser) throws IOException {
+    String name = null;
+    String dataModel = null;
+    String endPoint = null;
+    Boolean isSecured = null;
+    while (JsonToken.FIELD_NAME == parser.nextToken()) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (!token.isScalarValue()) {
+        parser.skipChildren();
+      }
+      if (RestUtils.PAYLOAD_NAME.equals(field)) {
+        name = getText(parser, token);
+      } else if (RestUtils.PAYLOAD_DATAMODEL.equals(field)) {
+        dataModel = getText(parser, token);
+      } else if (RestUtils.PAYLOAD_ENDPOINT.equals(field)) {
+        endPoint = getText(parser, token);
+      } else if (RestUtils.PAYLOAD_SECURED.equals(field)) {
+        isSecured = token.isScalarValue() && parser.getValueAsBoolean();
+      }
+    }
+    if (null == name || null == dataModel || null == endPoint || null == isSecured) {
+      return null;
+    }
+    return new EZMQXTopic(name, dataModel, isSecured, new EZMQXEndPoint(endPoint));
+  }
+
+  private static String getText(JsonParser parser, JsonToken token) throws IOException {
+    return token.isScalarValue() ? parser.getText() : Utils.EMPTY_STRING;
+  }
+}
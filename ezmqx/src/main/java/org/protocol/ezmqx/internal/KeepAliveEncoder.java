@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+// Keep alive payloads {"topic_names":[...]} of registered topics, split into chunks of bounded
+// number of topics. A topic name is quoted once when added and payload of a chunk is encoded
+// again only after its topics changed, so unchanged topics cost nothing per keep alive.
+// Not thread safe, owner has to synchronize.
+public class KeepAliveEncoder {
+  private static final String PAYLOAD_PREFIX = "{\"" + RestUtils.PAYLOAD_TOPIC_NAMES + "\":[";
+  private static final String PAYLOAD_SUFFIX = "]}";
+  private static final char QUOTE = '"';
+  private static final char COMMA = ',';
+
+  private final int mChunkSize;
+  private final List<Chunk> mChunks;
+  private final Map<String, Chunk> mTopics;
+
+  private static class Chunk {
+    // topic -> quoted topic
+    private final Map<String, String> mQuoted;
+    private int mLength;
+    // null when topics changed since last encode
+    private String mPayload;
+
+    Chunk() {
+      mQuoted = new LinkedHashMap<String, String>();
+    }
+  }
+
+  public KeepAliveEncoder(int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+    mChunkSize = chunkSize;
+    mChunks = new ArrayList<Chunk>();
+    mTopics = new HashMap<String, Chunk>();
+  }
+
+  // Returns false if topic is already added.
+  public boolean add(String topic) {
+    if (mTopics.containsKey(topic)) {
+      return false;
+    }
+    // fill up chunks left partly empty by removed topics before opening a new one
+    Chunk chunk = null;
+    for (Chunk candidate : mChunks) {
+      if (candidate.mQuoted.size() < mChunkSize) {
+        chunk = candidate;
+        break;
+      }
+    }
+    if (null == chunk) {
+      chunk = new Chunk();
+      mChunks.add(chunk);
+    }
+    String quoted = QUOTE + new String(JsonStringEncoder.getInstance().quoteAsString(topic))
+        + QUOTE;
+    chunk.mQuoted.put(topic, quoted);
+    chunk.mLength += quoted.length() + 1;
+    chunk.mPayload = null;
+    mTopics.put(topic, chunk);
+    return true;
+  }
+
+  // Returns false if topic is not added.
+  public boolean remove(String topic) {
+    Chunk chunk = mTopics.remove(topic);
+    if (null == chunk) {
+      return false;
+    }
+    chunk.mLength -= chunk.mQuoted.remove(topic).length() + 1;
+    chunk.mPayload = null;
+    if (chunk.mQuoted.isEmpty()) {
+      mChunks.remove(chunk);
+    }
+    return true;
+  }
+
+  public boolean contains(String topic) {
+    return mTopics.containsKey(topic);
+  }
+
+  public int size() {
+    return mTopics.size();
+  }
+
+  // One payload per chunk, empty if no topic is added.
+  public List<String> getPayloads() {
+    List<String> payloads = new ArrayList<String>(mChunks.size());
+    for (Chunk chunk : mChunks) {
+      if (null == chunk.mPayload) {
+        chunk.mPayload = encode(chunk);
+      }
+      payloads.add(chunk.mPayload);
+    }
+    return payloads;
+  }
+
+  private String encode(Chunk chunk) {
+    StringBuilder builder =
+        new StringBuilder(PAYLOAD_PREFIX.length() + chunk.mLength + PAYLOAD_SUFFIX.length());
+    builder.append(PAYLOAD_PREFIX);
+    boolean first = true;
+    for (String quoted : chunk.mQuoted.values()) {
+      if (!first) {
+        builder.append(COMMA);
+      }
+      builder.append(quoted);
+      first = false;
+    }
+    return builder.append(PAYLOAD_SUFFIX).toString();
+  }
+}
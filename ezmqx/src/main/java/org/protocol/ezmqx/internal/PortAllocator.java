@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock free allocator of local ports in range [start, start + size). One bit per port, allocation
+// claims the lowest free bit of a word with CAS starting from the word of the last allocation, so
+// allocate and release are O(1) amortized and safe to call from any thread.
+// Reserved ports [e.g. container ports without host mapping] are never allocated.
+public class PortAllocator {
+  private static final int WORD_SHIFT = 6;
+  private static final int WORD_MASK = 63;
+  private static final long ALL_SET = -1L;
+
+  private final int mStart;
+  private final int mSize;
+  private final AtomicLongArray mUsed;
+  private final AtomicLongArray mReserved;
+  private final AtomicInteger mHint;
+  private final AtomicInteger mAllocated;
+
+  public PortAllocator(int start, int size) {
+    if (start < 1 || size < 1 || size > Utils.LOCAL_PORT_END - start + 1) {
+      throw new IllegalArgumentException("Invalid port range");
+    }
+    mStart = start;
+    mSize = size;
+    int words = ((size - 1) >> WORD_SHIFT) + 1;
+    mUsed = new AtomicLongArray(words);
+    mReserved = new AtomicLongArray(words);
+    mHint = new AtomicInteger(0);
+    mAllocated = new AtomicInteger(0);
+    // bits beyond the range in the last word are permanently taken
+    int tail = size & WORD_MASK;
+    if (0 != tail) {
+      mUsed.set(words - 1, ALL_SET << tail);
+    }
+  }
+
+  public int getStart() {
+    return mStart;
+  }
+
+  public int getSize() {
+    return mSize;
+  }
+
+  // Returns allocated port or -1 if every port of the range is taken.
+  public int allocate() {
+    int words = mUsed.length();
+    int first = mHint.get();
+    for (int i = 0; i < words; i++) {
+      int word = first + i;
+      if (word >= words) {
+        word -= words;
+      }
+      long bits;
+      while (ALL_SET != (bits = mUsed.get(word))) {
+        long free = ~bits & (bits + 1); // lowest clear bit
+        if (mUsed.compareAndSet(word, bits, bits | free)) {
+          mHint.set(word);
+          mAllocated.incrementAndGet();
+          return mStart + (word << WORD_SHIFT) + Long.numberOfTrailingZeros(free);
+        }
+      }
+    }
+    return -1;
+  }
+
+  // Returns false if port is out of range, reserved or not allocated.
+  public boolean release(int port) {
+    int index = port - mStart;
+    if (index < 0 || index >= mSize) {
+      return false;
+    }
+    int word = index >> WORD_SHIFT;
+    long bit = 1L << (index & WORD_MASK);
+    if (0 != (mReserved.get(word) & bit)) {
+      return false;
+    }
+    long bits;
+    do {
+      bits = mUsed.get(word);
+      if (0 == (bits & bit)) {
+        return false;
+      }
+    } while (!mUsed.compareAndSet(word, bits, bits & ~bit));
+    mAllocated.decrementAndGet();
+    // freed word is the next candidate, keeps the allocated ports dense
+    if (word < mHint.get()) {
+      mHint.set(word);
+    }
+    return true;
+  }
+
+  // Excludes port from allocation, returns false if port is out of range, already reserved or
+  // currently allocated. Meant to be called on initialization, before ports are allocated.
+  public boolean reserve(int port) {
+    int index = port - mStart;
+    if (index < 0 || index >= mSize) {
+      return false;
+    }
+    int word = index >> WORD_SHIFT;
+    long bit = 1L << (index & WORD_MASK);
+    long bits;
+    do {
+      bits = mUsed.get(word);
+      if (0 != (bits & bit)) {
+        return false;
+      }
+    } while (!mUsed.compareAndSet(word, bits, bits | bit));
+    long reserved;
+    do {
+      reserved = mReserved.get(word);
+    } while (!mReserved.compareAndSet(word, reserved, reserved | bit));
+    return true;
+  }
+
+  // Reserves every free port in [from, to], ports outside of allocator range are ignored.
+  // Returns number of reserved ports.
+  public int reserveRange(int from, int to) {
+    int count = 0;
+    for (int port = Math.max(from, mStart); port <= to && port < mStart + mSize; port++) {
+      if (reserve(port)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  public boolean isAllocated(int port) {
+    int index = port - mStart;
+    if (index < 0 || index >= mSize) {
+      return false;
+    }
+    long bit = 1L << (index & WORD_MASK);
+    int word = index >> WORD_SHIFT;
+    return 0 != (mUsed.get(word) & bit) && 0 == (mReserved.get(word) & bit);
+  }
+
+  public int getAllocatedCount() {
+    return mAllocated.get();
+  }
+}
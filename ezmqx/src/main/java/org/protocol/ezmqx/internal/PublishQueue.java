@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
+
+// Queue of publish requests drained by a dedicated sender thread, so that serialization and
+// socket send do not run on the caller's thread. Also used as worker lane of Dispatcher.
+// Only the sender thread calls Sender.send, sockets and subscriber callbacks are not thread safe.
+public class PublishQueue<T> {
+  private final RingBuffer<T> mBuffer;
+  private final Sender<T> mSender;
+  private final EZMQXWaitStrategy mWaitStrategy;
+  private final EZMQXOverflowPolicy mOverflowPolicy;
+  // what the queue carries, for logs
+  private final String mLabel;
+  private final AtomicBoolean mRunning;
+  // producers inside offer, sender thread exits only when none is left
+  private final AtomicInteger mProducers;
+  private final AtomicLong mSent;
+  private final AtomicLong mDropped;
+  private final AtomicLong mFailed;
+  private volatile boolean mSenderParked;
+  private Thread mThread;
+
+  private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(PublishQueue.class);
+
+  public interface Sender<T> {
+    public void send(T item) throws EZMQXException;
+  }
+
+  public PublishQueue(int capacity, EZMQXWaitStrategy waitStrategy,
+      EZMQXOverflowPolicy overflowPolicy, Sender<T> sender) {
+    this(capacity, waitStrategy, overflowPolicy, sender, "Async publish");
+  }
+
+  public PublishQueue(int capacity, EZMQXWaitStrategy waitStrategy,
+      EZMQXOverflowPolicy overflowPolicy, Sender<T> sender, String label) {
+    mLabel = label;
+    mBuffer = new RingBuffer<T>(capacity);
+    mSender = sender;
+    mWaitStrategy = waitStrategy;
+    mOverflowPolicy = overflowPolicy;
+    mRunning = new AtomicBoolean(false);
+    mProducers = new AtomicInteger(0);
+    mSent = new AtomicLong(0);
+    mDropped = new AtomicLong(0);
+    mFailed = new AtomicLong(0);
+  }
+
+  public void start(String name) {
+    if (!mRunning.compareAndSet(false, true)) {
+      return;
+    }
+    mThread = new Thread(new Runnable() {
+      public void run() {
+        drain();
+      }
+    }, name);
+    mThread.setDaemon(true);
+    mThread.start();
+  }
+
+  // Sender thread sends what is already queued and what racing producers still queue before
+  // exiting.
+  public void stop() {
+    if (!mRunning.compareAndSet(true, false)) {
+      return;
+    }
+    LockSupport.unpark(mThread);
+    try {
+      mThread.join(Utils.ASYNC_PUBLISH_STOP_TIMEOUT);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (mThread.isAlive()) {
+      // sender thread is still busy with a slow send, it drains the rest on its own
+      logger.debug("Queue [" + mLabel + "] still draining " + mBuffer.size() + " items");
+      return;
+    }
+    drainStopped();
+    logger.debug("Stopped queue [" + mLabel + "], dropped: " + mDropped.get() + " failed: "
+        + mFailed.get());
+  }
+
+  public void offer(T item) throws EZMQXException {
+    // registered before checking the state, so that sender thread waits for this item
+    mProducers.incrementAndGet();
+    try {
+      enqueue(item);
+    } finally {
+      mProducers.decrementAndGet();
+    }
+    if (mSenderParked) {
+      LockSupport.unpark(mThread);
+    }
+  }
+
+  public long getSentCount() {
+    return mSent.get();
+  }
+
+  public long getDroppedCount() {
+    return mDropped.get();
+  }
+
+  public long getFailedCount() {
+    return mFailed.get();
+  }
+
+  public int size() {
+    return mBuffer.size();
+  }
+
+  private void enqueue(T item) throws EZMQXException {
+    if (!mRunning.get()) {
+      throw new EZMQXException("Publish queue stopped", EZMQXErrorCode.Terminated);
+    }
+    while (!mBuffer.offer(item)) {
+      if (!mRunning.get()) {
+        throw new EZMQXException("Publish queue stopped", EZMQXErrorCode.Terminated);
+      }
+      switch (mOverflowPolicy) {
+        case DROP_NEWEST:
+          mDropped.incrementAndGet();
+          return;
+        case DROP_OLDEST:
+          if (null != mBuffer.poll()) {
+            mDropped.incrementAndGet();
+          }
+          break;
+        case FAIL:
+          throw new EZMQXException("Publish queue full", EZMQXErrorCode.QueueFull);
+        default:
+          idle();
+          break;
+      }
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      T item = mBuffer.poll();
+      if (null != item) {
+        send(item);
+        continue;
+      }
+      if (!mRunning.get()) {
+        if (0 < mProducers.get()) {
+          // producers racing with stop may still publish
+          idle();
+          continue;
+        }
+        drainStopped();
+        return;
+      }
+      if (EZMQXWaitStrategy.PARK == mWaitStrategy) {
+        mSenderParked = true;
+        if (mBuffer.isEmpty() && mRunning.get()) {
+          LockSupport.parkNanos(this, Utils.ASYNC_PUBLISH_PARK_NANOS);
+        }
+        mSenderParked = false;
+      } else {
+        idle();
+      }
+    }
+  }
+
+  private void drainStopped() {
+    T item;
+    while (null != (item = mBuffer.poll())) {
+      send(item);
+    }
+  }
+
+  private void send(T item) {
+    try {
+      mSender.send(item);
+      mSent.incrementAndGet();
+    } catch (EZMQXException e) {
+      mFailed.incrementAndGet();
+      logger.debug(mLabel + " failed: " + e.getMsg());
+    } catch (RuntimeException e) {
+      mFailed.incrementAndGet();
+      logger.error(mLabel + " failed: " + e.getMessage());
+    }
+  }
+
+  private void idle() {
+    switch (mWaitStrategy) {
+      case SPIN:
+        break;
+      case YIELD:
+        Thread.yield();
+        break;
+      default:
+        LockSupport.parkNanos(Utils.ASYNC_PUBLISH_PARK_NANOS);
+        break;
+    }
+  }
+}
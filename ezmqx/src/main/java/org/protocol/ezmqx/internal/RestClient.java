@@ -17,63 +17,276 @@
 
 package org.protocol.ezmqx.internal;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpAsyncClient4Engine;
 
 public class RestClient implements RestClientInterface {
 
   private ResteasyClient mRestClient;
+  private ResteasyClient mAsyncRestClient;
+  private int mTimeOut;
+  private int mPoolSize;
+  private int mPoolSizePerHost;
+  // requests in flight, a retired client is closed once they are finished
+  private final AtomicInteger mInFlight;
+  private volatile boolean mRetired;
+  private final AtomicBoolean mClosed;
 
-  public RestClient(int timeOut) {
+  public RestClient(int timeOut, int poolSize, int poolSizePerHost) {
+    mTimeOut = timeOut;
+    mPoolSize = poolSize;
+    mPoolSizePerHost = poolSizePerHost;
+    mInFlight = new AtomicInteger(0);
+    mClosed = new AtomicBoolean(false);
+    // Timeouts bound every phase of a request, a stalled server does not hold a pooled
+    // connection or a caller forever.
     mRestClient = new ResteasyClientBuilder().establishConnectionTimeout(timeOut, TimeUnit.SECONDS)
-        .connectionPoolSize(6).build();
+        .socketTimeout(timeOut, TimeUnit.SECONDS)
+        .connectionCheckoutTimeout((int) TimeUnit.SECONDS.toMillis(timeOut), TimeUnit.MILLISECONDS)
+        .connectionPoolSize(poolSize).maxPooledPerRoute(poolSizePerHost)
+        .connectionTTL(RestUtils.CONNECTION_TTL, TimeUnit.SECONDS).build();
   }
 
   public RestResponse get(String url) throws Exception {
-    ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
-    Response jaxResponse = target.request().get();
-    RestResponse response =
-        new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class));
-    return response;
+    begin();
+    try {
+      ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
+      Response jaxResponse = target.request().get();
+      return toRestResponse(jaxResponse);
+    } finally {
+      end();
+    }
   }
 
   public RestResponse get(String url, String query) throws Exception {
-    ResteasyWebTarget target =
-        (ResteasyWebTarget) mRestClient.target(url + RestUtils.QUESTION_MARK + query);
-    Response jaxResponse = target.request().get();
-    RestResponse response =
-        new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class));
-    return response;
+    begin();
+    try {
+      ResteasyWebTarget target =
+          (ResteasyWebTarget) mRestClient.target(url + RestUtils.QUESTION_MARK + query);
+      Response jaxResponse = target.request().get();
+      return toRestResponse(jaxResponse);
+    } finally {
+      end();
+    }
   }
 
   public RestResponse put(String url, String payload) throws Exception {
-    ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
-    Response jaxResponse = target.request().put(Entity.json(payload));
-    RestResponse response =
-        new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class));
-    return response;
+    begin();
+    try {
+      ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
+      Response jaxResponse = target.request().put(Entity.json(payload));
+      return toRestResponse(jaxResponse);
+    } finally {
+      end();
+    }
   }
 
   public RestResponse post(String url, String payload) throws Exception {
-    ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
-    Response jaxResponse =
-        target.request().post(Entity.entity(payload, MediaType.APPLICATION_JSON));
-    RestResponse response =
-        new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class));
-    return response;
+    begin();
+    try {
+      ResteasyWebTarget target = (ResteasyWebTarget) mRestClient.target(url);
+      Response jaxResponse =
+          target.request().post(Entity.entity(payload, MediaType.APPLICATION_JSON));
+      return toRestResponse(jaxResponse);
+    } finally {
+      end();
+    }
   }
 
   public RestResponse delete(String url, String query) throws Exception {
-    ResteasyWebTarget target =
-        (ResteasyWebTarget) mRestClient.target(url + RestUtils.QUESTION_MARK + query);
-    Response jaxResponse = target.request().delete();
-    RestResponse response =
-        new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class));
-    return response;
+    begin();
+    try {
+      ResteasyWebTarget target =
+          (ResteasyWebTarget) mRestClient.target(url + RestUtils.QUESTION_MARK + query);
+      Response jaxResponse = target.request().delete();
+      return toRestResponse(jaxResponse);
+    } finally {
+      end();
+    }
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url) {
+    return invokeAsync(url, HttpMethod.GET, null);
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url, String query) {
+    return invokeAsync(url + RestUtils.QUESTION_MARK + query, HttpMethod.GET, null);
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url, String query, String eTag) {
+    return invokeAsync(url + RestUtils.QUESTION_MARK + query, HttpMethod.GET, null, eTag);
+  }
+
+  public CompletableFuture<RestResponse> putAsync(String url, String payload) {
+    return invokeAsync(url, HttpMethod.PUT, Entity.json(payload));
+  }
+
+  public CompletableFuture<RestResponse> postAsync(String url, String payload) {
+    return invokeAsync(url, HttpMethod.POST, Entity.entity(payload, MediaType.APPLICATION_JSON));
+  }
+
+  public CompletableFuture<RestResponse> deleteAsync(String url, String query) {
+    return invokeAsync(url + RestUtils.QUESTION_MARK + query, HttpMethod.DELETE, null);
+  }
+
+  public int getPoolSize() {
+    return mPoolSize;
+  }
+
+  public int getPoolSizePerHost() {
+    return mPoolSizePerHost;
+  }
+
+  // Client is closed once requests in flight are finished. A request started after close fails
+  // like on a closed client.
+  public void retire() {
+    mRetired = true;
+    closeIfIdle();
+  }
+
+  public boolean isClosed() {
+    return mClosed.get();
+  }
+
+  // Counting a request and closing the client are done under the client lock, a request either
+  // keeps the client open or fails with RetiredException before it is sent.
+  private synchronized void begin() {
+    if (mClosed.get()) {
+      throw new RetiredException();
+    }
+    mInFlight.incrementAndGet();
+  }
+
+  private void end() {
+    if (0 == mInFlight.decrementAndGet()) {
+      closeIfIdle();
+    }
+  }
+
+  private synchronized void closeIfIdle() {
+    if (mRetired && 0 == mInFlight.get() && mClosed.compareAndSet(false, true)) {
+      close();
+    }
+  }
+
+  private synchronized void close() {
+    mRestClient.close();
+    if (null != mAsyncRestClient) {
+      mAsyncRestClient.close();
+      mAsyncRestClient = null;
+    }
+  }
+
+  // Async requests run on a non-blocking http client [few I/O reactor threads], it is created
+  // on first use so that sync only users do not pay for the reactor threads.
+  private synchronized ResteasyClient getAsyncClient() {
+    if (mClosed.get()) {
+      throw new IllegalStateException("Rest client closed");
+    }
+    if (null == mAsyncRestClient) {
+      int timeOutMillis = (int) Math.min(Integer.MAX_VALUE, TimeUnit.SECONDS.toMillis(mTimeOut));
+      CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+          .setMaxConnTotal(mPoolSize).setMaxConnPerRoute(mPoolSizePerHost)
+          .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(timeOutMillis)
+              .setSocketTimeout(timeOutMillis).setConnectionRequestTimeout(timeOutMillis).build())
+          .setDefaultIOReactorConfig(
+              IOReactorConfig.custom().setIoThreadCount(RestUtils.ASYNC_IO_THREADS).build())
+          .build();
+      httpClient.start();
+      mAsyncRestClient =
+          new ResteasyClientBuilder().httpEngine(new ApacheHttpAsyncClient4Engine(httpClient, true))
+              .build();
+    }
+    return mAsyncRestClient;
+  }
+
+  private CompletableFuture<RestResponse> invokeAsync(String url, String method, Entity<?> entity) {
+    return invokeAsync(url, method, entity, null);
+  }
+
+  private CompletableFuture<RestResponse> invokeAsync(String url, String method, Entity<?> entity,
+      String eTag) {
+    begin();
+    final CompletableFuture<RestResponse> future = new CompletableFuture<RestResponse>();
+    // not on the I/O reactor thread, as the last request of a retired client closes the client
+    future.whenCompleteAsync((response, throwable) -> end());
+    InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+      public void completed(Response jaxResponse) {
+        try {
+          future.complete(toRestResponse(jaxResponse));
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      }
+
+      public void failed(Throwable throwable) {
+        future.completeExceptionally(throwable);
+      }
+    };
+    try {
+      Invocation.Builder builder = getAsyncClient().target(url).request();
+      if (null != eTag) {
+        builder.header(RestUtils.HEADER_IF_NONE_MATCH, eTag);
+      }
+      AsyncInvoker invoker = builder.async();
+      Future<Response> request;
+      if (null == entity) {
+        request = invoker.method(method, callback);
+      } else {
+        request = invoker.method(method, entity, callback);
+      }
+      // cancelling the returned future aborts the request
+      future.whenComplete((response, throwable) -> {
+        if (future.isCancelled()) {
+          request.cancel(true);
+        }
+      });
+    } catch (Exception e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  // Thrown when a request is started on a client already closed by retire, the request was not
+  // sent and can be sent again on the client replacing it.
+  static class RetiredException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    RetiredException() {
+      super("Rest client closed");
+    }
+  }
+
+  // Reading the entity and closing the response hands the connection back to the pool so that
+  // the next request to the same host reuses it instead of opening a new one.
+  private RestResponse toRestResponse(Response jaxResponse) {
+    try {
+      String eTag = jaxResponse.getHeaderString(RestUtils.HEADER_ETAG);
+      if (RestUtils.HTTP_NOT_MODIFIED == jaxResponse.getStatus()) {
+        return new RestResponse(jaxResponse.getStatus(), null, eTag);
+      }
+      return new RestResponse(jaxResponse.getStatus(), jaxResponse.readEntity(String.class),
+          eTag);
+    } finally {
+      jaxResponse.close();
+    }
   }
 }
@@ -17,11 +17,59 @@
 
 package org.protocol.ezmqx.internal;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class RestClientFactory implements RestClientFactoryInterface {
+  // One long-lived client per connection timeout, so that pooled keep-alive connections are
+  // shared by every TNS/Pharos request instead of being rebuilt per call.
+  private Map<Integer, RestClient> mClients;
+  private int mPoolSize;
+  private int mPoolSizePerHost;
+
+  public RestClientFactory() {
+    this(RestUtils.CONNECTION_POOL_SIZE, RestUtils.CONNECTION_POOL_SIZE_PER_HOST);
+  }
+
+  public RestClientFactory(int poolSize, int poolSizePerHost) {
+    mClients = new HashMap<Integer, RestClient>();
+    mPoolSize = poolSize;
+    mPoolSizePerHost = poolSizePerHost;
+  }
 
   @Override
-  public RestClientInterface getRestClient(int timeOut) {
-    RestClient client = new RestClient(timeOut);
+  public synchronized RestClientInterface getRestClient(int timeOut) {
+    RestClient client = mClients.get(timeOut);
+    if (null == client) {
+      client = new RestClient(timeOut, mPoolSize, mPoolSizePerHost);
+      mClients.put(timeOut, client);
+    }
     return client;
   }
+
+  @Override
+  public synchronized void setConnectionPool(int poolSize, int poolSizePerHost) {
+    mPoolSize = poolSize;
+    mPoolSizePerHost = poolSizePerHost;
+    // pool size is fixed at client build time, clients will be rebuilt on next request
+    releaseClients();
+  }
+
+  // Clients are replaced on next request, released ones are closed once their requests in
+  // flight [e.g. async keep alive] are finished.
+  @Override
+  public synchronized void releaseClients() {
+    for (RestClient client : mClients.values()) {
+      client.retire();
+    }
+    mClients.clear();
+  }
+
+  public synchronized int getPoolSize() {
+    return mPoolSize;
+  }
+
+  public synchronized int getPoolSizePerHost() {
+    return mPoolSizePerHost;
+  }
 }
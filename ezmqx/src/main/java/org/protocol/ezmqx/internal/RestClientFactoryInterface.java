@@ -19,4 +19,8 @@ package org.protocol.ezmqx.internal;
 
 public interface RestClientFactoryInterface {
   RestClientInterface getRestClient(int timeOut);
+
+  void setConnectionPool(int poolSize, int poolSizePerHost);
+
+  void releaseClients();
 }
@@ -17,6 +17,8 @@
 
 package org.protocol.ezmqx.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface RestClientInterface {
 
   RestResponse get(String url) throws Exception;
@@ -28,4 +30,17 @@ public interface RestClientInterface {
   RestResponse post(String url, String payload) throws Exception;
 
   RestResponse delete(String url, String query) throws Exception;
+
+  CompletableFuture<RestResponse> getAsync(String url);
+
+  CompletableFuture<RestResponse> getAsync(String url, String query);
+
+  // Conditional get, server replies HTTP_NOT_MODIFIED without body if eTag still matches.
+  CompletableFuture<RestResponse> getAsync(String url, String query, String eTag);
+
+  CompletableFuture<RestResponse> putAsync(String url, String payload);
+
+  CompletableFuture<RestResponse> postAsync(String url, String payload);
+
+  CompletableFuture<RestResponse> deleteAsync(String url, String query);
 }
@@ -17,6 +17,8 @@
 
 package org.protocol.ezmqx.internal;
 
+import java.util.concurrent.CompletableFuture;
+
 public class RestFactory {
   private static RestFactory mInstance;
   private RestClientFactoryInterface mRestInterface;
@@ -27,7 +29,7 @@ public class RestFactory {
     mTimeOut = RestUtils.CONNECTION_TIMEOUT;
   }
 
-  public static RestFactory getInstance() {
+  public static synchronized RestFactory getInstance() {
     if (null == mInstance) {
       mInstance = new RestFactory();
     }
@@ -35,36 +37,107 @@ public class RestFactory {
   }
 
   public void setFactory(RestClientFactoryInterface factory) {
+    if (null != mRestInterface && mRestInterface != factory) {
+      mRestInterface.releaseClients();
+    }
     mRestInterface = factory;
   }
 
+  public void setConnectionPool(int poolSize, int poolSizePerHost) {
+    mRestInterface.setConnectionPool(poolSize, poolSizePerHost);
+  }
+
+  public void releaseClients() {
+    mRestInterface.releaseClients();
+  }
+
   public RestResponse get(String url) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(mTimeOut);
-    return client.get(url);
+    return send(mTimeOut, client -> client.get(url));
   }
 
   public RestResponse get(String url, String query) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(mTimeOut);
-    return client.get(url, query);
+    return send(mTimeOut, client -> client.get(url, query));
   }
 
   public RestResponse put(String url, String payload) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(mTimeOut);
-    return client.put(url, payload);
+    return send(mTimeOut, client -> client.put(url, payload));
   }
 
   public RestResponse post(String url, String payload) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(mTimeOut);
-    return client.post(url, payload);
+    return send(mTimeOut, client -> client.post(url, payload));
   }
 
   public RestResponse post(String url, String payload, int timeOut) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(timeOut);
-    return client.post(url, payload);
+    return send(timeOut, client -> client.post(url, payload));
   }
 
   public RestResponse delete(String url, String query) throws Exception {
-    RestClientInterface client = mRestInterface.getRestClient(mTimeOut);
-    return client.delete(url, query);
+    return send(mTimeOut, client -> client.delete(url, query));
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url) {
+    return sendAsync(mTimeOut, client -> client.getAsync(url));
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url, String query) {
+    return sendAsync(mTimeOut, client -> client.getAsync(url, query));
+  }
+
+  public CompletableFuture<RestResponse> getAsync(String url, String query, String eTag) {
+    return sendAsync(mTimeOut, client -> client.getAsync(url, query, eTag));
+  }
+
+  public CompletableFuture<RestResponse> putAsync(String url, String payload) {
+    return sendAsync(mTimeOut, client -> client.putAsync(url, payload));
+  }
+
+  public CompletableFuture<RestResponse> postAsync(String url, String payload) {
+    return sendAsync(mTimeOut, client -> client.postAsync(url, payload));
+  }
+
+  public CompletableFuture<RestResponse> postAsync(String url, String payload, int timeOut) {
+    return sendAsync(timeOut, client -> client.postAsync(url, payload));
+  }
+
+  public CompletableFuture<RestResponse> deleteAsync(String url, String query) {
+    return sendAsync(mTimeOut, client -> client.deleteAsync(url, query));
+  }
+
+  // A client taken from the factory can be retired [setConnectionPool, releaseClients] before
+  // its request begins, such a request is not sent and is retried on the replacing client.
+  private RestResponse send(int timeOut, Request request) throws Exception {
+    for (int attempt = 1;; attempt++) {
+      RestClientInterface client = mRestInterface.getRestClient(timeOut);
+      try {
+        return request.send(client);
+      } catch (RestClient.RetiredException e) {
+        if (attempt >= RestUtils.RETIRED_CLIENT_RETRIES) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private CompletableFuture<RestResponse> sendAsync(int timeOut, AsyncRequest request) {
+    for (int attempt = 1;; attempt++) {
+      RestClientInterface client = mRestInterface.getRestClient(timeOut);
+      try {
+        return request.send(client);
+      } catch (RestClient.RetiredException e) {
+        if (attempt >= RestUtils.RETIRED_CLIENT_RETRIES) {
+          CompletableFuture<RestResponse> future = new CompletableFuture<RestResponse>();
+          future.completeExceptionally(e);
+          return future;
+        }
+      }
+    }
+  }
+
+  private interface Request {
+    RestResponse send(RestClientInterface client) throws Exception;
+  }
+
+  private interface AsyncRequest {
+    CompletableFuture<RestResponse> send(RestClientInterface client);
   }
 }
@@ -20,10 +20,16 @@ package org.protocol.ezmqx.internal;
 public class RestResponse {
   private int mStatusCode;
   private String mResponse;
+  private String mETag;
 
   public RestResponse(int statusCode, String response) {
+    this(statusCode, response, null);
+  }
+
+  public RestResponse(int statusCode, String response, String eTag) {
     mStatusCode = statusCode;
     mResponse = response;
+    mETag = eTag;
   }
 
   public int getStatusCode() {
@@ -33,4 +39,9 @@ public class RestResponse {
   public String getResponse() {
     return mResponse;
   }
+
+  // Entity tag of the response, null if server did not send it.
+  public String getETag() {
+    return mETag;
+  }
 }
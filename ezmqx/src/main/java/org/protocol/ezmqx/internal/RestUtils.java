@@ -29,6 +29,7 @@ public class RestUtils {
   public static final String TNS_KEEP_ALIVE = "/tns/keepalive";
   public static final String HTTP_PREFIX = "http://";
   public static final String QUERY_NAME = "name=";
+  public static final String QUERY_NAMES = "names=";
   public static final String QUERY_HIERARCHICAL = "&hierarchical=";
   public static final String QUERY_TRUE = "yes";
   public static final String QUERY_FALSE = "no";
@@ -61,6 +62,7 @@ public class RestUtils {
   public static final String PAYLOAD_DATAMODEL = "datamodel";
   public static final String PAYLOAD_SECURED = "secured";
   public static final String PAYLOAD_KEEPALIVE_INTERVAL = "ka_interval";
+  public static final String PAYLOAD_TOPIC_NAMES = "topic_names";
   public static final String CONF_REVERSE_PROXY = "reverseproxy";
   public static final String CONF_REVERSE_PROXY_ENABLED = "enabled";
   public static final String NODES = "nodes";
@@ -80,13 +82,36 @@ public class RestUtils {
   // HTTP status codes
   public static final int HTTP_OK = 200;
   public static final int HTTP_CREATED = 201;
+  public static final int HTTP_NOT_MODIFIED = 304;
+  public static final int HTTP_BAD_REQUEST = 400;
+  public static final int HTTP_NOT_FOUND = 404;
+  public static final int HTTP_BAD_METHOD = 405;
+  public static final int HTTP_CONFLICT = 409;
+  public static final int HTTP_PAYLOAD_TOO_LARGE = 413;
+  public static final int HTTP_URI_TOO_LONG = 414;
+  public static final int HTTP_HEADER_TOO_LARGE = 431;
   public static final int CONNECTION_TIMEOUT = 5;
+  public static final int CONNECTION_POOL_SIZE = 50;
+  public static final int CONNECTION_POOL_SIZE_PER_HOST = 20;
+  public static final int CONNECTION_TTL = 60;
+  public static final int ASYNC_IO_THREADS = 2;
+  // Attempts of a request whose client is retired before the request begins
+  public static final int RETIRED_CLIENT_RETRIES = 3;
+  // Max topics of a single bulk register/unregister or keep alive request
+  public static final int TNS_BULK_MAX_TOPICS = 1000;
+  // Max length of the encoded names of a bulk unregister query, proxies limit the request line
+  public static final int TNS_BULK_MAX_QUERY_LENGTH = 4096;
+
+  // HTTP headers
+  public static final String HEADER_ETAG = "ETag";
+  public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
 
   // Strings
   public static final String SLASH = "/";
   public static final String DOUBLE_SLASH = "//";
   public static final String COLON = ":";
   public static final String QUESTION_MARK = "?";
+  public static final String TOPIC_SEPARATOR = ",";
   public static final String REGISTER = "register";
   public static final String UNREGISTER = "unregister";
   public static final String KEEPALIVE = "keepalive";
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock free multi producer / multi consumer queue on a preallocated array.
+// Each slot carries a sequence number telling whether it can be written [sequence == position]
+// or read [sequence == position + 1] in the current lap, so producers and consumers only
+// contend on their own cursor.
+public class RingBuffer<T> {
+  private final int mMask;
+  private final Object[] mSlots;
+  private final AtomicLongArray mSequences;
+  private final AtomicLong mHead;
+  private final AtomicLong mTail;
+
+  // Capacity is rounded up to the next power of two.
+  public RingBuffer(int capacity) {
+    if (capacity < 1 || capacity > Utils.ASYNC_PUBLISH_MAX_CAPACITY) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    mMask = size - 1;
+    mSlots = new Object[size];
+    mSequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      mSequences.set(i, i);
+    }
+    mHead = new AtomicLong(0);
+    mTail = new AtomicLong(0);
+  }
+
+  // Returns false if queue is full.
+  public boolean offer(T item) {
+    while (true) {
+      long position = mTail.get();
+      int index = (int) position & mMask;
+      long diff = mSequences.get(index) - position;
+      if (0 == diff) {
+        if (mTail.compareAndSet(position, position + 1)) {
+          mSlots[index] = item;
+          mSequences.lazySet(index, position + 1);
+          return true;
+        }
+      } else if (diff < 0) {
+        return false;
+      }
+    }
+  }
+
+  // Returns null if queue is empty.
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    while (true) {
+      long position = mHead.get();
+      int index = (int) position & mMask;
+      long diff = mSequences.get(index) - (position + 1);
+      if (0 == diff) {
+        if (mHead.compareAndSet(position, position + 1)) {
+          T item = (T) mSlots[index];
+          mSlots[index] = null;
+          mSequences.lazySet(index, position + mMask + 1);
+          return item;
+        }
+      } else if (diff < 0) {
+        return null;
+      }
+    }
+  }
+
+  public int size() {
+    long size = mTail.get() - mHead.get();
+    return (int) Math.max(0, Math.min(size, mSlots.length));
+  }
+
+  public boolean isEmpty() {
+    return mTail.get() == mHead.get();
+  }
+
+  public int capacity() {
+    return mSlots.length;
+  }
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.edgexfoundry.support.logging.client.EdgeXLogger;
+import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
+import org.protocol.ezmqx.EZMQXTopic;
+
+// Client side cache of TNS topic query results, keyed by topic name and hierarchical option.
+// Empty results [no topic matched] are cached with a separate, usually shorter, TTL.
+// Hierarchical results are also indexed by topic name so that queries for topics below a cached
+// hierarchical query are answered locally.
+public class TopicCache {
+  private static TopicCache mInstance;
+  private LinkedHashMap<String, CacheEntry> mEntries;
+  private TopicTrie<CacheEntry> mHierarchicalEntries;
+  private int mCapacity;
+  private long mTtlNanos;
+  private long mNegativeTtlNanos;
+
+  private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(TopicCache.class);
+
+  private static class CacheEntry {
+    private final String mTopic;
+    private final boolean mHierarchical;
+    private final List<EZMQXTopic> mTopics;
+    private final long mExpiry;
+    private TopicTrie<EZMQXTopic> mIndex;
+
+    CacheEntry(String topic, boolean isHierarchical, List<EZMQXTopic> topics, long expiry) {
+      mTopic = topic;
+      mHierarchical = isHierarchical;
+      mTopics = topics;
+      mExpiry = expiry;
+      if (isHierarchical) {
+        mIndex = new TopicTrie<EZMQXTopic>();
+        for (EZMQXTopic ezmqxTopic : topics) {
+          mIndex.put(ezmqxTopic.getName(), ezmqxTopic);
+        }
+      }
+    }
+
+    private boolean isExpired(long now) {
+      return now - mExpiry >= 0;
+    }
+  }
+
+  private TopicCache() {
+    mCapacity = Utils.TOPIC_CACHE_CAPACITY;
+    mTtlNanos = TimeUnit.MILLISECONDS.toNanos(Utils.TOPIC_CACHE_TTL);
+    mNegativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(Utils.TOPIC_CACHE_NEGATIVE_TTL);
+    mHierarchicalEntries = new TopicTrie<CacheEntry>();
+    // access ordered, least recently used entry is evicted once capacity is exceeded
+    mEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+        if (size() > mCapacity) {
+          unindex(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public static synchronized TopicCache getInstance() {
+    if (null == mInstance) {
+      mInstance = new TopicCache();
+    }
+    return mInstance;
+  }
+
+  // Zero capacity or zero TTL disables caching of respective results.
+  public synchronized void configure(int capacity, long ttlMillis, long negativeTtlMillis) {
+    mCapacity = capacity;
+    mTtlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    mNegativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+    clear();
+  }
+
+  // Returns copy of cached topics, empty list for cached negative result or null if there is no
+  // valid entry.
+  public synchronized List<EZMQXTopic> get(String topic, boolean isHierarchical) {
+    long now = System.nanoTime();
+    String key = getKey(topic, isHierarchical);
+    CacheEntry entry = mEntries.get(key);
+    if (null != entry) {
+      if (!entry.isExpired(now)) {
+        logger.debug("[Topic cache] hit: " + key);
+        return new ArrayList<EZMQXTopic>(entry.mTopics);
+      }
+      removeEntry(entry);
+    }
+
+    // hierarchical result of an ancestor topic holds every topic below it, deepest ancestor has
+    // the smallest result.
+    List<CacheEntry> ancestors = mHierarchicalEntries.getPath(topic);
+    for (int i = ancestors.size() - 1; i >= 0; i--) {
+      CacheEntry ancestor = ancestors.get(i);
+      if (ancestor.mTopic.equals(topic)) {
+        continue;
+      }
+      if (ancestor.isExpired(now)) {
+        removeEntry(ancestor);
+        continue;
+      }
+      // touch ancestor entry for LRU ordering
+      mEntries.get(getKey(ancestor.mTopic, true));
+      logger.debug("[Topic cache] hit from hierarchical entry: " + ancestor.mTopic);
+      if (isHierarchical) {
+        return ancestor.mIndex.getHierarchical(topic);
+      }
+      List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>(1);
+      EZMQXTopic matched = ancestor.mIndex.get(topic);
+      if (null != matched) {
+        topics.add(matched);
+      }
+      return topics;
+    }
+    return null;
+  }
+
+  public synchronized void put(String topic, boolean isHierarchical, List<EZMQXTopic> topics) {
+    long ttl = topics.isEmpty() ? mNegativeTtlNanos : mTtlNanos;
+    if (mCapacity < 1 || ttl < 1) {
+      return;
+    }
+    CacheEntry entry = new CacheEntry(topic, isHierarchical, new ArrayList<EZMQXTopic>(topics),
+        System.nanoTime() + ttl);
+    CacheEntry old = mEntries.put(getKey(topic, isHierarchical), entry);
+    if (null != old) {
+      unindex(old);
+    }
+    // entry may already be evicted in case of capacity one
+    if (isHierarchical && mEntries.containsKey(getKey(topic, true))) {
+      mHierarchicalEntries.put(topic, entry);
+    }
+  }
+
+  // Drop every entry which may contain the given topic, called when a local publisher registers
+  // or unregisters the topic on TNS.
+  public synchronized void invalidate(String topic) {
+    CacheEntry entry = mEntries.get(getKey(topic, false));
+    if (null != entry) {
+      removeEntry(entry);
+    }
+    for (CacheEntry ancestor : mHierarchicalEntries.getPath(topic)) {
+      removeEntry(ancestor);
+    }
+  }
+
+  public synchronized void clear() {
+    mEntries.clear();
+    mHierarchicalEntries.clear();
+  }
+
+  private void removeEntry(CacheEntry entry) {
+    mEntries.remove(getKey(entry.mTopic, entry.mHierarchical));
+    unindex(entry);
+  }
+
+  private void unindex(CacheEntry entry) {
+    if (entry.mHierarchical && entry == mHierarchicalEntries.get(entry.mTopic)) {
+      mHierarchicalEntries.remove(entry.mTopic);
+    }
+  }
+
+  private String getKey(String topic, boolean isHierarchical) {
+    return (isHierarchical ? RestUtils.QUERY_TRUE : RestUtils.QUERY_FALSE) + topic;
+  }
+}
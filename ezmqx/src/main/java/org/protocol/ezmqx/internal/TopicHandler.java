@@ -17,8 +17,6 @@
 
 package org.protocol.ezmqx.internal;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -28,10 +26,6 @@ import org.edgexfoundry.support.logging.client.EdgeXLoggerFactory;
 import org.protocol.ezmqx.EZMQXException;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMQ.Poller;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class TopicHandler {
   private static TopicHandler mInstance;
@@ -46,20 +40,19 @@ public class TopicHandler {
   private AtomicBoolean mInitialized;
   private AtomicInteger mKeepAliveInterval;
   private AtomicBoolean mIsKeepAliveStarted;
-  private String mTnsAddress;
   private final String INPROC_PREFIX = "inproc://topicHandler";
-  private List<String> mTopicList;
+  // used by handler thread only
+  private KeepAliveEncoder mTopicList;
 
   private final static EdgeXLogger logger = EdgeXLoggerFactory.getEdgeXLogger(TopicHandler.class);
 
   private TopicHandler() throws EZMQXException {
     mContext = EZMQAPI.getInstance().getContext();
     mEZMQXContext = Context.getInstance();
-    mTnsAddress = mEZMQXContext.getTnsAddr();
     mKeepAliveInterval = new AtomicInteger(-1);
     mInitialized = new AtomicBoolean(false);
     mIsKeepAliveStarted = new AtomicBoolean(false);
-    mTopicList = new ArrayList<String>();
+    mTopicList = new KeepAliveEncoder(RestUtils.TNS_BULK_MAX_TOPICS);
   }
 
   public static synchronized TopicHandler getInstance() throws EZMQXException {
@@ -196,36 +189,40 @@ public class TopicHandler {
     return mHandlerAddress;
   }
 
-  private void AddTopic(String topic) {
-    logger.debug("[TNS register topic] add topic to list: " + topic);
-    mTopicList.add(topic);
+  // Data of register/unregister request is one topic or many separated by TOPIC_SEPARATOR.
+  private void AddTopic(String data) {
+    for (String topic : data.split(RestUtils.TOPIC_SEPARATOR)) {
+      logger.debug("[TNS register topic] add topic to list: " + topic);
+      mTopicList.add(topic);
+    }
   }
 
-  private void removeTopic(String topic) {
-    logger.debug("[TNS register topic] Remove topic from list: " + topic);
-    mTopicList.remove(topic);
+  private void removeTopic(String data) {
+    for (String topic : data.split(RestUtils.TOPIC_SEPARATOR)) {
+      logger.debug("[TNS register topic] Remove topic from list: " + topic);
+      mTopicList.remove(topic);
+    }
   }
 
   private void sendKeepAlive() {
-    String keepAliveURL = mTnsAddress + RestUtils.PREFIX + RestUtils.TNS_KEEP_ALIVE;
+    // handler outlives context re-initialization, TNS address is read for every keep alive
+    String keepAliveURL = mEZMQXContext.getTnsAddr() + RestUtils.PREFIX + RestUtils.TNS_KEEP_ALIVE;
     logger.debug("[TNS Keep alive ] Rest URL: " + keepAliveURL);
 
-    ObjectMapper mapper = new ObjectMapper();
-    JsonNode rootN = mapper.createObjectNode();
-    ArrayNode childNode = mapper.createArrayNode();
-    for (String topic : mTopicList) {
-      childNode.add(topic);
-    }
-    ((ObjectNode) rootN).set("topic_names", childNode);
-    String payload = rootN.toString();
-    logger.debug("[TNS Keep alive ] payload: " + payload);
+    // payloads are cached, only chunks changed by register/unregister are encoded again
+    for (String payload : mTopicList.getPayloads()) {
+      logger.debug("[TNS Keep alive ] payload: " + payload);
 
-    try {
-      RestResponse response = mRestClient.post(keepAliveURL, payload, mKeepAliveInterval.get() * 2);
-      logger.debug("[TNS Keep alive topic] Response code: " + response.getStatusCode());
-    } catch (Exception e) {
-      logger.debug("Caught exeption : " + e.getMessage());
-      return;
+      // do not block handler thread for the round trip, register/unregister requests
+      // keep being served while keep alive is in flight.
+      mRestClient.postAsync(keepAliveURL, payload, mKeepAliveInterval.get() * 2)
+          .whenComplete((response, throwable) -> {
+            if (null != throwable) {
+              logger.debug("Caught exeption : " + throwable.getMessage());
+              return;
+            }
+            logger.debug("[TNS Keep alive topic] Response code: " + response.getStatusCode());
+          });
     }
   }
 
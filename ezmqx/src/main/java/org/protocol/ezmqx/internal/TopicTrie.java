@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Index of topic names split on '/' segments. Insert, remove and lookup are O(depth) of the
+// topic, hierarchical lookup is proportional to the size of the matched sub tree.
+// Not thread safe, owner has to synchronize.
+public class TopicTrie<T> {
+  private Node<T> mRoot;
+  private int mSize;
+
+  private static class Node<T> {
+    private Map<String, Node<T>> mChildren;
+    private T mValue;
+
+    private Node<T> getChild(String segment) {
+      return null == mChildren ? null : mChildren.get(segment);
+    }
+
+    private Node<T> getOrCreateChild(String segment) {
+      if (null == mChildren) {
+        mChildren = new HashMap<String, Node<T>>(4);
+      }
+      Node<T> child = mChildren.get(segment);
+      if (null == child) {
+        child = new Node<T>();
+        mChildren.put(segment, child);
+      }
+      return child;
+    }
+
+    private boolean isEmpty() {
+      return null == mValue && (null == mChildren || mChildren.isEmpty());
+    }
+  }
+
+  public TopicTrie() {
+    mRoot = new Node<T>();
+    mSize = 0;
+  }
+
+  // Returns previous value of topic or null.
+  public T put(String topic, T value) {
+    if (null == value) {
+      throw new IllegalArgumentException("null value");
+    }
+    Node<T> node = mRoot;
+    for (String segment : split(topic)) {
+      node = node.getOrCreateChild(segment);
+    }
+    T old = node.mValue;
+    node.mValue = value;
+    if (null == old) {
+      mSize++;
+    }
+    return old;
+  }
+
+  public T get(String topic) {
+    Node<T> node = find(topic);
+    return null == node ? null : node.mValue;
+  }
+
+  public boolean contains(String topic) {
+    return null != get(topic);
+  }
+
+  // Returns removed value or null, branches left without values are pruned.
+  public T remove(String topic) {
+    List<String> segments = split(topic);
+    Deque<Node<T>> path = new ArrayDeque<Node<T>>(segments.size() + 1);
+    Node<T> node = mRoot;
+    path.push(node);
+    for (String segment : segments) {
+      node = node.getChild(segment);
+      if (null == node) {
+        return null;
+      }
+      path.push(node);
+    }
+    T old = node.mValue;
+    if (null == old) {
+      return null;
+    }
+    node.mValue = null;
+    mSize--;
+    for (int i = segments.size() - 1; i >= 0; i--) {
+      Node<T> child = path.pop();
+      if (!child.isEmpty()) {
+        break;
+      }
+      path.peek().mChildren.remove(segments.get(i));
+    }
+    return old;
+  }
+
+  // Values of the topic itself and of every topic below it, e.g. /a returns /a, /a/b, /a/b/c.
+  public List<T> getHierarchical(String topic) {
+    List<T> values = new ArrayList<T>();
+    Node<T> node = find(topic);
+    if (null != node) {
+      collect(node, values);
+    }
+    return values;
+  }
+
+  // Values stored on the path to the topic, from the top most ancestor down to the topic itself.
+  public List<T> getPath(String topic) {
+    List<T> values = new ArrayList<T>();
+    Node<T> node = mRoot;
+    for (String segment : split(topic)) {
+      node = node.getChild(segment);
+      if (null == node) {
+        break;
+      }
+      if (null != node.mValue) {
+        values.add(node.mValue);
+      }
+    }
+    return values;
+  }
+
+  // Values of topics matching the pattern, wild card segment matches exactly one segment.
+  // e.g. /a/*/c matches /a/b/c and /a/x/c but not /a/c or /a/b/x/c.
+  public List<T> match(String pattern) {
+    List<T> values = new ArrayList<T>();
+    match(mRoot, split(pattern), 0, values);
+    return values;
+  }
+
+  public List<T> values() {
+    List<T> values = new ArrayList<T>(mSize);
+    collect(mRoot, values);
+    return values;
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  public boolean isEmpty() {
+    return 0 == mSize;
+  }
+
+  public void clear() {
+    mRoot = new Node<T>();
+    mSize = 0;
+  }
+
+  private Node<T> find(String topic) {
+    Node<T> node = mRoot;
+    for (String segment : split(topic)) {
+      node = node.getChild(segment);
+      if (null == node) {
+        return null;
+      }
+    }
+    return node;
+  }
+
+  private void match(Node<T> node, List<String> segments, int index, List<T> values) {
+    if (index == segments.size()) {
+      if (null != node.mValue) {
+        values.add(node.mValue);
+      }
+      return;
+    }
+    if (null == node.mChildren) {
+      return;
+    }
+    String segment = segments.get(index);
+    if (Utils.TOPIC_WILD_CARD.equals(segment)) {
+      for (Node<T> child : node.mChildren.values()) {
+        match(child, segments, index + 1, values);
+      }
+    } else {
+      Node<T> child = node.mChildren.get(segment);
+      if (null != child) {
+        match(child, segments, index + 1, values);
+      }
+    }
+  }
+
+  private void collect(Node<T> node, List<T> values) {
+    Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+    stack.push(node);
+    while (!stack.isEmpty()) {
+      Node<T> current = stack.pop();
+      if (null != current.mValue) {
+        values.add(current.mValue);
+      }
+      if (null != current.mChildren) {
+        for (Node<T> child : current.mChildren.values()) {
+          stack.push(child);
+        }
+      }
+    }
+  }
+
+  private static List<String> split(String topic) {
+    List<String> segments = new ArrayList<String>();
+    int start = 0;
+    int length = topic.length();
+    while (start < length) {
+      int end = topic.indexOf(RestUtils.SLASH, start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end > start) {
+        segments.add(topic.substring(start, end));
+      }
+      start = end + 1;
+    }
+    return segments;
+  }
+}
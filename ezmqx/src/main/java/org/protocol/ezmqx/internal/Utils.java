@@ -17,19 +17,40 @@
 
 package org.protocol.ezmqx.internal;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import org.protocol.ezmqx.EZMQXErrorCode;
 import org.protocol.ezmqx.EZMQXException;
 
 public class Utils {
   public static final String LOCAL_HOST = "localhost";
   public static final int LOCAL_PORT_START = 4000;
   public static final int LOCAL_PORT_MAX = 100;
+  public static final int LOCAL_PORT_END = 65535;
   private final static String SLASH = "/";
   private final static String DOUBLE_SLASH = "//";
   private final static String TOPIC_PATTERN = "(/)[a-zA-Z0-9-_./]+";
   public static final int KEY_LENGTH = 40;
   public static final String EMPTY_STRING = "";
+  // topic cache is disabled until configured by EZMQXConfig.setTopicCache
+  public static final int TOPIC_CACHE_CAPACITY = 0;
+  public static final long TOPIC_CACHE_TTL = 10000;
+  public static final long TOPIC_CACHE_NEGATIVE_TTL = 0;
+  public static final long TOPIC_WATCH_INTERVAL = 5000;
+  public static final long DOCKER_BOOTSTRAP_TIMEOUT = 30000;
+  public static final int AML_LOAD_PARALLELISM = Runtime.getRuntime().availableProcessors();
+  public static final long AML_MODEL_BUDGET = Long.MAX_VALUE;
+  // Matched calls of a data shape before the specialized AML codec is used without verification
+  public static final int AML_CODEC_VERIFY_CALLS = 16;
+  // Data shapes tracked per AML codec, calls of other shapes are always verified
+  public static final int AML_CODEC_MAX_SHAPES = 1024;
+  public static final int ASYNC_PUBLISH_MAX_CAPACITY = 1 << 20;
+  public static final long ASYNC_PUBLISH_PARK_NANOS = 100000;
+  public static final long ASYNC_PUBLISH_STOP_TIMEOUT = 3000;
 
-  // private final static String TOPIC_WILD_CARD = "*";
+  public static final String TOPIC_WILD_CARD = "*";
   // private final static String TOPIC_WILD_PATTERN = "/*/";
 
   public static boolean validateTopic(String topic) throws EZMQXException {
@@ -44,4 +65,63 @@ public class Utils {
     }
     return true;
   }
+
+  // Wild card segments [e.g. /a/*/c] are allowed, pattern has to start with a topic segment.
+  public static boolean validateWildCardTopic(String pattern) throws EZMQXException {
+    String prefix = getWildCardPrefix(pattern);
+    if (null == prefix) {
+      return validateTopic(pattern);
+    }
+    if (prefix.isEmpty()) {
+      return false;
+    }
+    // wild card segment is validated as any other topic segment
+    StringBuilder topic = new StringBuilder();
+    for (String segment : pattern.substring(1).split(SLASH, -1)) {
+      topic.append(SLASH).append(TOPIC_WILD_CARD.equals(segment) ? "_" : segment);
+    }
+    return validateTopic(topic.toString());
+  }
+
+  // Topic part before the first wild card segment, e.g. /a/b for /a/b/*/d. Null if pattern has
+  // no wild card segment.
+  public static String getWildCardPrefix(String pattern) {
+    if (null == pattern) {
+      return null;
+    }
+    String wildCard = SLASH + TOPIC_WILD_CARD;
+    int index = pattern.indexOf(wildCard);
+    while (index >= 0) {
+      int end = index + wildCard.length();
+      if (end == pattern.length() || pattern.startsWith(SLASH, end)) {
+        return pattern.substring(0, index);
+      }
+      index = pattern.indexOf(wildCard, end);
+    }
+    return null;
+  }
+
+  // Failure of an async stage is reported to the user as EZMQXException, any other failure
+  // [e.g. I/O error of rest client] is mapped to given message and error code.
+  public static CompletionException toCompletionException(Throwable throwable, String msg,
+      EZMQXErrorCode code) {
+    Throwable cause = throwable;
+    if (cause instanceof CompletionException && null != cause.getCause()) {
+      cause = cause.getCause();
+    }
+    if (cause instanceof EZMQXException) {
+      return new CompletionException(cause);
+    }
+    return new CompletionException(new EZMQXException(msg, code));
+  }
+
+  // Value of a query parameter, URL encoded as UTF-8.
+  public static String encodeQueryValue(String value) {
+    try {
+      return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException e) {
+      // UTF-8 is always supported
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -19,9 +19,13 @@ package org.protocol.ezmqx.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.datamodel.aml.Representation;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -29,6 +33,8 @@ import org.protocol.ezmqx.EZMQXAmlModelInfo;
 import org.protocol.ezmqx.EZMQXAmlPublisher;
 import org.protocol.ezmqx.EZMQXConfig;
 import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
 import org.protocol.ezmqx.internal.RestClientFactoryInterface;
 import org.protocol.ezmqx.internal.RestFactory;
 import org.protocol.ezmqx.test.internal.FakeRestClient;
@@ -100,6 +106,31 @@ public class EZMQXAmlPublisherTest {
     publisher.terminate();
   }
 
+  @Test
+  public void getPublisherAsyncTest()
+      throws EZMQXException, InterruptedException, ExecutionException {
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    FakeRestClient.setResponse(TestUtils.PUB_TNS_URL, TestUtils.VALID_PUB_TNS_RESPONSE);
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisherAsync(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563).get();
+    assertNotNull(publisher);
+    assertEquals(publisher.getTopic().getName(), TestUtils.TOPIC);
+    publisher.terminate();
+  }
+
+  @Test
+  public void getSecuredPublisherAsyncTest()
+      throws EZMQXException, InterruptedException, ExecutionException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher
+        .getSecuredPublisherAsync(TestUtils.TOPIC, TestUtils.SERVER_SECRET_KEY,
+            EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563)
+        .get();
+    assertNotNull(publisher);
+    assertEquals(publisher.isSecured(), true);
+    publisher.terminate();
+  }
+
   @Test
   public void getSecuredPublisherTest() throws EZMQXException, AMLException {
     EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getSecuredPublisher(TestUtils.TOPIC,
@@ -124,6 +155,84 @@ public class EZMQXAmlPublisherTest {
     publisher.terminate();
   }
 
+  @Test
+  public void publishBatchTest() throws EZMQXException, AMLException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    List<AMLObject> payloads = new ArrayList<AMLObject>();
+    for (int i = 0; i < 10; i++) {
+      payloads.add(TestUtils.getAMLObject());
+    }
+    publisher.publish(payloads);
+    publisher.publish(payloads.toArray(new AMLObject[0]));
+    publisher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void publishBatchNegativeTest() throws EZMQXException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    try {
+      publisher.publish((List<AMLObject>) null);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
+  @Test
+  public void publishRawTest() throws EZMQXException, AMLException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    byte[] payload = new Representation(TestUtils.FILE_PATH).DataToByte(TestUtils.getAMLObject());
+    publisher.setRawValidationInterval(1);
+    publisher.publishRaw(payload);
+    ByteBuffer buffer = ByteBuffer.allocate(payload.length + 2);
+    buffer.put((byte) 0).put(payload).put((byte) 0);
+    publisher.publishRaw(buffer, 1, payload.length);
+    publisher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void publishRawNegativeTest() throws EZMQXException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    try {
+      publisher.publishRaw(ByteBuffer.allocate(4), 2, 4);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
+  @Test
+  public void asyncPublishTest() throws EZMQXException, AMLException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    publisher.enableAsyncPublish(16, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.BLOCK);
+    for (int i = 0; i < 100; i++) {
+      publisher.publish(TestUtils.getAMLObject());
+    }
+    publisher.terminate();
+    assertEquals(0, publisher.getDroppedCount());
+    assertEquals(0, publisher.getFailedCount());
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void asyncPublishNegativeTest() throws EZMQXException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, 5563);
+    assertNotNull(publisher);
+    try {
+      publisher.enableAsyncPublish(0, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.BLOCK);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
   @Test
   public void getTopicTest() throws EZMQXException, AMLException {
     EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
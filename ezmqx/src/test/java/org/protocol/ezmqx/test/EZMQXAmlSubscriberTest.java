@@ -37,7 +37,9 @@ import org.protocol.ezmqx.EZMQXConfig;
 import org.protocol.ezmqx.EZMQXEndPoint;
 import org.protocol.ezmqx.EZMQXErrorCode;
 import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
 import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
 import org.protocol.ezmqx.EZMQXAmlSubscriber.EZMQXAmlSubCallback;
 import org.protocol.ezmqx.internal.RestClientFactoryInterface;
 import org.protocol.ezmqx.internal.RestFactory;
@@ -158,6 +160,90 @@ public class EZMQXAmlSubscriberTest {
     subscriber.terminate();
   }
 
+  @Test
+  public void subscribeUnsubscribeTest() throws EZMQXException, AMLException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    EZMQXEndPoint endPoint = new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT);
+    EZMQXTopic topic = new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false, endPoint);
+    EZMQXAmlSubscriber subscriber = EZMQXAmlSubscriber.getSubscriber(topic, mCallback);
+    EZMQXTopic topic2 = new EZMQXTopic(TestUtils.TOPIC + "/2", IdList.get(0), false,
+        new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT + 1));
+    subscriber.subscribe(topic2);
+    assertEquals(2, subscriber.getTopics().size());
+    subscriber.unsubscribe(TestUtils.TOPIC);
+    assertEquals(1, subscriber.getTopics().size());
+    assertEquals(topic2.getName(), subscriber.getTopics().get(0).getName());
+    subscriber.subscribe(topic);
+    assertEquals(2, subscriber.getTopics().size());
+    subscriber.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void subscribeDuplicatedTopicTest() throws EZMQXException, AMLException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    EZMQXEndPoint endPoint = new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT);
+    EZMQXTopic topic = new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false, endPoint);
+    EZMQXAmlSubscriber subscriber = EZMQXAmlSubscriber.getSubscriber(topic, mCallback);
+    try {
+      subscriber.subscribe(topic);
+    } finally {
+      subscriber.terminate();
+    }
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void unsubscribeUnknownTopicTest() throws EZMQXException, AMLException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    EZMQXEndPoint endPoint = new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT);
+    EZMQXTopic topic = new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false, endPoint);
+    EZMQXAmlSubscriber subscriber = EZMQXAmlSubscriber.getSubscriber(topic, mCallback);
+    try {
+      subscriber.unsubscribe(TestUtils.TOPIC + "/2");
+    } finally {
+      subscriber.terminate();
+    }
+  }
+
+  @Test
+  public void enableDispatcherTest() throws EZMQXException, AMLException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    EZMQXEndPoint endPoint = new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT);
+    EZMQXTopic topic = new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false, endPoint);
+    EZMQXAmlSubscriber subscriber = EZMQXAmlSubscriber.getSubscriber(topic, mCallback);
+    assertNotNull(subscriber);
+    subscriber.enableDispatcher(2, 64, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.BLOCK);
+
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        try {
+          publish();
+        } catch (Exception e) {
+        }
+      }
+    });
+    thread.start();
+
+    try {
+      mTerminateLock.lock();
+      mCondVar.await();
+    } catch (InterruptedException e) {
+      e.printStackTrace();
+    } finally {
+      mTerminateLock.unlock();
+    }
+    subscriber.terminate();
+    assertEquals(TOTAL_EVENTS, subscriber.getDispatchedCount());
+    assertEquals(0, subscriber.getDroppedCount());
+  }
+
   @Test
   public void getSecuredSubscriberTest1() throws EZMQXException, AMLException {
     List<String> amlFilePath = new ArrayList<String>();
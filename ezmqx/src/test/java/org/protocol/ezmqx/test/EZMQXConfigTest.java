@@ -17,16 +17,39 @@
 
 package org.protocol.ezmqx.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.protocol.ezmqx.EZMQXEndPoint;
 import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXErrorCode;
 import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.internal.BootstrapSnapshot;
+import org.protocol.ezmqx.internal.Context;
+import org.protocol.ezmqx.internal.RestClient;
+import org.protocol.ezmqx.internal.RestClientFactory;
 import org.protocol.ezmqx.internal.RestClientFactoryInterface;
+import org.protocol.ezmqx.internal.RestClientInterface;
 import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.RestResponse;
 import org.protocol.ezmqx.test.internal.FakeRestClient;
 import org.protocol.ezmqx.test.internal.FakeRestClientFactory;
 
@@ -34,6 +57,9 @@ public class EZMQXConfigTest {
 
   private EZMQXConfig mConfig;
 
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
   @Before
   public void setup() throws EZMQXException {
     mConfig = EZMQXConfig.getInstance();
@@ -75,6 +101,69 @@ public class EZMQXConfigTest {
     mConfig.startDockerMode(TestUtils.TNS_CONFIG_FILE_PATH);
   }
 
+  @Test
+  public void startDockerModeInvalidConfigTest() {
+    FakeRestClient.setResponse(TestUtils.CONFIG_URL, "{invalid");
+    FakeRestClient.setResponse(TestUtils.RUNNING_APPS_URL, TestUtils.VALID_RUNNING_APPS_RESPONSE);
+    FakeRestClient.setResponse(TestUtils.RUNNING_APP_INFO_URL, TestUtils.RUNNING_APP_INFO_RESPONSE);
+    try {
+      mConfig.startDockerMode(TestUtils.TNS_CONFIG_FILE_PATH);
+      fail("Started with invalid configuration");
+    } catch (EZMQXException e) {
+      // error of the failed parse step, not a generic one
+      assertEquals(EZMQXErrorCode.RestError, e.getCode());
+    } finally {
+      FakeRestClient.setResponse(TestUtils.CONFIG_URL, TestUtils.VALID_CONFIG_RESPONSE);
+    }
+  }
+
+  @Test
+  public void startDockerModeWarmStartTest() throws Exception {
+    String hostname = Files.readAllLines(Paths.get("/etc/hostname")).get(0);
+    File snapshotFile = mFolder.newFile();
+    String snapshot = "{\"version\": " + BootstrapSnapshot.VERSION + ", \"hostname\": \""
+        + hostname + "\", \"hostaddress\": \"192.168.0.2\", \"anchoraddress\": \""
+        + "http://192.168.0.1:80/pharos-anchor/api/v1\", \"tnsaddress\": \""
+        + TestUtils.TNS_ADDRESS + "\", \"reverseproxy\": false, \"ports\": {\"4000\": 14000}}";
+    Files.write(snapshotFile.toPath(), snapshot.getBytes(StandardCharsets.UTF_8));
+
+    // revalidation requests are answered once the gate opens, and fail
+    CountDownLatch gate = new CountDownLatch(1);
+    RestFactory.getInstance().setFactory(new FakeRestClientFactory() {
+      @Override
+      public RestClientInterface getRestClient(int timeOut) {
+        return new FakeRestClient() {
+          @Override
+          public CompletableFuture<RestResponse> getAsync(String url) {
+            return CompletableFuture.supplyAsync(() -> {
+              try {
+                gate.await();
+              } catch (InterruptedException e) {
+              }
+              throw new IllegalStateException("Not reachable");
+            });
+          }
+        };
+      }
+    });
+    mConfig.startDockerMode(TestUtils.TNS_CONFIG_FILE_PATH, snapshotFile.getPath());
+    CompletableFuture<EZMQXEndPoint> endPoint = CompletableFuture.supplyAsync(() -> {
+      try {
+        return Context.getInstance().getHostEp(4000);
+      } catch (EZMQXException e) {
+        throw new CompletionException(e);
+      }
+    });
+    // host end point is not given out with snapshot state before it is revalidated
+    Thread.sleep(200);
+    assertFalse(endPoint.isDone());
+    gate.countDown();
+    // snapshot is kept as revalidation failed
+    EZMQXEndPoint hostEp = endPoint.get(5, TimeUnit.SECONDS);
+    assertEquals("192.168.0.2", hostEp.getAddr());
+    assertEquals(14000, hostEp.getPort());
+  }
+
   @Test(expected = EZMQXException.class)
   public void startStandAloneModeNagativeTest1() throws EZMQXException {
     mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
@@ -97,6 +186,41 @@ public class EZMQXConfigTest {
     mConfig.addAmlModel(amlFilePath);
   }
 
+  @Test
+  public void setRestConnectionPoolTest() throws EZMQXException {
+    RestClientFactory factory = new RestClientFactory();
+    RestFactory.getInstance().setFactory(factory);
+    RestClient previous = (RestClient) factory.getRestClient(TestUtils.REST_TIMEOUT);
+    mConfig.setRestConnectionPool(10, 5);
+    assertEquals(10, factory.getPoolSize());
+    assertEquals(5, factory.getPoolSizePerHost());
+    // client is rebuilt with the new pool, previous one is closed as it has no request in flight
+    RestClient client = (RestClient) factory.getRestClient(TestUtils.REST_TIMEOUT);
+    assertNotSame(previous, client);
+    assertTrue(previous.isClosed());
+    assertEquals(10, client.getPoolSize());
+    assertEquals(5, client.getPoolSizePerHost());
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void setRestConnectionPoolNegativeTest() throws EZMQXException {
+    mConfig.setRestConnectionPool(5, 10);
+  }
+
+  @Test
+  public void setTopicCacheTest() throws EZMQXException {
+    mConfig.setTopicCache(100, 1000, 0);
+    mConfig.setTopicCache(1024, 10000, 2000);
+    // back to the default, disabled cache
+    mConfig.setTopicCache(0, 0, 0);
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void setTopicCacheNegativeTest() throws EZMQXException {
+    mConfig.setTopicCache(-1, 1000, 1000);
+  }
+
   @Test(expected = EZMQXException.class)
   public void resetNTest() throws EZMQXException {
     EZMQXConfig.getInstance().reset();
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXAmlModelInfo;
+import org.protocol.ezmqx.EZMQXAmlPublisher;
+import org.protocol.ezmqx.EZMQXAmlSubscriber.EZMQXAmlSubCallback;
+import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXConflatingSubscriber;
+import org.protocol.ezmqx.EZMQXEndPoint;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.internal.RestClientFactoryInterface;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.test.internal.FakeRestClientFactory;
+
+public class EZMQXConflatingSubscriberTest {
+  private EZMQXConfig mConfig;
+  private int mEventCount;
+  private final int TOTAL_EVENTS = 5;
+
+  @Before
+  public void setup() throws EZMQXException {
+    mConfig = EZMQXConfig.getInstance();
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+    RestClientFactoryInterface restFactory = new FakeRestClientFactory();
+    RestFactory.getInstance().setFactory(restFactory);
+    mEventCount = 0;
+    assertNotNull(mConfig);
+  }
+
+  @After
+  public void after() throws Exception {
+    try {
+      mConfig.reset();
+    } catch (Exception e) {
+
+    }
+  }
+
+  private List<EZMQXTopic> getTopics() throws EZMQXException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    EZMQXEndPoint endPoint = new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT);
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    topics.add(new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false, endPoint));
+    return topics;
+  }
+
+  private void publish() throws EZMQXException, AMLException, InterruptedException {
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, TestUtils.PORT);
+    assertNotNull(publisher);
+    // let subscriber connect before publishing
+    Thread.sleep(500);
+    for (int i = 0; i < TOTAL_EVENTS; i++) {
+      publisher.publish(TestUtils.getAMLObject());
+    }
+    Thread.sleep(500);
+    publisher.terminate();
+  }
+
+  @Test
+  public void pollTest() throws EZMQXException, AMLException, InterruptedException {
+    EZMQXConflatingSubscriber subscriber =
+        EZMQXConflatingSubscriber.getSubscriber(getTopics(), 0, null);
+    assertNotNull(subscriber);
+    publish();
+    Map<String, AMLObject> latest = subscriber.poll();
+    assertEquals(1, latest.size());
+    assertNotNull(latest.get(TestUtils.TOPIC));
+    assertNull(subscriber.poll(TestUtils.TOPIC));
+    assertEquals(TOTAL_EVENTS - 1, subscriber.getConflatedCount());
+    subscriber.terminate();
+  }
+
+  @Test
+  public void timerTest() throws EZMQXException, AMLException, InterruptedException {
+    EZMQXConflatingSubscriber subscriber = EZMQXConflatingSubscriber.getSubscriber(getTopics(),
+        100, new EZMQXAmlSubCallback() {
+          @Override
+          public void onMessage(String topic, AMLObject data) {
+            mEventCount++;
+          }
+
+          @Override
+          public void onError(String topic, EZMQXErrorCode errorCode) {}
+        });
+    assertNotNull(subscriber);
+    publish();
+    subscriber.terminate();
+    assertTrue(mEventCount > 0 && mEventCount <= TOTAL_EVENTS);
+    assertEquals(TOTAL_EVENTS, mEventCount + subscriber.getConflatedCount());
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void getSubscriberNegativeTest() throws EZMQXException {
+    EZMQXConflatingSubscriber.getSubscriber(getTopics(), 100, null);
+  }
+}
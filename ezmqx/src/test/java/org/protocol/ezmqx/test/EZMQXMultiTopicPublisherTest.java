@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.List;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.Representation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXAmlModelInfo;
+import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXMultiTopicPublisher;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.internal.RestClientFactory;
+import org.protocol.ezmqx.internal.RestClientFactoryInterface;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.test.internal.EmbeddedTns;
+import org.protocol.ezmqx.test.internal.FakeRestClient;
+import org.protocol.ezmqx.test.internal.FakeRestClientFactory;
+
+public class EZMQXMultiTopicPublisherTest {
+  private EZMQXConfig mConfig;
+  private EmbeddedTns mTns;
+
+  @Before
+  public void setup() throws EZMQXException {
+    mConfig = EZMQXConfig.getInstance();
+    RestClientFactoryInterface restFactory = new FakeRestClientFactory();
+    RestFactory.getInstance().setFactory(restFactory);
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+    assertNotNull(mConfig);
+  }
+
+  @After
+  public void after() throws Exception {
+    try {
+      mConfig.reset();
+    } catch (EZMQXException e) {
+
+    }
+    if (null != mTns) {
+      mTns.stop();
+    }
+  }
+
+  @Test
+  public void addTopicTest() throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    assertNotNull(publisher);
+    EZMQXTopic topic1 = publisher.addTopic(TestUtils.TOPIC + "/1",
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    EZMQXTopic topic2 = publisher.addTopic(TestUtils.TOPIC + "/2",
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    assertEquals(topic1.getEndPoint().toString(), topic2.getEndPoint().toString());
+    assertEquals(2, publisher.getTopics().size());
+    publisher.removeTopic(TestUtils.TOPIC + "/1");
+    assertEquals(1, publisher.getTopics().size());
+    publisher.terminate();
+  }
+
+  @Test
+  public void addTopicsTest() throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    List<String> topics = new ArrayList<String>();
+    for (int i = 0; i < 10; i++) {
+      topics.add(TestUtils.TOPIC + "/" + i);
+    }
+    assertEquals(10, publisher.addTopics(topics, EZMQXAmlModelInfo.AML_FILE_PATH,
+        TestUtils.FILE_PATH).size());
+    assertEquals(10, publisher.getTopics().size());
+    publisher.removeTopics(topics.subList(0, 5));
+    assertEquals(5, publisher.getTopics().size());
+    publisher.terminate();
+  }
+
+  @Test
+  public void addTopicsTnsTest() throws EZMQXException {
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    FakeRestClient.setResponse(TestUtils.PUB_TNS_URL, TestUtils.VALID_PUB_TNS_RESPONSE);
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    List<String> topics = new ArrayList<String>();
+    topics.add(TestUtils.TOPIC + "/1");
+    topics.add(TestUtils.TOPIC + "/2");
+    publisher.addTopics(topics, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    assertEquals(2, publisher.getTopics().size());
+    publisher.terminate();
+  }
+
+  @Test
+  public void addTopicsConflictTest() throws Exception {
+    mTns = new EmbeddedTns(0, 60, 2);
+    mTns.start();
+    RestFactory.getInstance().setFactory(new RestClientFactory());
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, mTns.getAddress());
+    EZMQXMultiTopicPublisher owner = EZMQXMultiTopicPublisher.getPublisher(5564);
+    owner.addTopic(TestUtils.TOPIC + "/2", EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    List<String> topics = new ArrayList<String>();
+    for (int i = 1; i <= 3; i++) {
+      topics.add(TestUtils.TOPIC + "/" + i);
+    }
+    try {
+      publisher.addTopics(topics, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+      fail("Topic of other publisher added");
+    } catch (EZMQXException e) {
+    }
+    assertEquals(0, publisher.getTopics().size());
+    // topics registered by the failed call are unregistered, the topic of owner is kept
+    assertEquals(1, mTns.getTopicCount());
+    assertEquals(RestUtils.HTTP_OK,
+        RestFactory.getInstance().get(mTns.getAddress() + RestUtils.PREFIX + RestUtils.TOPIC,
+            RestUtils.QUERY_NAME + TestUtils.TOPIC + "/2" + RestUtils.QUERY_HIERARCHICAL
+                + RestUtils.QUERY_FALSE).getStatusCode());
+    publisher.terminate();
+    owner.terminate();
+  }
+
+  @Test
+  public void removeTopicsBulkTest() throws Exception {
+    mTns = new EmbeddedTns(0, 60, 2, true);
+    mTns.start();
+    RestFactory.getInstance().setFactory(new RestClientFactory());
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, mTns.getAddress());
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    // names of all topics exceed the query length accepted by TNS
+    List<String> topics = new ArrayList<String>();
+    for (int i = 0; i < 200; i++) {
+      topics.add(TestUtils.TOPIC + "/robot/arm/joint/sensor/temperature/" + i);
+    }
+    publisher.addTopics(topics, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    assertEquals(200, mTns.getTopicCount());
+    publisher.removeTopics(topics);
+    assertEquals(0, mTns.getTopicCount());
+    assertEquals(200, mTns.getUnregisterCount());
+    publisher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void addDuplicatedTopicsTest() throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    List<String> topics = new ArrayList<String>();
+    topics.add(TestUtils.TOPIC);
+    topics.add(TestUtils.TOPIC);
+    try {
+      publisher.addTopics(topics, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
+  @Test
+  public void addTopicTnsTest() throws EZMQXException {
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    FakeRestClient.setResponse(TestUtils.PUB_TNS_URL, TestUtils.VALID_PUB_TNS_RESPONSE);
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    publisher.addTopic(TestUtils.TOPIC, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    assertEquals(TestUtils.TOPIC, publisher.getTopics().get(0).getName());
+    publisher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void addTopicNegativeTest() throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    try {
+      publisher.addTopic(TestUtils.INVALID_TOPIC, EZMQXAmlModelInfo.AML_FILE_PATH,
+          TestUtils.FILE_PATH);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void addDuplicatedTopicTest() throws EZMQXException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    try {
+      publisher.addTopic(TestUtils.TOPIC, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+      publisher.addTopic(TestUtils.TOPIC, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    } finally {
+      publisher.terminate();
+    }
+  }
+
+  @Test
+  public void publishTest() throws EZMQXException, AMLException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    publisher.addTopic(TestUtils.TOPIC, EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH);
+    publisher.publish(TestUtils.TOPIC, TestUtils.getAMLObject());
+    byte[] payload = new Representation(TestUtils.FILE_PATH).DataToByte(TestUtils.getAMLObject());
+    publisher.publishRaw(TestUtils.TOPIC, payload);
+    publisher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void publishUnknownTopicTest() throws EZMQXException, AMLException {
+    EZMQXMultiTopicPublisher publisher = EZMQXMultiTopicPublisher.getPublisher(5563);
+    try {
+      publisher.publish(TestUtils.TOPIC, TestUtils.getAMLObject());
+    } finally {
+      publisher.terminate();
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXAmlModelInfo;
+import org.protocol.ezmqx.EZMQXAmlPublisher;
+import org.protocol.ezmqx.EZMQXAmlSubscriber.EZMQXAmlSubCallback;
+import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXEndPoint;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXShardedSubscriber;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.internal.RestClientFactoryInterface;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.test.internal.FakeRestClientFactory;
+
+public class EZMQXShardedSubscriberTest {
+  private EZMQXConfig mConfig;
+  private final AtomicInteger mEventCount = new AtomicInteger();
+  private final int TOTAL_EVENTS = 5;
+  private final int SHARDS = 2;
+
+  @Before
+  public void setup() throws EZMQXException {
+    mConfig = EZMQXConfig.getInstance();
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+    RestClientFactoryInterface restFactory = new FakeRestClientFactory();
+    RestFactory.getInstance().setFactory(restFactory);
+    mEventCount.set(0);
+    assertNotNull(mConfig);
+  }
+
+  @After
+  public void after() throws Exception {
+    try {
+      mConfig.reset();
+    } catch (Exception e) {
+
+    }
+  }
+
+  private List<EZMQXTopic> getTopics() throws EZMQXException {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    List<String> IdList = mConfig.addAmlModel(amlFilePath);
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    topics.add(new EZMQXTopic(TestUtils.TOPIC, IdList.get(0), false,
+        new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT)));
+    topics.add(new EZMQXTopic(TestUtils.TOPIC + "/1", IdList.get(0), false,
+        new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT + 1)));
+    topics.add(new EZMQXTopic(TestUtils.TOPIC + "/2", IdList.get(0), false,
+        new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT + 1)));
+    return topics;
+  }
+
+  private EZMQXAmlSubCallback getCallback() {
+    return new EZMQXAmlSubCallback() {
+      @Override
+      public void onMessage(String topic, AMLObject data) {
+        mEventCount.incrementAndGet();
+      }
+
+      @Override
+      public void onError(String topic, EZMQXErrorCode errorCode) {}
+    };
+  }
+
+  @Test
+  public void getSubscriberTest() throws EZMQXException {
+    EZMQXShardedSubscriber subscriber =
+        EZMQXShardedSubscriber.getSubscriber(getTopics(), SHARDS, getCallback());
+    assertNotNull(subscriber);
+    assertEquals(SHARDS, subscriber.getShardCount());
+    // topics of an end point share the shard
+    assertEquals(1, subscriber.getShardEndPointCount(0));
+    assertEquals(1, subscriber.getShardEndPointCount(1));
+    assertEquals(3, subscriber.getTopics().size());
+    subscriber.terminate();
+  }
+
+  @Test
+  public void subscribeUnsubscribeTest() throws EZMQXException {
+    List<EZMQXTopic> topics = getTopics();
+    EZMQXShardedSubscriber subscriber =
+        EZMQXShardedSubscriber.getSubscriber(topics.subList(0, 1), SHARDS, getCallback());
+    assertEquals(1, subscriber.getShardEndPointCount(0));
+    assertEquals(0, subscriber.getShardEndPointCount(1));
+    subscriber.subscribe(topics.get(1));
+    assertEquals(1, subscriber.getShardEndPointCount(1));
+    // last topic of an end point frees its shard
+    subscriber.unsubscribe(topics.get(0));
+    assertEquals(0, subscriber.getShardEndPointCount(0));
+    assertEquals(1, subscriber.getTopics().size());
+    subscriber.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void getSubscriberNegativeTest() throws EZMQXException {
+    EZMQXShardedSubscriber.getSubscriber(getTopics(), 0, getCallback());
+  }
+
+  @Test
+  public void rebalanceTest() throws EZMQXException, AMLException, InterruptedException {
+    EZMQXShardedSubscriber subscriber =
+        EZMQXShardedSubscriber.getSubscriber(getTopics(), SHARDS, getCallback());
+    EZMQXAmlPublisher publisher = EZMQXAmlPublisher.getPublisher(TestUtils.TOPIC,
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, TestUtils.PORT);
+    // let subscriber connect before publishing
+    Thread.sleep(500);
+    for (int i = 0; i < TOTAL_EVENTS; i++) {
+      publisher.publish(TestUtils.getAMLObject());
+    }
+    Thread.sleep(500);
+    assertEquals(TOTAL_EVENTS, mEventCount.get());
+    assertEquals(TOTAL_EVENTS,
+        subscriber.getShardReceivedCount(0) + subscriber.getShardReceivedCount(1));
+    // two end points on two shards are already balanced
+    assertEquals(0, subscriber.rebalance());
+    publisher.terminate();
+    subscriber.terminate();
+  }
+
+  @Test
+  public void rebalanceSkewedTest() throws Exception {
+    List<String> amlFilePath = new ArrayList<String>();
+    amlFilePath.add(TestUtils.FILE_PATH);
+    String amlModelId = mConfig.addAmlModel(amlFilePath).get(0);
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    for (int i = 0; i < 3; i++) {
+      topics.add(new EZMQXTopic(TestUtils.TOPIC + "/" + i, amlModelId, false,
+          new EZMQXEndPoint(TestUtils.LOCAL_HOST, TestUtils.PORT + i)));
+    }
+    // end points 0 and 2 share shard 0, end point 1 is on shard 1
+    EZMQXShardedSubscriber subscriber =
+        EZMQXShardedSubscriber.getSubscriber(topics, SHARDS, getCallback());
+    assertEquals(2, subscriber.getShardEndPointCount(0));
+    assertEquals(1, subscriber.getShardEndPointCount(1));
+    EZMQXAmlPublisher first = EZMQXAmlPublisher.getPublisher(topics.get(0).getName(),
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, TestUtils.PORT);
+    EZMQXAmlPublisher last = EZMQXAmlPublisher.getPublisher(topics.get(2).getName(),
+        EZMQXAmlModelInfo.AML_FILE_PATH, TestUtils.FILE_PATH, TestUtils.PORT + 2);
+    Thread.sleep(500);
+
+    // all data arrives on shard 0, end point 1 is idle
+    for (int i = 0; i < TOTAL_EVENTS; i++) {
+      first.publish(TestUtils.getAMLObject());
+      last.publish(TestUtils.getAMLObject());
+    }
+    awaitEvents(2 * TOTAL_EVENTS);
+    assertEquals(2 * TOTAL_EVENTS, subscriber.getShardReceivedCount(0));
+    assertEquals(0, subscriber.getShardReceivedCount(1));
+
+    // one busy end point moves to the shard of the idle one
+    assertEquals(1, subscriber.rebalance());
+    assertEquals(1, subscriber.getShardEndPointCount(0));
+    assertEquals(2, subscriber.getShardEndPointCount(1));
+
+    // data of both busy end points still arrives, each on its own shard
+    for (int i = 0; i < TOTAL_EVENTS; i++) {
+      first.publish(TestUtils.getAMLObject());
+      last.publish(TestUtils.getAMLObject());
+    }
+    awaitEvents(4 * TOTAL_EVENTS);
+    assertEquals(3 * TOTAL_EVENTS, subscriber.getShardReceivedCount(0));
+    assertEquals(TOTAL_EVENTS, subscriber.getShardReceivedCount(1));
+    first.terminate();
+    last.terminate();
+    subscriber.terminate();
+  }
+
+  private void awaitEvents(int count) throws InterruptedException {
+    for (int i = 0; i < 50 && mEventCount.get() < count; i++) {
+      Thread.sleep(100);
+    }
+    Thread.sleep(100);
+    assertEquals(count, mEventCount.get());
+  }
+}
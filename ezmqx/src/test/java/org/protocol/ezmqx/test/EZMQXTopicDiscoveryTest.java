@@ -17,12 +17,18 @@
 
 package org.protocol.ezmqx.test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXErrorCode;
 import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXTopic;
 import org.protocol.ezmqx.EZMQXTopicDiscovery;
 import org.protocol.ezmqx.internal.RestClientFactoryInterface;
 import org.protocol.ezmqx.internal.RestFactory;
@@ -76,6 +82,69 @@ public class EZMQXTopicDiscoveryTest {
     instance.hierarchicalQuery(TestUtils.TOPIC);
   }
 
+  @Test
+  public void queryAsyncTest() throws EZMQXException, InterruptedException, ExecutionException {
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
+    assertNotNull(instance);
+    FakeRestClient.setResponse(TestUtils.TOPIC_DISCOVERY_URL,
+        TestUtils.VALID_TOPIC_DISCOVERY_RESPONSE);
+    EZMQXTopic topic = instance.queryAsync(TestUtils.TOPIC).get();
+    assertNotNull(topic);
+  }
+
+  @Test
+  public void hierarchicalQueryAsyncTest()
+      throws EZMQXException, InterruptedException, ExecutionException {
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
+    assertNotNull(instance);
+    FakeRestClient.setResponse(TestUtils.TOPIC_DISCOVERY_H_URL,
+        TestUtils.VALID_TOPIC_DISCOVERY_RESPONSE);
+    List<EZMQXTopic> topics = instance.hierarchicalQueryAsync(TestUtils.TOPIC).get();
+    assertEquals(1, topics.size());
+  }
+
+  @Test
+  public void wildCardQueryTest() throws Exception {
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
+    FakeRestClient.setResponse(TestUtils.TOPIC_DISCOVERY_H_URL, "{ \"topics\": ["
+        + getTopicJson("/topic/a/temp") + ", " + getTopicJson("/topic/b/temp") + ", "
+        + getTopicJson("/topic/a/b/temp") + ", " + getTopicJson("/topic/temp") + "] }");
+    List<EZMQXTopic> topics = instance.wildCardQuery("/topic/*/temp");
+    assertEquals(2, topics.size());
+    topics = instance.wildCardQueryAsync("/topic/*/*/temp").get();
+    assertEquals(1, topics.size());
+    assertEquals("/topic/a/b/temp", topics.get(0).getName());
+    assertEquals(0, instance.wildCardQuery("/topic/*/humidity").size());
+  }
+
+  @Test
+  public void wildCardQueryNegativeTest() throws EZMQXException {
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
+    try {
+      instance.wildCardQuery("/*/temp");
+      fail();
+    } catch (EZMQXException e) {
+      assertEquals(EZMQXErrorCode.InvalidTopic, e.getCode());
+    }
+  }
+
+  private String getTopicJson(String name) {
+    return "{ \"name\": \"" + name + "\", \"datamodel\": \"GTC_Robot_0.0.1\","
+        + " \"endpoint\": \"localhost:5562\", \"secured\": \"false\"}";
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void queryAsyncNegativeTest() throws EZMQXException {
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+    EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
+    assertNotNull(instance);
+    instance.queryAsync(TestUtils.TOPIC);
+  }
+
   @Test(expected = EZMQXException.class)
   public void queryNegativeTest() throws EZMQXException {
     EZMQXTopicDiscovery instance = new EZMQXTopicDiscovery();
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXConfig;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.EZMQXTopicWatcher;
+import org.protocol.ezmqx.EZMQXTopicWatcher.EZMQXTopicWatchCallback;
+import org.protocol.ezmqx.internal.RestClientFactoryInterface;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.test.internal.FakeRestClient;
+import org.protocol.ezmqx.test.internal.FakeRestClientFactory;
+
+public class EZMQXTopicWatcherTest {
+  private EZMQXConfig mConfig;
+  private AtomicInteger mAdded;
+  private AtomicInteger mChanged;
+  private AtomicInteger mRemoved;
+  private final long INTERVAL = 100;
+  private final long TIMEOUT = 5000;
+
+  @Before
+  public void setup() throws EZMQXException {
+    mConfig = EZMQXConfig.getInstance();
+    assertNotNull(mConfig);
+    RestClientFactoryInterface restFactory = new FakeRestClientFactory();
+    RestFactory.getInstance().setFactory(restFactory);
+    mConfig.startStandAloneMode(TestUtils.ADDRESS, true, TestUtils.TNS_ADDRESS);
+    FakeRestClient.setResponse(TestUtils.TOPIC_DISCOVERY_H_URL, TestUtils.WATCH_TOPIC_RESPONSE);
+    mAdded = new AtomicInteger(0);
+    mChanged = new AtomicInteger(0);
+    mRemoved = new AtomicInteger(0);
+  }
+
+  @After
+  public void after() throws Exception {
+    try {
+      mConfig.reset();
+    } catch (EZMQXException e) {
+    }
+  }
+
+  // first check may take long while classes are loaded
+  private void waitFor(AtomicInteger count, int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (count.get() < expected && System.currentTimeMillis() < deadline) {
+      Thread.sleep(INTERVAL);
+    }
+  }
+
+  private EZMQXTopicWatchCallback getCallback() {
+    return new EZMQXTopicWatchCallback() {
+      @Override
+      public void onTopicAdded(String prefix, EZMQXTopic topic) {
+        mAdded.incrementAndGet();
+      }
+
+      @Override
+      public void onTopicChanged(String prefix, EZMQXTopic topic) {
+        mChanged.incrementAndGet();
+      }
+
+      @Override
+      public void onTopicRemoved(String prefix, EZMQXTopic topic) {
+        mRemoved.incrementAndGet();
+      }
+
+      @Override
+      public void onError(String prefix, EZMQXErrorCode errorCode) {}
+    };
+  }
+
+  @Test
+  public void watchTest() throws EZMQXException, InterruptedException {
+    EZMQXTopicWatcher watcher = new EZMQXTopicWatcher(INTERVAL);
+    watcher.watch(TestUtils.TOPIC, getCallback());
+    waitFor(mAdded, 2);
+    Thread.sleep(INTERVAL * 3);
+    assertEquals(2, mAdded.get());
+    // unchanged topics are not sent again
+    assertTrue(watcher.getNotModifiedCount() > 0);
+
+    FakeRestClient.setResponse(TestUtils.TOPIC_DISCOVERY_H_URL,
+        TestUtils.WATCH_TOPIC_CHANGED_RESPONSE);
+    waitFor(mRemoved, 1);
+    assertEquals(2, mAdded.get());
+    assertEquals(1, mChanged.get());
+    assertEquals(1, mRemoved.get());
+    watcher.terminate();
+  }
+
+  @Test
+  public void nestedWatchTest() throws EZMQXException, InterruptedException {
+    EZMQXTopicWatcher watcher = new EZMQXTopicWatcher(INTERVAL);
+    watcher.watch(TestUtils.TOPIC, getCallback());
+    watcher.watch(TestUtils.TOPIC + "/1", getCallback());
+    waitFor(mAdded, 3);
+    // both prefixes are served by a single query
+    assertEquals(3, mAdded.get());
+    watcher.unwatch(TestUtils.TOPIC + "/1");
+    watcher.terminate();
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void watchDuplicatedPrefixTest() throws EZMQXException {
+    EZMQXTopicWatcher watcher = new EZMQXTopicWatcher(INTERVAL);
+    try {
+      watcher.watch(TestUtils.TOPIC, getCallback());
+      watcher.watch(TestUtils.TOPIC, getCallback());
+    } finally {
+      watcher.terminate();
+    }
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void watcherWithoutTnsTest() throws EZMQXException {
+    mConfig.reset();
+    mConfig.startStandAloneMode(TestUtils.LOCAL_HOST, false, "");
+    new EZMQXTopicWatcher(INTERVAL);
+  }
+}
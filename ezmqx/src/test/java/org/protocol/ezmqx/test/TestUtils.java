@@ -31,6 +31,7 @@ public class TestUtils {
   public static final String TNS_ADDRESS = "http://192.168.0.1:80/tns-server";
   public static final String LOCAL_HOST = "localhost";
   public static final int PORT = 5562;
+  public static final int REST_TIMEOUT = 5;
   public static final String TOPIC = "/topic";
   public static final String INVALID_TOPIC = "topic";
   public static final String FILE_PATH = "src/test/resources/sample_data_model.aml";
@@ -79,6 +80,10 @@ public class TestUtils {
       "{ \"topics\": [ { \"name\": \"topicName\", \"datamodel\": \"GTC_Robot_0.0.1\", \"endpoint\": \"localhost:5562\" , \"secured\": \"false\"} ] }";
   public static final String SUB_TOPIC_URL =
       "http://192.168.0.1:80/tns-server/api/v1/tns/topic?name=/topic&hierarchical=no";
+  public static final String WATCH_TOPIC_RESPONSE =
+      "{ \"topics\": [ { \"name\": \"/topic/1\", \"datamodel\": \"GTC_Robot_0.0.1\", \"endpoint\": \"localhost:5562\" , \"secured\": \"false\"}, { \"name\": \"/topic/2\", \"datamodel\": \"GTC_Robot_0.0.1\", \"endpoint\": \"localhost:5563\" , \"secured\": \"false\"} ] }";
+  public static final String WATCH_TOPIC_CHANGED_RESPONSE =
+      "{ \"topics\": [ { \"name\": \"/topic/1\", \"datamodel\": \"GTC_Robot_0.0.1\", \"endpoint\": \"localhost:5564\" , \"secured\": \"false\"} ] }";
 
 
   public static AMLObject getAMLObject() throws AMLException {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.datamodel.aml.AMLData;
+import org.datamodel.aml.AMLException;
+import org.datamodel.aml.AMLObject;
+import org.datamodel.aml.Representation;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXAmlCodec;
+import org.protocol.ezmqx.internal.AmlCodec;
+import org.protocol.ezmqx.internal.Utils;
+import org.protocol.ezmqx.test.TestUtils;
+
+public class AmlCodecTest {
+  private Representation mRepresentation;
+  private AmlCodec mCodec;
+  private int mEncodeCount;
+  private int mDecodeCount;
+
+  @Before
+  public void setup() throws AMLException {
+    mRepresentation = new Representation(TestUtils.FILE_PATH);
+    mCodec = new AmlCodec(mRepresentation);
+    mEncodeCount = 0;
+    mDecodeCount = 0;
+  }
+
+  // matches AML representation as it delegates to it
+  private EZMQXAmlCodec getCodec() {
+    return new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        mEncodeCount++;
+        return mRepresentation.DataToByte(data);
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) throws AMLException {
+        mDecodeCount++;
+        return mRepresentation.ByteToData(data);
+      }
+    };
+  }
+
+  @Test
+  public void encodeTest() throws AMLException {
+    AMLObject data = TestUtils.getAMLObject();
+    assertArrayEquals(mRepresentation.DataToByte(data), mCodec.encode(data));
+    assertFalse(mCodec.isSpecialized());
+  }
+
+  @Test
+  public void specializedCodecTest() throws AMLException {
+    mCodec.setCodec(getCodec());
+    AMLObject data = TestUtils.getAMLObject();
+    byte[] expected = mRepresentation.DataToByte(data);
+    for (int i = 0; i < 3; i++) {
+      assertArrayEquals(expected, mCodec.encode(data));
+      mCodec.decode(expected);
+    }
+    assertTrue(mCodec.isSpecialized());
+    assertEquals(3, mEncodeCount);
+    assertEquals(3, mDecodeCount);
+  }
+
+  @Test
+  public void encodeMismatchTest() throws AMLException {
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) {
+        return new byte[] {0};
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) {
+        return null;
+      }
+    });
+    AMLObject data = TestUtils.getAMLObject();
+    // data of AML representation is sent and the codec is dropped
+    assertArrayEquals(mRepresentation.DataToByte(data), mCodec.encode(data));
+    assertFalse(mCodec.isSpecialized());
+  }
+
+  @Test
+  public void verifyPerShapeTest() throws AMLException {
+    // matches AML representation for data of TestUtils only
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        return null == data.getData("extra") ? mRepresentation.DataToByte(data) : new byte[] {0};
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) throws AMLException {
+        return mRepresentation.ByteToData(data);
+      }
+    });
+    for (int i = 0; i <= Utils.AML_CODEC_VERIFY_CALLS; i++) {
+      mCodec.encode(TestUtils.getAMLObject());
+    }
+    assertTrue(mCodec.isSpecialized());
+    // first data of another shape is verified
+    AMLObject data = getExtraAMLObject();
+    assertArrayEquals(mRepresentation.DataToByte(data), mCodec.encode(data));
+    assertFalse(mCodec.isSpecialized());
+  }
+
+  @Test
+  public void provenShapeTest() throws AMLException {
+    // matches AML representation for the first calls only
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        return ++mEncodeCount <= Utils.AML_CODEC_VERIFY_CALLS ? mRepresentation.DataToByte(data)
+            : new byte[] {0};
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) throws AMLException {
+        return mRepresentation.ByteToData(data);
+      }
+    });
+    AMLObject data = TestUtils.getAMLObject();
+    for (int i = 0; i < Utils.AML_CODEC_VERIFY_CALLS; i++) {
+      assertArrayEquals(mRepresentation.DataToByte(data), mCodec.encode(data));
+    }
+    // calls of a proven shape are not verified
+    assertArrayEquals(new byte[] {0}, mCodec.encode(data));
+    assertTrue(mCodec.isSpecialized());
+  }
+
+  @Test
+  public void decodeEqualTest() throws AMLException {
+    // decoded data is a new object equal to the data decoded by AML representation
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        return mRepresentation.DataToByte(data);
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) throws AMLException {
+        mDecodeCount++;
+        return TestUtils.getAMLObject();
+      }
+    });
+    byte[] encoded = mRepresentation.DataToByte(TestUtils.getAMLObject());
+    for (int i = 0; i <= Utils.AML_CODEC_VERIFY_CALLS; i++) {
+      mCodec.decode(encoded);
+    }
+    assertTrue(mCodec.isSpecialized());
+    assertEquals(Utils.AML_CODEC_VERIFY_CALLS + 1, mDecodeCount);
+  }
+
+  @Test
+  public void decodeValueMismatchTest() throws AMLException {
+    // same shape as the data decoded by AML representation, other value
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        return mRepresentation.DataToByte(data);
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) throws AMLException {
+        AMLObject decoded = TestUtils.getAMLObject();
+        decoded.getData("Model").setValue("con", "other");
+        return decoded;
+      }
+    });
+    AMLObject decoded = mCodec.decode(mRepresentation.DataToByte(TestUtils.getAMLObject()));
+    assertEquals("SR-P7-970", decoded.getData("Model").getValueToStr("con"));
+    assertFalse(mCodec.isSpecialized());
+  }
+
+  private AMLObject getExtraAMLObject() throws AMLException {
+    AMLObject data = TestUtils.getAMLObject();
+    AMLData extra = new AMLData();
+    extra.setValue("key", "value");
+    data.addData("extra", extra);
+    return data;
+  }
+
+  @Test
+  public void decodeMismatchTest() throws AMLException {
+    mCodec.setCodec(new EZMQXAmlCodec() {
+      @Override
+      public byte[] encode(AMLObject data) throws AMLException {
+        return mRepresentation.DataToByte(data);
+      }
+
+      @Override
+      public AMLObject decode(byte[] data) {
+        throw new IllegalStateException();
+      }
+    });
+    mCodec.decode(mRepresentation.DataToByte(TestUtils.getAMLObject()));
+    assertFalse(mCodec.isSpecialized());
+  }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.datamodel.aml.Representation;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.internal.AmlModelLoader;
+import org.protocol.ezmqx.internal.Utils;
+import org.protocol.ezmqx.test.TestUtils;
+
+public class AmlModelLoaderTest {
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  @After
+  public void after() {
+    AmlModelLoader.getInstance().configure(Utils.AML_LOAD_PARALLELISM);
+  }
+
+  private String copy(String suffix) throws IOException {
+    File file = mFolder.newFile("model" + suffix + ".aml");
+    Files.copy(Paths.get(TestUtils.FILE_PATH), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    return file.getPath();
+  }
+
+  private void loadTest(int parallelism) throws EZMQXException, IOException {
+    AmlModelLoader.getInstance().configure(parallelism);
+    List<String> paths = new ArrayList<String>();
+    for (int i = 0; i < 8; i++) {
+      paths.add(copy(parallelism + "_" + i));
+    }
+    List<Representation> representations = AmlModelLoader.getInstance().load(paths);
+    assertEquals(paths.size(), representations.size());
+    // same content is parsed once
+    for (Representation representation : representations) {
+      assertSame(representations.get(0), representation);
+    }
+  }
+
+  @Test
+  public void loadTest() throws EZMQXException, IOException {
+    loadTest(Utils.AML_LOAD_PARALLELISM);
+  }
+
+  @Test
+  public void loadSerialTest() throws EZMQXException, IOException {
+    loadTest(1);
+  }
+
+  @Test
+  public void loadChangedContentTest() throws EZMQXException, IOException {
+    List<String> paths = new ArrayList<String>();
+    paths.add(copy("0"));
+    Representation first = AmlModelLoader.getInstance().load(paths).get(0);
+    Files.write(Paths.get(paths.get(0)), "\n".getBytes(), StandardOpenOption.APPEND);
+    assertNotSame(first, AmlModelLoader.getInstance().load(paths).get(0));
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void loadMissingFileTest() throws EZMQXException, IOException {
+    List<String> paths = new ArrayList<String>();
+    paths.add(copy("0"));
+    paths.add(new File(mFolder.getRoot(), "missing.aml").getPath());
+    AmlModelLoader.getInstance().load(paths);
+  }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.protocol.ezmqx.EZMQXAmlModelProvider;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.internal.AmlModelRegistry;
+import org.protocol.ezmqx.test.TestUtils;
+
+public class AmlModelRegistryTest {
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  private AmlModelRegistry mRegistry;
+  private String mPath;
+  private String mModelId;
+
+  @Before
+  public void setup() throws EZMQXException, IOException {
+    File file = mFolder.newFile("model.aml");
+    Files.copy(Paths.get(TestUtils.FILE_PATH), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    mPath = file.getPath();
+    List<String> paths = new ArrayList<String>();
+    paths.add(mPath);
+    mModelId = new AmlModelRegistry().add(paths).get(0);
+    mRegistry = new AmlModelRegistry();
+  }
+
+  @Test
+  public void directoryTest() throws EZMQXException {
+    mRegistry.addDirectory(mFolder.getRoot().getPath());
+    assertFalse(mRegistry.isLoaded(mModelId));
+    assertNotNull(mRegistry.get(mModelId));
+    assertTrue(mRegistry.isLoaded(mModelId));
+  }
+
+  @Test
+  public void providerTest() throws EZMQXException {
+    mRegistry.setProvider(new EZMQXAmlModelProvider() {
+      @Override
+      public String getAmlFilePath(String amlModelId) {
+        return mModelId.equals(amlModelId) ? mPath : null;
+      }
+    });
+    assertNotNull(mRegistry.get(mModelId));
+    assertTrue(mRegistry.isLoaded(mModelId));
+  }
+
+  @Test
+  public void referenceCountTest() throws EZMQXException {
+    mRegistry.addDirectory(mFolder.getRoot().getPath());
+    mRegistry.acquire(mModelId);
+    mRegistry.acquire(mModelId);
+    assertEquals(2, mRegistry.getReferenceCount(mModelId));
+    mRegistry.release(mModelId);
+    mRegistry.release(mModelId);
+    // releasing an unreferenced model is ignored
+    mRegistry.release(mModelId);
+    assertEquals(0, mRegistry.getReferenceCount(mModelId));
+  }
+
+  @Test
+  public void evictTest() throws EZMQXException {
+    List<String> paths = new ArrayList<String>();
+    paths.add(mPath);
+    mRegistry.add(paths);
+    mRegistry.acquire(mModelId);
+    // referenced model is kept over budget
+    mRegistry.setBudget(0);
+    assertTrue(mRegistry.isLoaded(mModelId));
+    mRegistry.release(mModelId);
+    assertFalse(mRegistry.isLoaded(mModelId));
+    // evicted model is reloaded from its file
+    assertNotNull(mRegistry.acquire(mModelId));
+    assertEquals(1, mRegistry.getReferenceCount(mModelId));
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void unknownModelTest() throws EZMQXException {
+    mRegistry.addDirectory(mFolder.getRoot().getPath());
+    mRegistry.get(mModelId + "_unknown");
+  }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.protocol.ezmqx.internal.BootstrapSnapshot;
+
+public class BootstrapSnapshotTest {
+  private static final String SNAPSHOT = "{\"version\": " + BootstrapSnapshot.VERSION
+      + ", \"hostname\": \"103dd8cca769\", \"hostaddress\": \"192.168.0.2\","
+      + " \"anchoraddress\": \"http://192.168.0.1:80/pharos-anchor/api/v1\","
+      + " \"tnsaddress\": \"http://192.168.0.1:80/tns-server\", \"reverseproxy\": true,"
+      + " \"ports\": {\"4000\": 4000, \"4001\": 14001}}";
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  private String write(String content) throws IOException {
+    File file = mFolder.newFile();
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return file.getPath();
+  }
+
+  @Test
+  public void loadSaveTest() throws IOException {
+    BootstrapSnapshot snapshot = BootstrapSnapshot.load(write(SNAPSHOT));
+    assertNotNull(snapshot);
+    assertEquals("103dd8cca769", snapshot.getHostname());
+    String path = new File(mFolder.getRoot(), "snapshot.json").getPath();
+    snapshot.save(path);
+    assertFalse(new File(path + ".tmp").exists());
+    assertEquals(snapshot, BootstrapSnapshot.load(path));
+    // saving again replaces the snapshot
+    snapshot.save(path);
+    assertEquals(snapshot, BootstrapSnapshot.load(path));
+  }
+
+  @Test
+  public void loadMissingTest() {
+    assertNull(BootstrapSnapshot.load(new File(mFolder.getRoot(), "missing").getPath()));
+  }
+
+  @Test
+  public void loadOtherVersionTest() throws IOException {
+    String snapshot = SNAPSHOT.replaceFirst("\"version\": [0-9]+",
+        "\"version\": " + (BootstrapSnapshot.VERSION + 1));
+    assertNull(BootstrapSnapshot.load(write(snapshot)));
+  }
+
+  @Test
+  public void loadInvalidTest() throws IOException {
+    assertNull(BootstrapSnapshot.load(write(SNAPSHOT.substring(0, SNAPSHOT.length() / 2))));
+    assertNull(BootstrapSnapshot.load(write(SNAPSHOT.replace("\"4000\":", "\"port\":"))));
+  }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.edgexfoundry.ezmq.EZMQMessage;
+import org.edgexfoundry.ezmq.bytedata.EZMQByteData;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
+import org.protocol.ezmqx.internal.Dispatcher;
+
+public class DispatcherTest {
+  private final int TOPICS = 8;
+  private final int MESSAGES = 1000;
+
+  @Test
+  public void orderTest() throws EZMQXException {
+    final Map<String, List<EZMQMessage>> received =
+        new ConcurrentHashMap<String, List<EZMQMessage>>();
+    final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    Dispatcher dispatcher = new Dispatcher(4, 16, EZMQXWaitStrategy.PARK,
+        EZMQXOverflowPolicy.BLOCK, new Dispatcher.Handler() {
+          public void onMessage(String topic, EZMQMessage message) {
+            threads.add(Thread.currentThread());
+            // lists are only touched by the lane owning the topic
+            received.get(topic).add(message);
+          }
+        });
+    List<List<EZMQMessage>> sent = new ArrayList<List<EZMQMessage>>();
+    for (int i = 0; i < TOPICS; i++) {
+      received.put("/topic/" + i, new ArrayList<EZMQMessage>());
+      sent.add(new ArrayList<EZMQMessage>());
+    }
+    dispatcher.start("DispatcherTest");
+    for (int n = 0; n < MESSAGES; n++) {
+      for (int i = 0; i < TOPICS; i++) {
+        EZMQMessage message = new EZMQByteData(new byte[] {(byte) n});
+        sent.get(i).add(message);
+        dispatcher.dispatch("/topic/" + i, message);
+      }
+    }
+    dispatcher.stop();
+    for (int i = 0; i < TOPICS; i++) {
+      assertEquals(sent.get(i), received.get("/topic/" + i));
+    }
+    assertEquals(TOPICS * MESSAGES, dispatcher.getDispatchedCount());
+    assertEquals(0, dispatcher.getDroppedCount());
+    assertEquals(0, dispatcher.getQueuedCount());
+    assertTrue(threads.size() > 1);
+  }
+
+  @Test
+  public void laneTest() throws EZMQXException {
+    final Set<String> laneThreads = new HashSet<String>();
+    Dispatcher dispatcher = new Dispatcher(3, 4, EZMQXWaitStrategy.YIELD,
+        EZMQXOverflowPolicy.BLOCK, new Dispatcher.Handler() {
+          public void onMessage(String topic, EZMQMessage message) {
+            synchronized (laneThreads) {
+              laneThreads.add(topic + Thread.currentThread().getName());
+            }
+          }
+        });
+    dispatcher.start("DispatcherTest");
+    for (int n = 0; n < 100; n++) {
+      dispatcher.dispatch("/topic", null);
+    }
+    dispatcher.stop();
+    assertEquals(3, dispatcher.getLaneCount());
+    assertEquals(1, laneThreads.size());
+  }
+}
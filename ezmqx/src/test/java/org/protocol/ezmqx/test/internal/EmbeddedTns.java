@@ -0,0 +1,470 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.internal.TopicTrie;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in of the TNS [Topic name server] for tests and load tests. Serves the same
+ * REST API as the TNS server: register, query [exact and hierarchical], keep alive and unregister
+ * of topics. Topics which are not kept alive for {@link #KEEPALIVE_EXPIRY_FACTOR} keep alive
+ * intervals are removed.<br>
+ * Use {@link #getAddress()} as TNS address of {@link org.protocol.ezmqx.EZMQXConfig}.<br>
+ * <b>Note:</b> <br>
+ * (1) Extensions which the TNS server does not support are disabled by default: bulk register
+ * and unregister requests are rejected with HTTP_BAD_REQUEST and query replies carry no entity
+ * tag. With extensions enabled by {@link #EmbeddedTns(int, int, int, boolean)}, topics can be
+ * registered and unregistered in bulk, and a query with matching If-None-Match header is answered
+ * with HTTP_NOT_MODIFIED without topics.<br>
+ * (2) Paths, payload keys and status codes are taken from RestUtils, so that the embedded TNS
+ * follows the protocol of the library it is tested with.
+ */
+public class EmbeddedTns {
+  public static final int KEEPALIVE_EXPIRY_FACTOR = 2;
+  // longer queries are rejected with HTTP_URI_TOO_LONG, like proxies in front of TNS do
+  public static final int MAX_QUERY_LENGTH = 8192;
+
+  private static final String LOCAL_HOST = "localhost";
+  private static final String CONTENT_TYPE = "Content-Type";
+  private static final String APPLICATION_JSON = "application/json";
+  private static final String QUERY_SEPARATOR = "&";
+  private static final String QUERY_ASSIGN = "=";
+  private static final String QUERY_HIERARCHICAL = "hierarchical";
+  private static final String QUERY_NAMES = "names";
+  private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+  private static final ObjectMapper mMapper = new ObjectMapper();
+
+  private final int mPort;
+  private final int mKeepAliveInterval;
+  private final int mThreads;
+  private final boolean mExtensions;
+  // guarded by itself
+  private final TopicTrie<TopicRecord> mTopics;
+  private HttpServer mServer;
+  private ExecutorService mExecutor;
+  private ScheduledExecutorService mSweeper;
+
+  private final AtomicLong mRegisterCount;
+  private final AtomicLong mQueryCount;
+  private final AtomicLong mNotModifiedCount;
+  private final AtomicLong mKeepAliveCount;
+  private final AtomicLong mUnregisterCount;
+  private final AtomicLong mExpiredCount;
+
+  private static class TopicRecord {
+    private final String mName;
+    private final String mEndPoint;
+    private final String mDataModel;
+    private final boolean mSecured;
+    private volatile long mLastKeepAlive;
+
+    TopicRecord(String name, String endPoint, String dataModel, boolean isSecured) {
+      mName = name;
+      mEndPoint = endPoint;
+      mDataModel = dataModel;
+      mSecured = isSecured;
+      mLastKeepAlive = System.nanoTime();
+    }
+  }
+
+  /**
+   * Constructs embedded TNS without extensions, server is not started.
+   *
+   * @param port Port to listen on, 0 for any free port.
+   * @param keepAliveInterval Keep alive interval in seconds returned to registering publishers.
+   * @param threads Number of request handling threads.
+   */
+  public EmbeddedTns(int port, int keepAliveInterval, int threads) {
+    this(port, keepAliveInterval, threads, false);
+  }
+
+  /**
+   * Constructs embedded TNS, server is not started.
+   *
+   * @param port Port to listen on, 0 for any free port.
+   * @param keepAliveInterval Keep alive interval in seconds returned to registering publishers.
+   * @param threads Number of request handling threads.
+   * @param extensions Whether bulk register/unregister and entity tags are supported.
+   */
+  public EmbeddedTns(int port, int keepAliveInterval, int threads, boolean extensions) {
+    if (keepAliveInterval < 1 || threads < 1) {
+      throw new IllegalArgumentException("Invalid keep alive interval or thread count");
+    }
+    mPort = port;
+    mKeepAliveInterval = keepAliveInterval;
+    mThreads = threads;
+    mExtensions = extensions;
+    mTopics = new TopicTrie<TopicRecord>();
+    mRegisterCount = new AtomicLong();
+    mQueryCount = new AtomicLong();
+    mNotModifiedCount = new AtomicLong();
+    mKeepAliveCount = new AtomicLong();
+    mUnregisterCount = new AtomicLong();
+    mExpiredCount = new AtomicLong();
+  }
+
+  /**
+   * Starts listening on localhost and starts expiry of topics.
+   *
+   * @throws IOException If port could not be bound.
+   */
+  public synchronized void start() throws IOException {
+    if (null != mServer) {
+      return;
+    }
+    // headers and body are written separately, with Nagle enabled every small reply waits for
+    // the delayed ACK of the client [~40 ms] which hides the actual server latency.
+    if (null == System.getProperty(NO_DELAY_PROPERTY)) {
+      System.setProperty(NO_DELAY_PROPERTY, "true");
+    }
+    mServer = HttpServer.create(new InetSocketAddress(LOCAL_HOST, mPort), 0);
+    mServer.createContext(RestUtils.PREFIX + RestUtils.TOPIC, new TopicHandler());
+    mServer.createContext(RestUtils.PREFIX + RestUtils.TNS_KEEP_ALIVE, new KeepAliveHandler());
+    mExecutor = Executors.newFixedThreadPool(mThreads);
+    mServer.setExecutor(mExecutor);
+    mServer.start();
+
+    mSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "EmbeddedTns-expiry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    mSweeper.scheduleWithFixedDelay(this::expireTopics, mKeepAliveInterval, mKeepAliveInterval,
+        TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stops server and removes every registered topic.
+   */
+  public synchronized void stop() {
+    if (null == mServer) {
+      return;
+    }
+    mServer.stop(0);
+    mExecutor.shutdownNow();
+    mSweeper.shutdownNow();
+    mServer = null;
+    synchronized (mTopics) {
+      mTopics.clear();
+    }
+  }
+
+  /**
+   * Get TNS address to be used by ezmq plus library e.g. http://localhost:48323
+   *
+   * @return TNS address.
+   */
+  public synchronized String getAddress() {
+    if (null == mServer) {
+      throw new IllegalStateException("Embedded TNS is not started");
+    }
+    return "http://" + LOCAL_HOST + ":" + mServer.getAddress().getPort();
+  }
+
+  public int getTopicCount() {
+    synchronized (mTopics) {
+      return mTopics.size();
+    }
+  }
+
+  public long getRegisterCount() {
+    return mRegisterCount.get();
+  }
+
+  public long getQueryCount() {
+    return mQueryCount.get();
+  }
+
+  public long getNotModifiedCount() {
+    return mNotModifiedCount.get();
+  }
+
+  public long getKeepAliveCount() {
+    return mKeepAliveCount.get();
+  }
+
+  public long getUnregisterCount() {
+    return mUnregisterCount.get();
+  }
+
+  public long getExpiredCount() {
+    return mExpiredCount.get();
+  }
+
+  private void expireTopics() {
+    long timeout = TimeUnit.SECONDS.toNanos((long) mKeepAliveInterval * KEEPALIVE_EXPIRY_FACTOR);
+    long now = System.nanoTime();
+    synchronized (mTopics) {
+      for (TopicRecord record : mTopics.values()) {
+        if (now - record.mLastKeepAlive > timeout) {
+          mTopics.remove(record.mName);
+          mExpiredCount.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  private class TopicHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        String method = exchange.getRequestMethod();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (null != query && query.length() > MAX_QUERY_LENGTH) {
+          send(exchange, RestUtils.HTTP_URI_TOO_LONG, null);
+        } else if ("POST".equals(method)) {
+          register(exchange);
+        } else if ("GET".equals(method)) {
+          query(exchange);
+        } else if ("DELETE".equals(method)) {
+          unregister(exchange);
+        } else {
+          send(exchange, RestUtils.HTTP_BAD_METHOD, null);
+        }
+      } finally {
+        exchange.close();
+      }
+    }
+
+    // Single {"topic":{..}} or bulk {"topics":[{..}, ..]} [extension], bulk is registered all or
+    // nothing.
+    private void register(HttpExchange exchange) throws IOException {
+      JsonNode root = readBody(exchange);
+      List<TopicRecord> records = new ArrayList<TopicRecord>();
+      if (root.has(RestUtils.PAYLOAD_TOPICS)) {
+        if (!mExtensions) {
+          send(exchange, RestUtils.HTTP_BAD_REQUEST, null);
+          return;
+        }
+        for (JsonNode topic : root.path(RestUtils.PAYLOAD_TOPICS)) {
+          records.add(toRecord(topic));
+        }
+      } else {
+        records.add(toRecord(root.path(RestUtils.PAYLOAD_TOPIC)));
+      }
+      if (records.isEmpty() || records.contains(null)) {
+        send(exchange, RestUtils.HTTP_BAD_REQUEST, null);
+        return;
+      }
+      synchronized (mTopics) {
+        for (TopicRecord record : records) {
+          if (mTopics.contains(record.mName)) {
+            send(exchange, RestUtils.HTTP_CONFLICT, null);
+            return;
+          }
+        }
+        for (TopicRecord record : records) {
+          mTopics.put(record.mName, record);
+        }
+      }
+      mRegisterCount.addAndGet(records.size());
+      ObjectNode reply = mMapper.createObjectNode();
+      reply.put(RestUtils.PAYLOAD_KEEPALIVE_INTERVAL, mKeepAliveInterval);
+      send(exchange, RestUtils.HTTP_CREATED, reply);
+    }
+
+    private TopicRecord toRecord(JsonNode topic) {
+      String name = topic.path(RestUtils.PAYLOAD_NAME).asText(null);
+      String endPoint = topic.path(RestUtils.PAYLOAD_ENDPOINT).asText(null);
+      String dataModel = topic.path(RestUtils.PAYLOAD_DATAMODEL).asText(null);
+      if (null == name || null == endPoint || null == dataModel) {
+        return null;
+      }
+      return new TopicRecord(name, endPoint, dataModel,
+          topic.path(RestUtils.PAYLOAD_SECURED).asBoolean());
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+      String query = exchange.getRequestURI().getRawQuery();
+      String name = getParameter(query, RestUtils.PAYLOAD_NAME);
+      if (null == name) {
+        send(exchange, RestUtils.HTTP_BAD_REQUEST, null);
+        return;
+      }
+      boolean isHierarchical =
+          RestUtils.QUERY_TRUE.equals(getParameter(query, QUERY_HIERARCHICAL));
+      List<TopicRecord> records;
+      synchronized (mTopics) {
+        if (isHierarchical) {
+          records = mTopics.getHierarchical(name);
+        } else {
+          records = new ArrayList<TopicRecord>(1);
+          TopicRecord record = mTopics.get(name);
+          if (null != record) {
+            records.add(record);
+          }
+        }
+      }
+      mQueryCount.incrementAndGet();
+      if (records.isEmpty()) {
+        send(exchange, RestUtils.HTTP_NOT_FOUND, null);
+        return;
+      }
+      ObjectNode root = mMapper.createObjectNode();
+      ArrayNode topics = root.putArray(RestUtils.PAYLOAD_TOPICS);
+      for (TopicRecord record : records) {
+        ObjectNode topic = topics.addObject();
+        topic.put(RestUtils.PAYLOAD_NAME, record.mName);
+        topic.put(RestUtils.PAYLOAD_DATAMODEL, record.mDataModel);
+        topic.put(RestUtils.PAYLOAD_ENDPOINT, record.mEndPoint);
+        topic.put(RestUtils.PAYLOAD_SECURED, record.mSecured);
+      }
+      byte[] bytes = mMapper.writeValueAsBytes(root);
+      if (!mExtensions) {
+        sendBytes(exchange, RestUtils.HTTP_OK, bytes);
+        return;
+      }
+      CRC32 crc = new CRC32();
+      crc.update(bytes);
+      String eTag = "\"" + Long.toHexString(crc.getValue()) + "\"";
+      exchange.getResponseHeaders().set(RestUtils.HEADER_ETAG, eTag);
+      if (eTag.equals(exchange.getRequestHeaders().getFirst(RestUtils.HEADER_IF_NONE_MATCH))) {
+        mNotModifiedCount.incrementAndGet();
+        exchange.sendResponseHeaders(RestUtils.HTTP_NOT_MODIFIED, -1);
+        return;
+      }
+      sendBytes(exchange, RestUtils.HTTP_OK, bytes);
+    }
+
+    // Single ?name=topic or bulk ?names=topic,topic [extension]
+    private void unregister(HttpExchange exchange) throws IOException {
+      String query = exchange.getRequestURI().getRawQuery();
+      String name = getParameter(query, RestUtils.PAYLOAD_NAME);
+      String names = mExtensions ? getParameter(query, QUERY_NAMES) : null;
+      if (null == name && null == names) {
+        send(exchange, RestUtils.HTTP_BAD_REQUEST, null);
+        return;
+      }
+      int removed = 0;
+      synchronized (mTopics) {
+        for (String topic : null == names ? new String[] {name}
+            : names.split(RestUtils.TOPIC_SEPARATOR)) {
+          if (null != mTopics.remove(topic)) {
+            removed++;
+          }
+        }
+      }
+      if (0 == removed) {
+        send(exchange, RestUtils.HTTP_NOT_FOUND, null);
+        return;
+      }
+      mUnregisterCount.addAndGet(removed);
+      send(exchange, RestUtils.HTTP_OK, null);
+    }
+  }
+
+  private class KeepAliveHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+      try {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+          send(exchange, RestUtils.HTTP_BAD_METHOD, null);
+          return;
+        }
+        JsonNode names = readBody(exchange).path(RestUtils.PAYLOAD_TOPIC_NAMES);
+        if (!names.isArray()) {
+          send(exchange, RestUtils.HTTP_BAD_REQUEST, null);
+          return;
+        }
+        long now = System.nanoTime();
+        boolean allFound = true;
+        synchronized (mTopics) {
+          for (JsonNode name : names) {
+            TopicRecord record = mTopics.get(name.asText());
+            if (null == record) {
+              allFound = false;
+            } else {
+              record.mLastKeepAlive = now;
+            }
+          }
+        }
+        mKeepAliveCount.incrementAndGet();
+        // unknown topics [expired or never registered] are reported the same way as TNS does
+        send(exchange, allFound ? RestUtils.HTTP_OK : RestUtils.HTTP_NOT_FOUND, null);
+      } finally {
+        exchange.close();
+      }
+    }
+  }
+
+  private static JsonNode readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      JsonNode root = mMapper.readTree(in);
+      return null == root ? mMapper.createObjectNode() : root;
+    } catch (IOException e) {
+      return mMapper.createObjectNode();
+    }
+  }
+
+  private static String getParameter(String query, String key) {
+    if (null == query) {
+      return null;
+    }
+    for (String pair : query.split(QUERY_SEPARATOR)) {
+      int index = pair.indexOf(QUERY_ASSIGN);
+      if (index > 0 && key.equals(pair.substring(0, index))) {
+        try {
+          return URLDecoder.decode(pair.substring(index + 1), StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void send(HttpExchange exchange, int statusCode, JsonNode body)
+      throws IOException {
+    // status only replies carry an empty object, connections of some clients are reset on
+    // replies without body
+    sendBytes(exchange, statusCode,
+        mMapper.writeValueAsBytes(null == body ? mMapper.createObjectNode() : body));
+  }
+
+  private static void sendBytes(HttpExchange exchange, int statusCode, byte[] bytes)
+      throws IOException {
+    exchange.getResponseHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+    exchange.sendResponseHeaders(statusCode, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
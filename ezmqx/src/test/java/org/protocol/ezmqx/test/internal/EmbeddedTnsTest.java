@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.JsonUtils;
+import org.protocol.ezmqx.internal.RestClient;
+import org.protocol.ezmqx.internal.RestResponse;
+import org.protocol.ezmqx.internal.RestUtils;
+import org.protocol.ezmqx.test.TestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public class EmbeddedTnsTest {
+  private EmbeddedTns mTns;
+  private RestClient mClient = new RestClient(TestUtils.REST_TIMEOUT, 4, 4);
+
+  private String start(int keepAliveInterval, boolean extensions) throws Exception {
+    mTns = new EmbeddedTns(0, keepAliveInterval, 2, extensions);
+    mTns.start();
+    return mTns.getAddress() + RestUtils.PREFIX + RestUtils.TOPIC;
+  }
+
+  private ObjectNode createTopic(ObjectNode node, String name) {
+    node.put(RestUtils.PAYLOAD_NAME, name);
+    node.put(RestUtils.PAYLOAD_ENDPOINT, TestUtils.ADDRESS + ":" + TestUtils.PORT);
+    node.put(RestUtils.PAYLOAD_DATAMODEL, "GTC_Robot_0.0.1");
+    node.put(RestUtils.PAYLOAD_SECURED, false);
+    return node;
+  }
+
+  private int register(String topicUrl, String name) throws Exception {
+    ObjectNode root = JsonUtils.getMapper().createObjectNode();
+    createTopic(root.putObject(RestUtils.PAYLOAD_TOPIC), name);
+    return mClient.post(topicUrl, root.toString()).getStatusCode();
+  }
+
+  private int registerBulk(String topicUrl, String... names) throws Exception {
+    ObjectNode root = JsonUtils.getMapper().createObjectNode();
+    ArrayNode topics = root.putArray(RestUtils.PAYLOAD_TOPICS);
+    for (String name : names) {
+      createTopic(topics.addObject(), name);
+    }
+    return mClient.post(topicUrl, root.toString()).getStatusCode();
+  }
+
+  @After
+  public void after() {
+    if (null != mTns) {
+      mTns.stop();
+    }
+  }
+
+  @Test
+  public void queryTest() throws Exception {
+    String topicUrl = start(60, false);
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/a/b"));
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/a/c"));
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/d"));
+
+    RestResponse response = mClient.get(topicUrl,
+        RestUtils.QUERY_NAME + "/a/b" + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_FALSE);
+    assertEquals(RestUtils.HTTP_OK, response.getStatusCode());
+    JsonNode topics = JsonUtils.getMapper().readTree(response.getResponse())
+        .path(RestUtils.PAYLOAD_TOPICS);
+    assertEquals(1, topics.size());
+    assertEquals("/a/b", topics.get(0).path(RestUtils.PAYLOAD_NAME).asText());
+
+    response = mClient.get(topicUrl,
+        RestUtils.QUERY_NAME + "/a" + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_TRUE);
+    assertEquals(RestUtils.HTTP_OK, response.getStatusCode());
+    assertEquals(2, JsonUtils.getMapper().readTree(response.getResponse())
+        .path(RestUtils.PAYLOAD_TOPICS).size());
+
+    response = mClient.get(topicUrl,
+        RestUtils.QUERY_NAME + "/a" + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_FALSE);
+    assertEquals(RestUtils.HTTP_NOT_FOUND, response.getStatusCode());
+  }
+
+  @Test
+  public void conflictTest() throws Exception {
+    String topicUrl = start(60, false);
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/a"));
+    assertEquals(RestUtils.HTTP_CONFLICT, register(topicUrl, "/a"));
+    assertEquals(1, mTns.getTopicCount());
+    assertEquals(RestUtils.HTTP_OK,
+        mClient.delete(topicUrl, RestUtils.QUERY_NAME + "/a").getStatusCode());
+    assertEquals(RestUtils.HTTP_NOT_FOUND,
+        mClient.delete(topicUrl, RestUtils.QUERY_NAME + "/a").getStatusCode());
+  }
+
+  @Test
+  public void expiryTest() throws Exception {
+    String topicUrl = start(1, false);
+    String keepAliveUrl = mTns.getAddress() + RestUtils.PREFIX + RestUtils.TNS_KEEP_ALIVE;
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/alive"));
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/expired"));
+    ObjectNode root = JsonUtils.getMapper().createObjectNode();
+    root.putArray(RestUtils.PAYLOAD_TOPIC_NAMES).add("/alive");
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (0 == mTns.getExpiredCount() && System.nanoTime() < deadline) {
+      assertEquals(RestUtils.HTTP_OK, mClient.post(keepAliveUrl, root.toString()).getStatusCode());
+      Thread.sleep(200);
+    }
+    assertEquals(1, mTns.getExpiredCount());
+    assertEquals(1, mTns.getTopicCount());
+    root.withArray(RestUtils.PAYLOAD_TOPIC_NAMES).add("/expired");
+    assertEquals(RestUtils.HTTP_NOT_FOUND,
+        mClient.post(keepAliveUrl, root.toString()).getStatusCode());
+  }
+
+  @Test
+  public void extensionsDisabledTest() throws Exception {
+    String topicUrl = start(60, false);
+    assertEquals(RestUtils.HTTP_BAD_REQUEST, registerBulk(topicUrl, "/a", "/b"));
+    assertEquals(RestUtils.HTTP_CREATED, register(topicUrl, "/a"));
+    RestResponse response = mClient.get(topicUrl,
+        RestUtils.QUERY_NAME + "/a" + RestUtils.QUERY_HIERARCHICAL + RestUtils.QUERY_FALSE);
+    assertNull(response.getETag());
+    assertEquals(RestUtils.HTTP_BAD_REQUEST,
+        mClient.delete(topicUrl, RestUtils.QUERY_NAMES + "/a").getStatusCode());
+    assertEquals(1, mTns.getTopicCount());
+  }
+
+  @Test
+  public void extensionsEnabledTest() throws Exception {
+    String topicUrl = start(60, true);
+    assertEquals(RestUtils.HTTP_CREATED, registerBulk(topicUrl, "/a", "/b"));
+    // bulk is registered all or nothing
+    assertEquals(RestUtils.HTTP_CONFLICT, registerBulk(topicUrl, "/c", "/b"));
+    assertEquals(2, mTns.getTopicCount());
+
+    String query = RestUtils.QUERY_NAME + "/a" + RestUtils.QUERY_HIERARCHICAL
+        + RestUtils.QUERY_FALSE;
+    RestResponse response = mClient.get(topicUrl, query);
+    assertNotNull(response.getETag());
+    assertEquals(RestUtils.HTTP_NOT_MODIFIED, mClient.getAsync(topicUrl, query,
+        response.getETag()).get(TestUtils.REST_TIMEOUT, TimeUnit.SECONDS).getStatusCode());
+
+    assertEquals(RestUtils.HTTP_OK,
+        mClient.delete(topicUrl, RestUtils.QUERY_NAMES + "/a,/b").getStatusCode());
+    assertEquals(0, mTns.getTopicCount());
+  }
+}
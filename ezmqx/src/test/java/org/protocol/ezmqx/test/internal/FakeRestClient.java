@@ -19,6 +19,7 @@ package org.protocol.ezmqx.test.internal;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.protocol.ezmqx.internal.RestClientInterface;
 import org.protocol.ezmqx.internal.RestResponse;
 import org.protocol.ezmqx.internal.RestUtils;
@@ -65,4 +66,47 @@ public class FakeRestClient implements RestClientInterface {
         new RestResponse(200, mRestResponse.get(url + RestUtils.QUESTION_MARK + query));
     return restResponse;
   }
+
+  @Override
+  public CompletableFuture<RestResponse> getAsync(String url) {
+    RestResponse restResponse = new RestResponse(200, mRestResponse.get(url));
+    return CompletableFuture.completedFuture(restResponse);
+  }
+
+  @Override
+  public CompletableFuture<RestResponse> getAsync(String url, String query) {
+    RestResponse restResponse =
+        new RestResponse(200, mRestResponse.get(url + RestUtils.QUESTION_MARK + query));
+    return CompletableFuture.completedFuture(restResponse);
+  }
+
+  @Override
+  public CompletableFuture<RestResponse> getAsync(String url, String query, String eTag) {
+    String payload = mRestResponse.get(url + RestUtils.QUESTION_MARK + query);
+    String currentETag = null == payload ? null : Integer.toHexString(payload.hashCode());
+    if (null != eTag && eTag.equals(currentETag)) {
+      return CompletableFuture.completedFuture(
+          new RestResponse(RestUtils.HTTP_NOT_MODIFIED, null, currentETag));
+    }
+    return CompletableFuture.completedFuture(new RestResponse(200, payload, currentETag));
+  }
+
+  @Override
+  public CompletableFuture<RestResponse> putAsync(String url, String payload) {
+    RestResponse restResponse = new RestResponse(200, mRestResponse.get(url));
+    return CompletableFuture.completedFuture(restResponse);
+  }
+
+  @Override
+  public CompletableFuture<RestResponse> postAsync(String url, String payload) {
+    RestResponse restResponse = new RestResponse(201, mRestResponse.get(url));
+    return CompletableFuture.completedFuture(restResponse);
+  }
+
+  @Override
+  public CompletableFuture<RestResponse> deleteAsync(String url, String query) {
+    RestResponse restResponse =
+        new RestResponse(200, mRestResponse.get(url + RestUtils.QUESTION_MARK + query));
+    return CompletableFuture.completedFuture(restResponse);
+  }
 }
@@ -26,4 +26,10 @@ public class FakeRestClientFactory implements RestClientFactoryInterface {
     FakeRestClient client = new FakeRestClient();
     return client;
   }
+
+  @Override
+  public void setConnectionPool(int poolSize, int poolSizePerHost) {}
+
+  @Override
+  public void releaseClients() {}
 }
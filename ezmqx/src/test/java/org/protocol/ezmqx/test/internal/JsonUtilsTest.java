@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.List;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.internal.JsonUtils;
+import org.protocol.ezmqx.test.TestUtils;
+
+public class JsonUtilsTest {
+
+  @Test
+  public void getMapperTest() {
+    assertSame(JsonUtils.getMapper(), JsonUtils.getMapper());
+  }
+
+  @Test
+  public void parseTopicsTest() throws IOException {
+    List<EZMQXTopic> topics = JsonUtils.parseTopics(TestUtils.WATCH_TOPIC_RESPONSE);
+    assertEquals(2, topics.size());
+    EZMQXTopic topic = topics.get(1);
+    assertEquals("/topic/2", topic.getName());
+    assertEquals("GTC_Robot_0.0.1", topic.getDatamodel());
+    assertEquals("localhost", topic.getEndPoint().getAddr());
+    assertEquals(5563, topic.getEndPoint().getPort());
+    assertFalse(topic.isSecured());
+  }
+
+  @Test
+  public void parseTopicsSkipTest() throws IOException {
+    String json = "{\"count\": {\"total\": 3}, \"topics\": ["
+        + "{\"name\": \"/a\", \"datamodel\": \"m\", \"endpoint\": \"localhost:5562\"},"
+        + "{\"name\": \"/b\", \"extra\": [1, {\"x\": 2}], \"datamodel\": \"m\","
+        + " \"endpoint\": \"localhost:5562\", \"secured\": true}, 7]}";
+    List<EZMQXTopic> topics = JsonUtils.parseTopics(json);
+    // first topic misses secured
+    assertEquals(1, topics.size());
+    assertEquals("/b", topics.get(0).getName());
+    assertTrue(topics.get(0).isSecured());
+  }
+
+  @Test
+  public void parseTopicsEmptyTest() throws IOException {
+    assertTrue(JsonUtils.parseTopics("").isEmpty());
+    assertTrue(JsonUtils.parseTopics("{}").isEmpty());
+    assertTrue(JsonUtils.parseTopics("{\"topics\": []}").isEmpty());
+  }
+
+  @Test(expected = IOException.class)
+  public void parseTopicsInvalidTest() throws IOException {
+    JsonUtils.parseTopics("{\"topics\": [{\"name\": ");
+  }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.KeepAliveEncoder;
+import org.protocol.ezmqx.internal.RestUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class KeepAliveEncoderTest {
+  private final ObjectMapper mMapper = new ObjectMapper();
+
+  private Set<String> decode(List<String> payloads) throws IOException {
+    Set<String> topics = new HashSet<String>();
+    for (String payload : payloads) {
+      for (JsonNode name : mMapper.readTree(payload).path(RestUtils.PAYLOAD_TOPIC_NAMES)) {
+        assertTrue(topics.add(name.asText()));
+      }
+    }
+    return topics;
+  }
+
+  @Test
+  public void payloadTest() throws IOException {
+    KeepAliveEncoder encoder = new KeepAliveEncoder(10);
+    assertTrue(encoder.getPayloads().isEmpty());
+    assertTrue(encoder.add("/a"));
+    assertTrue(encoder.add("/a/b"));
+    assertFalse(encoder.add("/a"));
+    assertEquals(1, encoder.getPayloads().size());
+    assertEquals("{\"topic_names\":[\"/a\",\"/a/b\"]}", encoder.getPayloads().get(0));
+    assertTrue(encoder.remove("/a"));
+    assertFalse(encoder.remove("/a"));
+    assertEquals("{\"topic_names\":[\"/a/b\"]}", encoder.getPayloads().get(0));
+  }
+
+  @Test
+  public void chunkTest() throws IOException {
+    KeepAliveEncoder encoder = new KeepAliveEncoder(100);
+    for (int i = 0; i < 250; i++) {
+      encoder.add("/topic/" + i);
+    }
+    List<String> payloads = encoder.getPayloads();
+    assertEquals(3, payloads.size());
+    assertEquals(250, decode(payloads).size());
+
+    // unchanged chunks are not encoded again
+    encoder.remove("/topic/0");
+    List<String> updated = encoder.getPayloads();
+    assertSame(payloads.get(1), updated.get(1));
+    assertSame(payloads.get(2), updated.get(2));
+
+    // free slot of a chunk is reused before a new chunk is opened
+    encoder.add("/topic/250");
+    assertEquals(3, encoder.getPayloads().size());
+    assertEquals(250, decode(encoder.getPayloads()).size());
+    assertEquals(250, encoder.size());
+  }
+}
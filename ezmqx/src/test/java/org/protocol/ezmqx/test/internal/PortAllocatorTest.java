@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.PortAllocator;
+
+public class PortAllocatorTest {
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidRangeTest() {
+    new PortAllocator(65500, 100);
+  }
+
+  @Test
+  public void allocateReleaseTest() {
+    PortAllocator allocator = new PortAllocator(4000, 100);
+    Set<Integer> ports = new HashSet<Integer>();
+    for (int i = 0; i < 100; i++) {
+      int port = allocator.allocate();
+      assertTrue(port >= 4000 && port < 4100);
+      assertTrue(ports.add(port));
+    }
+    assertEquals(-1, allocator.allocate());
+    assertEquals(100, allocator.getAllocatedCount());
+
+    assertTrue(allocator.release(4042));
+    assertFalse(allocator.release(4042));
+    assertFalse(allocator.release(4100));
+    assertEquals(4042, allocator.allocate());
+  }
+
+  @Test
+  public void reserveTest() {
+    PortAllocator allocator = new PortAllocator(4000, 130);
+    assertEquals(128, allocator.reserveRange(3000, 4127));
+    assertFalse(allocator.reserve(4000));
+    assertFalse(allocator.release(4000));
+    assertFalse(allocator.isAllocated(4000));
+    assertEquals(4128, allocator.allocate());
+    assertEquals(4129, allocator.allocate());
+    assertEquals(-1, allocator.allocate());
+    assertEquals(2, allocator.getAllocatedCount());
+  }
+
+  @Test
+  public void concurrentTest() throws InterruptedException {
+    final PortAllocator allocator = new PortAllocator(10000, 1000);
+    final Set<Integer> ports = ConcurrentHashMap.newKeySet();
+    final AtomicBoolean duplicated = new AtomicBoolean(false);
+    final int rounds = 10000;
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < rounds; i++) {
+          int port = allocator.allocate();
+          if (port < 0) {
+            continue;
+          }
+          // a port is never handed out twice while it is allocated
+          if (!ports.add(port)) {
+            duplicated.set(true);
+          }
+          ports.remove(port);
+          allocator.release(port);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(duplicated.get());
+    assertTrue(ports.isEmpty());
+    assertEquals(0, allocator.getAllocatedCount());
+  }
+}
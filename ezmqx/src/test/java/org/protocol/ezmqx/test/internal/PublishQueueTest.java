@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXErrorCode;
+import org.protocol.ezmqx.EZMQXException;
+import org.protocol.ezmqx.EZMQXOverflowPolicy;
+import org.protocol.ezmqx.EZMQXWaitStrategy;
+import org.protocol.ezmqx.internal.PublishQueue;
+
+public class PublishQueueTest {
+  private List<Integer> mSent = new CopyOnWriteArrayList<Integer>();
+  private CountDownLatch mGate = new CountDownLatch(0);
+  private List<Thread> mSenderThreads = new CopyOnWriteArrayList<Thread>();
+
+  private PublishQueue<Integer> createQueue(int capacity, EZMQXWaitStrategy waitStrategy,
+      EZMQXOverflowPolicy overflowPolicy) {
+    PublishQueue<Integer> queue = new PublishQueue<Integer>(capacity, waitStrategy,
+        overflowPolicy, new PublishQueue.Sender<Integer>() {
+          public void send(Integer item) throws EZMQXException {
+            try {
+              mGate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+            }
+            if (item < 0) {
+              throw new EZMQXException("Invalid data", EZMQXErrorCode.UnKnownState);
+            }
+            if (!mSenderThreads.contains(Thread.currentThread())) {
+              mSenderThreads.add(Thread.currentThread());
+            }
+            mSent.add(item);
+          }
+        });
+    queue.start("PublishQueueTest");
+    return queue;
+  }
+
+  @Test
+  public void sendTest() throws EZMQXException {
+    for (EZMQXWaitStrategy waitStrategy : EZMQXWaitStrategy.values()) {
+      mSent.clear();
+      PublishQueue<Integer> queue = createQueue(4, waitStrategy, EZMQXOverflowPolicy.BLOCK);
+      for (int i = 0; i < 100; i++) {
+        queue.offer(i);
+      }
+      queue.offer(-1);
+      queue.stop();
+      assertEquals(100, mSent.size());
+      assertEquals(Integer.valueOf(99), mSent.get(99));
+      assertEquals(1, queue.getFailedCount());
+    }
+  }
+
+  @Test
+  public void dropNewestTest() throws EZMQXException {
+    mGate = new CountDownLatch(1);
+    PublishQueue<Integer> queue =
+        createQueue(2, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.DROP_NEWEST);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(i);
+    }
+    mGate.countDown();
+    queue.stop();
+    // sender thread may hold one item while queue is full
+    assertEquals(10, mSent.size() + queue.getDroppedCount());
+    assertEquals(Integer.valueOf(0), mSent.get(0));
+  }
+
+  @Test
+  public void dropOldestTest() throws EZMQXException {
+    mGate = new CountDownLatch(1);
+    PublishQueue<Integer> queue =
+        createQueue(2, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.DROP_OLDEST);
+    for (int i = 0; i < 10; i++) {
+      queue.offer(i);
+    }
+    mGate.countDown();
+    queue.stop();
+    assertEquals(10, mSent.size() + queue.getDroppedCount());
+    assertEquals(Integer.valueOf(9), mSent.get(mSent.size() - 1));
+  }
+
+  @Test
+  public void offerStoppedTest() {
+    PublishQueue<Integer> queue =
+        createQueue(4, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.BLOCK);
+    queue.stop();
+    try {
+      queue.offer(0);
+      fail("Offer to stopped queue");
+    } catch (EZMQXException e) {
+      assertEquals(EZMQXErrorCode.Terminated, e.getCode());
+    }
+    assertEquals(0, queue.size());
+  }
+
+  @Test(expected = EZMQXException.class)
+  public void failTest() throws EZMQXException {
+    mGate = new CountDownLatch(1);
+    PublishQueue<Integer> queue =
+        createQueue(2, EZMQXWaitStrategy.YIELD, EZMQXOverflowPolicy.FAIL);
+    try {
+      for (int i = 0; i < 10; i++) {
+        queue.offer(i);
+      }
+    } finally {
+      mGate.countDown();
+      queue.stop();
+    }
+  }
+
+  @Test
+  public void stopWhileOfferingTest() throws InterruptedException {
+    PublishQueue<Integer> queue =
+        createQueue(16, EZMQXWaitStrategy.PARK, EZMQXOverflowPolicy.BLOCK);
+    final AtomicInteger accepted = new AtomicInteger();
+    final AtomicInteger rejected = new AtomicInteger();
+    final CountDownLatch started = new CountDownLatch(4);
+    Thread[] producers = new Thread[4];
+    for (int i = 0; i < producers.length; i++) {
+      producers[i] = new Thread(new Runnable() {
+        public void run() {
+          started.countDown();
+          while (true) {
+            try {
+              queue.offer(1);
+              accepted.incrementAndGet();
+            } catch (EZMQXException e) {
+              assertEquals(EZMQXErrorCode.Terminated, e.getCode());
+              rejected.incrementAndGet();
+              return;
+            }
+          }
+        }
+      });
+      producers[i].start();
+    }
+    started.await();
+    Thread.sleep(50);
+    queue.stop();
+    for (Thread producer : producers) {
+      producer.join(5000);
+    }
+    // every accepted item is sent, only by the sender thread
+    assertEquals(4, rejected.get());
+    assertEquals(accepted.get(), mSent.size());
+    assertEquals(1, mSenderThreads.size());
+    assertTrue(mSenderThreads.get(0).getName().equals("PublishQueueTest"));
+    assertEquals(0, queue.size());
+  }
+}
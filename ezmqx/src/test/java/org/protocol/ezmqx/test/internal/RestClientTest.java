@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.RestClient;
+import org.protocol.ezmqx.internal.RestClientFactory;
+import org.protocol.ezmqx.internal.RestClientInterface;
+import org.protocol.ezmqx.internal.RestFactory;
+import org.protocol.ezmqx.internal.RestResponse;
+import org.protocol.ezmqx.test.TestUtils;
+import com.sun.net.httpserver.HttpServer;
+
+public class RestClientTest {
+  private HttpServer mServer;
+  private CountDownLatch mGate;
+  private String mUrl;
+
+  @Before
+  public void setup() throws IOException {
+    mGate = new CountDownLatch(1);
+    mServer = HttpServer.create(new InetSocketAddress(TestUtils.LOCAL_HOST, 0), 0);
+    mServer.createContext("/", exchange -> {
+      try {
+        mGate.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+      }
+      byte[] body = "ok".getBytes();
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream stream = exchange.getResponseBody()) {
+        stream.write(body);
+      }
+    });
+    mServer.start();
+    mUrl = "http://" + TestUtils.LOCAL_HOST + ":" + mServer.getAddress().getPort() + "/";
+  }
+
+  @After
+  public void after() {
+    mGate.countDown();
+    mServer.stop(0);
+  }
+
+  @Test
+  public void retireIdleTest() {
+    RestClient client = new RestClient(TestUtils.REST_TIMEOUT, 2, 2);
+    client.retire();
+    assertTrue(client.isClosed());
+  }
+
+  @Test
+  public void retireInFlightTest() throws Exception {
+    RestClient client = new RestClient(TestUtils.REST_TIMEOUT, 2, 2);
+    CompletableFuture<RestResponse> future = client.getAsync(mUrl);
+    client.retire();
+    // request in flight keeps the client open
+    assertFalse(client.isClosed());
+    mGate.countDown();
+    assertEquals(200, future.get(TestUtils.REST_TIMEOUT, TimeUnit.SECONDS).getStatusCode());
+    for (int i = 0; i < 100 && !client.isClosed(); i++) {
+      Thread.sleep(10);
+    }
+    assertTrue(client.isClosed());
+  }
+
+  @Test
+  public void retiredClientTest() throws Exception {
+    RestClient client = new RestClient(TestUtils.REST_TIMEOUT, 2, 2);
+    client.retire();
+    try {
+      client.get(mUrl);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+    try {
+      client.getAsync(mUrl);
+      fail();
+    } catch (IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void retiredClientRetryTest() throws Exception {
+    mGate.countDown();
+    // first client handed out is retired before its request begins
+    AtomicInteger created = new AtomicInteger(0);
+    RestClientFactory factory = new RestClientFactory(2, 2) {
+      @Override
+      public synchronized RestClientInterface getRestClient(int timeOut) {
+        RestClientInterface client = super.getRestClient(timeOut);
+        if (1 == created.incrementAndGet()) {
+          releaseClients();
+        }
+        return client;
+      }
+    };
+    RestFactory restFactory = RestFactory.getInstance();
+    restFactory.setFactory(factory);
+    try {
+      assertEquals(200, restFactory.get(mUrl).getStatusCode());
+      assertEquals(2, created.get());
+      created.set(0);
+      assertEquals(200, restFactory.getAsync(mUrl).get(TestUtils.REST_TIMEOUT, TimeUnit.SECONDS)
+          .getStatusCode());
+      assertEquals(2, created.get());
+    } finally {
+      restFactory.setFactory(new RestClientFactory());
+    }
+  }
+}
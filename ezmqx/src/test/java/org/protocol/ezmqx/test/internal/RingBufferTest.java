@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.RingBuffer;
+
+public class RingBufferTest {
+
+  @Test
+  public void capacityTest() {
+    assertEquals(8, new RingBuffer<Integer>(5).capacity());
+    assertEquals(1, new RingBuffer<Integer>(1).capacity());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityNegativeTest() {
+    new RingBuffer<Integer>(0);
+  }
+
+  @Test
+  public void offerPollTest() {
+    RingBuffer<Integer> buffer = new RingBuffer<Integer>(4);
+    assertNull(buffer.poll());
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        assertTrue(buffer.offer(i));
+      }
+      assertFalse(buffer.offer(4));
+      assertEquals(4, buffer.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(Integer.valueOf(i), buffer.poll());
+      }
+      assertTrue(buffer.isEmpty());
+    }
+  }
+
+  @Test
+  public void concurrentTest() throws InterruptedException {
+    final RingBuffer<Long> buffer = new RingBuffer<Long>(64);
+    final int producers = 4;
+    final int count = 10000;
+    final AtomicLong sum = new AtomicLong(0);
+    Thread[] threads = new Thread[producers];
+    for (int i = 0; i < producers; i++) {
+      threads[i] = new Thread(new Runnable() {
+        public void run() {
+          for (long value = 1; value <= count; value++) {
+            while (!buffer.offer(value)) {
+              Thread.yield();
+            }
+          }
+        }
+      });
+      threads[i].start();
+    }
+    long received = 0;
+    while (received < producers * count) {
+      Long value = buffer.poll();
+      if (null == value) {
+        Thread.yield();
+        continue;
+      }
+      sum.addAndGet(value);
+      received++;
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(producers * ((long) count * (count + 1) / 2), sum.get());
+    assertTrue(buffer.isEmpty());
+  }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.EZMQXEndPoint;
+import org.protocol.ezmqx.EZMQXTopic;
+import org.protocol.ezmqx.internal.TopicCache;
+import org.protocol.ezmqx.internal.Utils;
+
+public class TopicCacheTest {
+  private static final int CAPACITY = 1024;
+  private static final long TTL = 10000;
+  private static final long NEGATIVE_TTL = 2000;
+  private TopicCache mCache;
+
+  @Before
+  public void setup() {
+    mCache = TopicCache.getInstance();
+    mCache.configure(CAPACITY, TTL, NEGATIVE_TTL);
+  }
+
+  @After
+  public void after() {
+    mCache.configure(Utils.TOPIC_CACHE_CAPACITY, Utils.TOPIC_CACHE_TTL,
+        Utils.TOPIC_CACHE_NEGATIVE_TTL);
+  }
+
+  private List<EZMQXTopic> getTopics(String... names) {
+    List<EZMQXTopic> topics = new ArrayList<EZMQXTopic>();
+    for (String name : names) {
+      topics.add(new EZMQXTopic(name, "GTC_Robot_0.0.1", false,
+          new EZMQXEndPoint("localhost", 5562)));
+    }
+    return topics;
+  }
+
+  @Test
+  public void disabledByDefaultTest() {
+    mCache.configure(Utils.TOPIC_CACHE_CAPACITY, Utils.TOPIC_CACHE_TTL,
+        Utils.TOPIC_CACHE_NEGATIVE_TTL);
+    mCache.put("/topic", false, getTopics("/topic"));
+    mCache.put("/other", false, getTopics());
+    assertNull(mCache.get("/topic", false));
+    assertNull(mCache.get("/other", false));
+  }
+
+  @Test
+  public void putGetTest() {
+    mCache.put("/topic", false, getTopics("/topic"));
+    List<EZMQXTopic> topics = mCache.get("/topic", false);
+    assertNotNull(topics);
+    assertEquals("/topic", topics.get(0).getName());
+    assertNull(mCache.get("/topic", true));
+  }
+
+  @Test
+  public void negativeCacheTest() {
+    mCache.put("/topic", false, getTopics());
+    List<EZMQXTopic> topics = mCache.get("/topic", false);
+    assertNotNull(topics);
+    assertEquals(0, topics.size());
+  }
+
+  @Test
+  public void expiryTest() throws InterruptedException {
+    mCache.configure(10, 50, 0);
+    mCache.put("/topic", false, getTopics("/topic"));
+    mCache.put("/none", false, getTopics());
+    assertNull(mCache.get("/none", false));
+    Thread.sleep(100);
+    assertNull(mCache.get("/topic", false));
+  }
+
+  @Test
+  public void evictionTest() {
+    mCache.configure(2, TTL, NEGATIVE_TTL);
+    mCache.put("/a", false, getTopics("/a"));
+    mCache.put("/b", false, getTopics("/b"));
+    mCache.get("/a", false);
+    mCache.put("/c", false, getTopics("/c"));
+    assertNotNull(mCache.get("/a", false));
+    assertNull(mCache.get("/b", false));
+    assertNotNull(mCache.get("/c", false));
+  }
+
+  @Test
+  public void invalidateTest() {
+    mCache.put("/a", true, getTopics("/a/b", "/a/c"));
+    mCache.put("/a/b", false, getTopics("/a/b"));
+    mCache.put("/ab", true, getTopics("/ab"));
+    mCache.invalidate("/a/b");
+    assertNull(mCache.get("/a", true));
+    assertNull(mCache.get("/a/b", false));
+    assertNotNull(mCache.get("/ab", true));
+  }
+
+  @Test
+  public void hierarchicalLookupTest() {
+    mCache.put("/a", true, getTopics("/a/b", "/a/b/c", "/a/d"));
+    assertEquals(2, mCache.get("/a/b", true).size());
+    assertEquals("/a/d", mCache.get("/a/d", false).get(0).getName());
+    assertEquals(0, mCache.get("/a/e", false).size());
+    assertNull(mCache.get("/ab", false));
+    mCache.invalidate("/a/d");
+    assertNull(mCache.get("/a/b", true));
+  }
+
+  @Test
+  public void copyTest() {
+    mCache.put("/topic", false, getTopics("/topic"));
+    mCache.get("/topic", false).clear();
+    assertEquals(1, mCache.get("/topic", false).size());
+  }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2018 Samsung Electronics All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ *******************************************************************************/
+
+package org.protocol.ezmqx.test.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.protocol.ezmqx.internal.TopicTrie;
+
+public class TopicTrieTest {
+  private TopicTrie<String> mTrie;
+
+  @Before
+  public void setup() {
+    mTrie = new TopicTrie<String>();
+    mTrie.put("/a", "/a");
+    mTrie.put("/a/b", "/a/b");
+    mTrie.put("/a/b/c", "/a/b/c");
+    mTrie.put("/a/x/c", "/a/x/c");
+    mTrie.put("/ab", "/ab");
+  }
+
+  @Test
+  public void putGetTest() {
+    assertEquals(5, mTrie.size());
+    assertEquals("/a/b", mTrie.get("/a/b"));
+    assertNull(mTrie.get("/a/x"));
+    assertNull(mTrie.get("/b"));
+    assertEquals("/a/b", mTrie.put("/a/b", "new"));
+    assertEquals(5, mTrie.size());
+  }
+
+  @Test
+  public void removeTest() {
+    assertEquals("/a/b/c", mTrie.remove("/a/b/c"));
+    assertNull(mTrie.remove("/a/b/c"));
+    assertNull(mTrie.remove("/a/x"));
+    assertEquals(4, mTrie.size());
+    assertTrue(mTrie.contains("/a/b"));
+    assertEquals(1, mTrie.getHierarchical("/a/b").size());
+  }
+
+  @Test
+  public void hierarchicalTest() {
+    List<String> values = mTrie.getHierarchical("/a");
+    assertEquals(4, values.size());
+    assertFalse(values.contains("/ab"));
+    assertEquals(1, mTrie.getHierarchical("/a/x").size());
+    assertEquals(0, mTrie.getHierarchical("/c").size());
+  }
+
+  @Test
+  public void pathTest() {
+    List<String> values = mTrie.getPath("/a/b/c/d");
+    assertEquals(3, values.size());
+    assertEquals("/a", values.get(0));
+    assertEquals("/a/b/c", values.get(2));
+  }
+
+  @Test
+  public void wildCardTest() {
+    List<String> values = mTrie.match("/a/*/c");
+    assertEquals(2, values.size());
+    assertTrue(values.contains("/a/b/c"));
+    assertTrue(values.contains("/a/x/c"));
+    assertEquals(2, mTrie.match("/*").size());
+    assertEquals(0, mTrie.match("/a/*/c/*").size());
+  }
+
+  @Test
+  public void clearTest() {
+    mTrie.clear();
+    assertTrue(mTrie.isEmpty());
+    assertEquals(0, mTrie.values().size());
+  }
+}
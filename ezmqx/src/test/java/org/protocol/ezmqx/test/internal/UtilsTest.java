@@ -115,4 +115,23 @@ public class UtilsTest {
     topic = "/#topic";
     assertEquals(false, Utils.validateTopic(topic));
   }
+
+  @Test
+  public void validateWildCardTopicTest() throws EZMQXException {
+    assertEquals(true, Utils.validateWildCardTopic("/a/*/c"));
+    assertEquals(true, Utils.validateWildCardTopic("/a/*/*"));
+    assertEquals(true, Utils.validateWildCardTopic("/a/b"));
+    assertEquals(false, Utils.validateWildCardTopic("/*/b"));
+    assertEquals(false, Utils.validateWildCardTopic("/a/b*"));
+    assertEquals(false, Utils.validateWildCardTopic("/a/*/"));
+    assertEquals(false, Utils.validateWildCardTopic("/a//*"));
+  }
+
+  @Test
+  public void getWildCardPrefixTest() {
+    assertEquals("/a/b", Utils.getWildCardPrefix("/a/b/*/d"));
+    assertEquals("/a", Utils.getWildCardPrefix("/a/*"));
+    assertEquals("/a/b*", Utils.getWildCardPrefix("/a/b*/*"));
+    assertEquals(null, Utils.getWildCardPrefix("/a/b"));
+  }
 }